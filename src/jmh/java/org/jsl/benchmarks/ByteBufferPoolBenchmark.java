@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.RetainableByteBufferPool;
+import org.openjdk.jmh.annotations.*;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * RetainableByteBufferPool.alloc() and release(),
+ * number of allocating threads is set with '-t'.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteBufferPoolBenchmark
+{
+    private static final int BATCH = 16;
+
+    @Param({"64", "512", "4096"})
+    public int messageSize;
+
+    private RetainableByteBufferPool m_pool;
+
+    @State(Scope.Thread)
+    public static class Buffers
+    {
+        final RetainableByteBuffer [] buf = new RetainableByteBuffer[BATCH];
+    }
+
+    @Setup
+    public void setup()
+    {
+        m_pool = new RetainableByteBufferPool(64*1024, true, ByteOrder.nativeOrder(), 64, 8);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        m_pool.release(Logger.getLogger(ByteBufferPoolBenchmark.class.getName()));
+    }
+
+    @Benchmark
+    public void allocRelease()
+    {
+        m_pool.alloc(messageSize).release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void allocBatchRelease(Buffers buffers)
+    {
+        final RetainableByteBuffer [] buf = buffers.buf;
+        for (int idx=0; idx<buf.length; idx++)
+            buf[idx] = m_pool.alloc(messageSize);
+        for (int idx=0; idx<buf.length; idx++)
+        {
+            buf[idx].release();
+            buf[idx] = null;
+        }
+    }
+}
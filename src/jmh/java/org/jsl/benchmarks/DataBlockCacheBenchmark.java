@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.RetainableDataBlock;
+import org.jsl.collider.RetainableDataBlockCache;
+import org.openjdk.jmh.annotations.*;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * RetainableDataBlockCache.get() and RetainableDataBlock.release(),
+ * the same way the socket reader gets 1 or 2 blocks at once.
+ * Number of threads is set with '-t'.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataBlockCacheBenchmark
+{
+    @Param({"4096", "65536"})
+    public int blockSize;
+
+    @Param({"1", "2"})
+    public int blocks;
+
+    private RetainableDataBlockCache m_cache;
+
+    @Setup
+    public void setup()
+    {
+        m_cache = new RetainableDataBlockCache(true, blockSize, ByteOrder.nativeOrder(), 64, 16);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        m_cache.clear(Logger.getLogger(DataBlockCacheBenchmark.class.getName()));
+    }
+
+    @Benchmark
+    public void getRelease()
+    {
+        RetainableDataBlock dataBlock = m_cache.get(blocks);
+        while (dataBlock != null)
+        {
+            final RetainableDataBlock next = dataBlock.next;
+            dataBlock.next = null;
+            dataBlock.release();
+            dataBlock = next;
+        }
+    }
+}
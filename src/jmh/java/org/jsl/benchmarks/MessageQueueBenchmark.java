@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.DataBlockCache;
+import org.jsl.collider.MessageQueue;
+import org.openjdk.jmh.annotations.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * MessageQueue.putAndGet() and getNext(), the thread getting
+ * the message out of the queue processes all messages put by others
+ * at the same time. Number of threads is set with '-t'.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageQueueBenchmark
+{
+    @Param({"16", "256", "2048"})
+    public int messageSize;
+
+    private DataBlockCache m_dataBlockCache;
+    private MessageQueue m_queue;
+
+    @State(Scope.Thread)
+    public static class Message
+    {
+        ByteBuffer buf;
+
+        @Setup
+        public void setup(MessageQueueBenchmark benchmark)
+        {
+            buf = ByteBuffer.allocateDirect(benchmark.messageSize);
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        m_dataBlockCache = new DataBlockCache(true, 64*1024, 4, 64);
+        m_queue = new MessageQueue(m_dataBlockCache);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        m_dataBlockCache.clear(Logger.getLogger(MessageQueueBenchmark.class.getName()));
+    }
+
+    @Benchmark
+    public int putAndGet(Message message)
+    {
+        final ByteBuffer buf = message.buf;
+        buf.clear();
+
+        int messages = 0;
+        ByteBuffer msg = m_queue.putAndGet(buf);
+        while (msg != null)
+        {
+            messages++;
+            msg = m_queue.getNext();
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.SelectedSelectionKeySet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Selector.selectNow() and selected keys processing the way
+ * the collider selector loop does it, with all keys always ready:
+ *   hashSet  - JDK HashSet, iterator and clear() (no optimization),
+ *   array    - SelectedSelectionKeySet installed into the selector,
+ *   consumer - SelectedSelectionKeySet filled by selectNow(Consumer).
+ * Run with '-prof gc' to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend="--add-opens=java.base/sun.nio.ch=ALL-UNNAMED")
+@State(Scope.Thread)
+public class SelectorBenchmark
+{
+    @Param({"hashSet", "array", "consumer"})
+    public String mode;
+
+    @Param({"16", "256"})
+    public int channels;
+
+    private Selector m_selector;
+    private Pipe [] m_pipes;
+    private SelectedSelectionKeySet m_selectedKeys;
+    private boolean m_consumer;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        m_selector = Selector.open();
+        if (mode.equals("array"))
+        {
+            m_selectedKeys = SelectedSelectionKeySet.install(m_selector);
+            if (m_selectedKeys == null)
+                throw new IllegalStateException("Can not install selected keys set.");
+        }
+        else if (mode.equals("consumer"))
+        {
+            m_selectedKeys = new SelectedSelectionKeySet();
+            m_consumer = true;
+        }
+
+        /* Data is never read, so all channels are always readable. */
+        m_pipes = new Pipe[channels];
+        for (int idx=0; idx<channels; idx++)
+        {
+            final Pipe pipe = Pipe.open();
+            pipe.source().configureBlocking(false);
+            pipe.source().register(m_selector, SelectionKey.OP_READ, Integer.valueOf(idx));
+            pipe.sink().write(ByteBuffer.wrap(new byte [] { 1 }));
+            m_pipes[idx] = pipe;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        m_selector.close();
+        for (Pipe pipe : m_pipes)
+        {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Benchmark
+    public void selectNow(Blackhole blackhole) throws IOException
+    {
+        if (m_selectedKeys == null)
+        {
+            m_selector.selectNow();
+            final Set<SelectionKey> selectedKeys = m_selector.selectedKeys();
+            for (SelectionKey key : selectedKeys)
+                blackhole.consume(key.attachment());
+            selectedKeys.clear();
+        }
+        else
+        {
+            if (m_consumer)
+                m_selectedKeys.selectNow(m_selector);
+            else
+                m_selector.selectNow();
+
+            final SelectedSelectionKeySet selectedKeys = m_selectedKeys;
+            final int size = selectedKeys.size();
+            for (int idx=0; idx<size; idx++)
+                blackhole.consume(selectedKeys.take(idx).attachment());
+            selectedKeys.reset();
+        }
+    }
+}
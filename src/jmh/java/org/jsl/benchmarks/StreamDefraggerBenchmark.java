@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.StreamDefragger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * StreamDefragger.getNext() splitting a stream of messages with
+ * 4 bytes length header, the stream is received by chunks of
+ * the given size, so some messages are split between chunks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamDefraggerBenchmark
+{
+    private static final int MESSAGES = 64;
+
+    @Param({"16", "256", "2048"})
+    public int messageSize;
+
+    @Param({"1500", "65536"})
+    public int chunkSize;
+
+    @Param({"false", "true"})
+    public boolean zeroCopy;
+
+    private RetainableByteBuffer [] m_chunks;
+    private StreamDefragger m_streamDefragger;
+
+    @Setup
+    public void setup()
+    {
+        final ByteBuffer stream = ByteBuffer.allocate(MESSAGES * messageSize);
+        for (int idx=0; idx<MESSAGES; idx++)
+        {
+            final int pos = (idx * messageSize);
+            stream.putInt(pos, messageSize);
+        }
+
+        final int chunks = ((stream.capacity() + chunkSize - 1) / chunkSize);
+        m_chunks = new RetainableByteBuffer[chunks];
+        for (int idx=0; idx<chunks; idx++)
+        {
+            final int pos = (idx * chunkSize);
+            final int size = Math.min(chunkSize, stream.capacity() - pos);
+            final RetainableByteBuffer chunk = RetainableByteBuffer.allocateDirect(size);
+            stream.limit(pos + size).position(pos);
+            chunk.put(stream);
+            m_chunks[idx] = chunk;
+        }
+
+        m_streamDefragger = new StreamDefragger(4, zeroCopy)
+        {
+            protected int validateHeader(ByteBuffer header)
+            {
+                return header.getInt();
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        m_streamDefragger.close();
+        for (RetainableByteBuffer chunk : m_chunks)
+            chunk.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void getNext(Blackhole blackhole)
+    {
+        for (RetainableByteBuffer chunk : m_chunks)
+        {
+            chunk.flip();
+            RetainableByteBuffer msg = m_streamDefragger.getNext(chunk);
+            while (msg != null)
+            {
+                blackhole.consume(msg.remaining());
+                msg = m_streamDefragger.getNext();
+            }
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.ThreadPool;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * ThreadPool.execute() round trip: each benchmark thread
+ * schedules runnables and waits for their completion.
+ * Number of benchmark threads (producers) is set with '-t'.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadPoolBenchmark
+{
+    private static final int BATCH = 64;
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    private ThreadPool m_threadPool;
+
+    private static class Task extends ThreadPool.Runnable
+    {
+        private final AtomicInteger m_counter;
+
+        Task(AtomicInteger counter)
+        {
+            m_counter = counter;
+        }
+
+        public void runInThreadPool()
+        {
+            m_counter.decrementAndGet();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Tasks
+    {
+        final AtomicInteger counter = new AtomicInteger();
+        final Task [] tasks = new Task[BATCH];
+
+        @Setup
+        public void setup()
+        {
+            for (int idx=0; idx<tasks.length; idx++)
+                tasks[idx] = new Task(counter);
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        m_threadPool = new ThreadPool("TP-BENCH", workers);
+        m_threadPool.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        m_threadPool.stopAndWait();
+    }
+
+    @Benchmark
+    public void execute(Tasks tasks)
+    {
+        tasks.counter.set(1);
+        m_threadPool.execute(tasks.tasks[0]);
+        while (tasks.counter.get() != 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void executeBatch(Tasks tasks)
+    {
+        tasks.counter.set(BATCH);
+        for (Task task : tasks.tasks)
+            m_threadPool.execute(task);
+        while (tasks.counter.get() != 0);
+    }
+}
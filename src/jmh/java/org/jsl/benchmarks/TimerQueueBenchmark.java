@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.benchmarks;
+
+import org.jsl.collider.ThreadPool;
+import org.jsl.collider.TimerQueue;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * TimerQueue.schedule() and cancel() of the timers which never fire,
+ * with the given number of other timers already scheduled.
+ * Number of threads is set with '-t'.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimerQueueBenchmark
+{
+    @Param({"0", "1000"})
+    public int timers;
+
+    private ThreadPool m_threadPool;
+    private TimerQueue m_timerQueue;
+    private Task [] m_tasks;
+
+    private static class Task implements TimerQueue.Task
+    {
+        public long run()
+        {
+            return 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadTask
+    {
+        final Task task = new Task();
+    }
+
+    @Setup
+    public void setup()
+    {
+        m_threadPool = new ThreadPool("TP-BENCH", 1);
+        m_threadPool.start();
+        m_timerQueue = new TimerQueue(m_threadPool);
+
+        /* Delays are different for all timers to fill the tree. */
+        m_tasks = new Task[timers];
+        for (int idx=0; idx<timers; idx++)
+        {
+            m_tasks[idx] = new Task();
+            m_timerQueue.schedule(m_tasks[idx], 1000 + idx, TimeUnit.SECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        for (Task task : m_tasks)
+            m_timerQueue.cancel(task);
+        m_timerQueue.stop();
+        m_threadPool.stopAndWait();
+    }
+
+    @Benchmark
+    public int scheduleCancel(ThreadTask threadTask) throws InterruptedException
+    {
+        m_timerQueue.schedule(threadTask.task, 1, TimeUnit.HOURS);
+        return m_timerQueue.cancel(threadTask.task);
+    }
+}
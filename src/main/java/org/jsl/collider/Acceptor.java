@@ -28,13 +28,74 @@ import java.net.InetSocketAddress;
 
 public abstract class Acceptor extends SessionEmitter
 {
+    /* Admission control, checked in the accept loop right after accept(),
+     * rejected connection is reset at once, no session is created.
+     * maxSessions           : max concurrent sessions, 0 - unlimited,
+     * maxSessionsPerAddress : max concurrent sessions from the one remote IP address, 0 - unlimited,
+     * acceptRate            : max accepted connections per second, 0 - unlimited,
+     * acceptBurst           : max connections accepted at once, 0 - equal to acceptRate.
+     */
+    public int maxSessions;
+    public int maxSessionsPerAddress;
+    public int acceptRate;
+    public int acceptBurst;
+
+    private AdmissionStats m_admissionStats;
+
+    /**
+     * Admission control metrics, available only if admission control is enabled.
+     */
+    public static class AdmissionStats
+    {
+        private final StripedCounter m_rejectedMaxSessions;
+        private final StripedCounter m_rejectedPerAddress;
+        private final StripedCounter m_rejectedRate;
+
+        AdmissionStats()
+        {
+            m_rejectedMaxSessions = new StripedCounter(1);
+            m_rejectedPerAddress = new StripedCounter(1);
+            m_rejectedRate = new StripedCounter(1);
+        }
+
+        final void rejectedMaxSessions()
+        {
+            m_rejectedMaxSessions.increment();
+        }
+
+        final void rejectedPerAddress()
+        {
+            m_rejectedPerAddress.increment();
+        }
+
+        final void rejectedRate()
+        {
+            m_rejectedRate.increment();
+        }
+
+        public final long getRejectedMaxSessions()
+        {
+            return m_rejectedMaxSessions.get();
+        }
+
+        public final long getRejectedPerAddress()
+        {
+            return m_rejectedPerAddress.get();
+        }
+
+        public final long getRejectedRate()
+        {
+            return m_rejectedRate.get();
+        }
+    }
+
     /**
      * Initialize acceptor to listen on any available port.
      * The port number can be obtained later in the onAcceptorStarted()
      */
     public Acceptor()
     {
-        super(new InetSocketAddress(0));
+        this(0);
     }
 
     /**
@@ -44,6 +105,20 @@ public abstract class Acceptor extends SessionEmitter
     public Acceptor(int listenPort)
     {
         super(new InetSocketAddress(listenPort));
+        maxSessions = 0;
+        maxSessionsPerAddress = 0;
+        acceptRate = 0;
+        acceptBurst = 0;
+    }
+
+    public final AdmissionStats getAdmissionStats()
+    {
+        return m_admissionStats;
+    }
+
+    final void setAdmissionStats(AdmissionStats admissionStats)
+    {
+        m_admissionStats = admissionStats;
     }
 
     /**
@@ -22,12 +22,16 @@ package org.jsl.collider;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.InetAddress;
 import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Selector;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.ServerSocketChannel;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -58,6 +62,14 @@ class AcceptorImpl extends SessionEmitterImpl
                     break;
                 }
 
+                Admission admission = null;
+                if (m_admissionStats != null)
+                {
+                    admission = admit( socketChannel );
+                    if (admission == null)
+                        continue;
+                }
+
                 try
                 {
                     socketChannel.configureBlocking( false );
@@ -79,6 +91,9 @@ class AcceptorImpl extends SessionEmitterImpl
                         if (s_logger.isLoggable(Level.WARNING))
                             s_logger.warning( m_localAddr + ": " + ex1.toString() );
                     }
+
+                    if (admission != null)
+                        admission.release();
                     continue;
                 }
 
@@ -109,23 +124,63 @@ class AcceptorImpl extends SessionEmitterImpl
                         if (s_logger.isLoggable(Level.FINE))
                             s_logger.fine( m_localAddr + ": " + ex.toString() + "." );
                     }
+
+                    if (admission != null)
+                        admission.release();
                     return;
                 }
 
-                m_collider.executeInSelectorThread( new SessionStarter1(socketChannel) );
+                m_collider.executeInSelectorThread( new SessionStarter1(socketChannel, admission) );
             }
 
             m_collider.executeInSelectorThread( m_starter3 );
         }
     }
 
+    /* Admitted connection, released when the session is closed. */
+    private class Admission extends ThreadPool.Runnable
+    {
+        private final InetAddress m_addr;
+
+        public Admission( InetAddress addr )
+        {
+            m_addr = addr;
+        }
+
+        public final void release()
+        {
+            m_sessions.decrementAndGet();
+            if (m_addr != null)
+            {
+                m_lock.lock();
+                try
+                {
+                    final int [] sessions = m_addressSessions.get( m_addr );
+                    if (--sessions[0] == 0)
+                        m_addressSessions.remove( m_addr );
+                }
+                finally
+                {
+                    m_lock.unlock();
+                }
+            }
+        }
+
+        public void runInThreadPool()
+        {
+            release();
+        }
+    }
+
     private class SessionStarter1 extends ColliderImpl.SelectorThreadRunnable
     {
         private final SocketChannel m_socketChannel;
+        private final Admission m_admission;
 
-        public SessionStarter1( SocketChannel socketChannel )
+        public SessionStarter1( SocketChannel socketChannel, Admission admission )
         {
             m_socketChannel = socketChannel;
+            m_admission = admission;
         }
 
         public int runInSelectorThread()
@@ -133,7 +188,7 @@ class AcceptorImpl extends SessionEmitterImpl
             try
             {
                 final SelectionKey selectionKey = m_socketChannel.register( m_selector, 0, null );
-                m_collider.executeInThreadPool( new SessionStarter2(m_socketChannel, selectionKey) );
+                m_collider.executeInThreadPool( new SessionStarter2(m_socketChannel, selectionKey, m_admission) );
             }
             catch (final IOException ex)
             {
@@ -142,6 +197,8 @@ class AcceptorImpl extends SessionEmitterImpl
                  */
                 if (s_logger.isLoggable(Level.FINE))
                     s_logger.fine( m_localAddr + ": " + ex );
+                if (m_admission != null)
+                    m_admission.release();
                 releaseMonitor();
             }
             return 0;
@@ -152,16 +209,19 @@ class AcceptorImpl extends SessionEmitterImpl
     {
         private final SocketChannel m_socketChannel;
         private final SelectionKey m_selectionKey;
+        private final Admission m_admission;
 
-        public SessionStarter2( SocketChannel socketChannel, SelectionKey selectionKey )
+        public SessionStarter2( SocketChannel socketChannel, SelectionKey selectionKey, Admission admission )
         {
             m_socketChannel = socketChannel;
             m_selectionKey = selectionKey;
+            m_admission = admission;
         }
 
         public void runInThreadPool()
         {
-            startSession( m_socketChannel, m_selectionKey );
+            if (!startSession(m_socketChannel, m_selectionKey, m_admission) && (m_admission != null))
+                m_admission.release();
         }
     }
 
@@ -374,6 +434,103 @@ class AcceptorImpl extends SessionEmitterImpl
         }
     }
 
+    /* Called in the accept loop, returns null if the connection is rejected. */
+    private Admission admit( SocketChannel socketChannel )
+    {
+        if ((m_maxSessions > 0) && (m_sessions.get() >= m_maxSessions))
+        {
+            m_admissionStats.rejectedMaxSessions();
+            reject( socketChannel, "max sessions" );
+            return null;
+        }
+
+        InetAddress addr = null;
+        int [] addressSessions = null;
+        if (m_maxSessionsPerAddress > 0)
+        {
+            addr = socketChannel.socket().getInetAddress();
+            m_lock.lock();
+            try
+            {
+                addressSessions = m_addressSessions.get( addr );
+                if ((addressSessions != null) && (addressSessions[0] >= m_maxSessionsPerAddress))
+                    addressSessions = null;
+                else if (addressSessions == null)
+                    addressSessions = new int[1];
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+
+            if (addressSessions == null)
+            {
+                m_admissionStats.rejectedPerAddress();
+                reject( socketChannel, "max sessions per address" );
+                return null;
+            }
+        }
+
+        if ((m_acceptBucket != null) && !m_acceptBucket.tryAcquire(1, System.nanoTime()))
+        {
+            m_admissionStats.rejectedRate();
+            reject( socketChannel, "accept rate" );
+            return null;
+        }
+
+        /* Sessions are released concurrently, but added only here,
+         * so limits can not be exceeded.
+         */
+        m_sessions.incrementAndGet();
+        if (addr != null)
+        {
+            m_lock.lock();
+            try
+            {
+                final int [] sessions = m_addressSessions.get( addr );
+                if (sessions == null)
+                {
+                    addressSessions[0] = 1;
+                    m_addressSessions.put( addr, addressSessions );
+                }
+                else
+                    sessions[0]++;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+        return new Admission( addr );
+    }
+
+    private void reject( SocketChannel socketChannel, String reason )
+    {
+        if (s_logger.isLoggable(Level.FINE))
+            s_logger.fine( m_localAddr + ": " + socketChannel.socket().getRemoteSocketAddress() + " rejected: " + reason );
+
+        /* Reset the connection, socket will not stay in TIME_WAIT. */
+        try
+        {
+            socketChannel.setOption( StandardSocketOptions.SO_LINGER, 0 );
+        }
+        catch (final IOException ex)
+        {
+            if (s_logger.isLoggable(Level.FINE))
+                s_logger.fine( m_localAddr + ": " + ex.toString() );
+        }
+
+        try
+        {
+            socketChannel.close();
+        }
+        catch (final IOException ex)
+        {
+            if (s_logger.isLoggable(Level.FINE))
+                s_logger.fine( m_localAddr + ": " + ex.toString() );
+        }
+    }
+
     private void releaseMonitor()
     {
         m_lock.lock();
@@ -462,6 +619,14 @@ class AcceptorImpl extends SessionEmitterImpl
     private boolean m_stopped;
     private int m_state;
 
+    /* Admission control, m_admissionStats is null if disabled. */
+    private final Acceptor.AdmissionStats m_admissionStats;
+    private final int m_maxSessions;
+    private final int m_maxSessionsPerAddress;
+    private final TokenBucket m_acceptBucket;
+    private final AtomicInteger m_sessions;
+    private final HashMap<InetAddress, int []> m_addressSessions;
+
     private static final int STARTING_0 = 0;
     private static final int STARTING_1 = 1;
     private static final int STARTING_2 = 2;
@@ -469,7 +634,7 @@ class AcceptorImpl extends SessionEmitterImpl
 
     public AcceptorImpl(
             ColliderImpl collider,
-            RetainableDataBlockCache inputQueueDataBlockCache,
+            RetainableDataBlockCache [] inputQueueDataBlockCache,
             Acceptor acceptor,
             int joinMessageMaxSize,
             RetainableByteBufferPool joinPool,
@@ -493,6 +658,23 @@ class AcceptorImpl extends SessionEmitterImpl
         m_stop = false;
         m_stopped = false;
         m_state = STARTING_0;
+
+        m_maxSessions = acceptor.maxSessions;
+        m_maxSessionsPerAddress = acceptor.maxSessionsPerAddress;
+        m_acceptBucket = ((acceptor.acceptRate > 0)
+                ? new TokenBucket(acceptor.acceptRate,
+                        (acceptor.acceptBurst > 0) ? acceptor.acceptBurst : acceptor.acceptRate, System.nanoTime())
+                : null);
+        m_sessions = new AtomicInteger();
+        m_addressSessions = new HashMap<InetAddress, int []>();
+
+        if ((m_maxSessions > 0) || (m_maxSessionsPerAddress > 0) || (m_acceptBucket != null))
+        {
+            m_admissionStats = new Acceptor.AdmissionStats();
+            acceptor.setAdmissionStats( m_admissionStats );
+        }
+        else
+            m_admissionStats = null;
     }
 
     public final void start()
@@ -22,6 +22,7 @@ package org.jsl.collider;
 import java.io.IOException;
 import java.net.NetworkInterface;
 import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
 
 /* Collider public API. Typical usage example:
  * <pre>{@code
@@ -47,31 +48,126 @@ public abstract class Collider
         public int threadPriority;
         public int threadPoolThreads;
         public boolean useDirectBuffers;
+        public boolean useMemoryArena;
+        public boolean preTouchBuffers;
+        public boolean registerMBeans;
+        public boolean optimizeSelectedKeys;
         public ByteOrder byteOrder;
 
         public int socketSendBufSize;
         public int socketRecvBufSize;
         public int forwardReadMaxSize;
+        public int deliveryQuota;
         public int inputQueueBlockSize;
+        public int inputQueueMinBlockSize;
         public int inputQueueCacheMaxSize;
         public int joinMessageMaxSize;
+        public int sendTraceSampleRate;
         public int datagramReadMinSize;
 
+        public boolean busyPoll;
+        public int busyPollSpins;
+        public int busyPollYields;
+        public long busyPollParkNanos;
+
         public Config()
         {
             threadPriority = Thread.NORM_PRIORITY;
             threadPoolThreads = 0; /* by default = number of cores */
             useDirectBuffers  = true;
+            useMemoryArena    = false; /* see MemoryArena, used only with direct buffers */
+            preTouchBuffers   = false; /* fill caches and touch buffers memory at startup */
+            registerMBeans    = false; /* see ColliderMXBean */
+            optimizeSelectedKeys = true; /* see SelectedSelectionKeySet */
             byteOrder = ByteOrder.nativeOrder();
 
             socketSendBufSize = 0; /* Use system default settings by default */
             socketRecvBufSize = 0; /* Use system default settings by default */
 
             forwardReadMaxSize     = (256 * 1024);
+            deliveryQuota          = 0; /* bytes delivered to the listener per reader run, 0 - unlimited */
             inputQueueBlockSize    = (64 * 1024);
+            inputQueueMinBlockSize = 0; /* adaptive block size is disabled by default */
             inputQueueCacheMaxSize = 128;
             joinMessageMaxSize     = 0;
+            sendTraceSampleRate    = 0; /* trace 1 of N sent messages, see SendTrace */
             datagramReadMinSize    = (2 * 1024);
+
+            /* Selector thread never blocks in select() if busyPoll is enabled,
+             * it spins on selectNow(), then yields, then parks for a while,
+             * no Selector.wakeup() is required to run a selector thread task.
+             * Takes one CPU core, supposed to be used for the latency critical
+             * applications only.
+             */
+            busyPoll          = false;
+            busyPollSpins     = 10000;
+            busyPollYields    = 100;
+            busyPollParkNanos = 50000; /* 0 - never park */
+        }
+    }
+
+    /**
+     * Collider runtime counters, see {@link #getMetrics(Metrics)}.
+     * All counters are accumulated from the collider start,
+     * rates can be calculated comparing two subsequent snapshots.
+     */
+    public static class Metrics
+    {
+        public int sessions; /* currently open */
+
+        /* All sessions, including closed ones */
+        public long bytesIn;
+        public long messagesIn; /* Session.Listener.onDataReceived() calls */
+        public long readSuspensions; /* forwardReadMaxSize hits */
+        public long bytesOut;
+        public long messagesOut;
+
+        /* Selector thread */
+        public long selectorLoopIterations;
+        public long selectorLoopSelectNow; /* iterations with selectNow() */
+        public long selectorRunnables;
+        public int selectorQueueLength; /* runnables executed at the last iteration */
+        public int selectorQueueMaxLength;
+
+        public long threadPoolParks;
+        public long threadPoolUnparks;
+
+        /* Input queue data block caches and join pool */
+        public long inputQueueCacheGets;
+        public long inputQueueCacheMisses;
+        public long joinPoolChunkGets;
+        public long joinPoolChunkMisses;
+
+        public String toString()
+        {
+            return "sessions=" + sessions +
+                   " in=" + bytesIn + "/" + messagesIn +
+                   " out=" + bytesOut + "/" + messagesOut +
+                   " readSuspensions=" + readSuspensions +
+                   " selector=" + selectorLoopIterations + "/" + selectorLoopSelectNow +
+                   " selectorRunnables=" + selectorRunnables +
+                   " selectorQueue=" + selectorQueueLength + "/" + selectorQueueMaxLength +
+                   " parks=" + threadPoolParks + "/" + threadPoolUnparks +
+                   " inputQueueCache=" + inputQueueCacheGets + "/" + inputQueueCacheMisses +
+                   " joinPool=" + joinPoolChunkGets + "/" + joinPoolChunkMisses;
+        }
+    }
+
+    /**
+     * Result of the graceful collider stop, see {@link #stop(long, TimeUnit)}.
+     */
+    public static class DrainReport
+    {
+        public int sessions; /* open at the drain start */
+        public int sessionsAbandoned; /* still open at the deadline, force closed */
+        public long bytesAbandoned; /* scheduled to send but not sent by the abandoned sessions */
+        public long drainTime; /* milliseconds */
+
+        public String toString()
+        {
+            return "sessions=" + sessions +
+                   " abandoned=" + sessionsAbandoned + "/" + bytesAbandoned +
+                   " drainTime=" + drainTime + "ms";
         }
     }
 
@@ -104,6 +200,29 @@ public abstract class Collider
      */
     public abstract void stop();
 
+    /**
+     * Stops the running collider gracefully.
+     * The call is asynchronous as well as <tt>stop()</tt>.
+     * At first all currently running acceptors and connectors will be removed,
+     * so no new session can appear. Then the listeners of all established sessions
+     * implementing {@link Session.ShutdownListener} are notified and supposed
+     * to finish the current exchange and close the session, other sessions
+     * are closed right away. Collider waits while all sessions send
+     * the scheduled data and close, but not longer than the given timeout.
+     * Sessions still open at the deadline are closed without sending
+     * the rest of the data, see {@link #getDrainReport()}.
+     * @param timeout the maximum time to wait for the sessions
+     * @param unit the time unit of the {@code timeout} argument
+     */
+    public abstract void stop(long timeout, TimeUnit unit);
+
+    /**
+     * @return the graceful stop result, or null if the collider
+     * was not stopped with <tt>stop(timeout, unit)</tt> or drain is not finished yet.
+     * Result is always available when <tt>run()</tt> returns.
+     */
+    public abstract DrainReport getDrainReport();
+
     /**
      * Adds an <tt>Acceptor</tt> to the collider. User supposed to extend {@link Acceptor}
      * class with handlers to be called by the collider when it will be ready to accept
@@ -146,6 +265,14 @@ public abstract class Collider
 
     public abstract ThreadPool getThreadPool();
 
+    /**
+     * Fills the given instance with the current values of the collider counters.
+     * Counters are always on, updates are cheap and allocation free,
+     * so the method can be called periodically by a monitoring thread.
+     * @param metrics the instance to fill
+     */
+    public abstract void getMetrics(Metrics metrics);
+
     /**
      * Create a Collider instance with default configuration.
      * @return a new collider instance
@@ -20,6 +20,7 @@
 package org.jsl.collider;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.ServerSocket;
 import java.net.NetworkInterface;
 import java.net.InetSocketAddress;
@@ -36,13 +37,22 @@ import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
-class ColliderImpl extends Collider
+class ColliderImpl extends Collider implements ColliderMXBean
 {
     public interface ChannelHandler
     {
@@ -57,6 +67,14 @@ class ColliderImpl extends Collider
 
     private class Stopper1 extends ThreadPool.Runnable
     {
+        /* Drain timeout in milliseconds, < 0 if sessions should be closed right away. */
+        private final long m_drainTimeout;
+
+        public Stopper1( long drainTimeout )
+        {
+            m_drainTimeout = drainTimeout;
+        }
+
         public void runInThreadPool()
         {
             SessionEmitter [] emitters = null;
@@ -132,7 +150,121 @@ class ColliderImpl extends Collider
             }
 
             /* No new session can appear now, can close all current. */
-            executeInSelectorThread(new Stopper2());
+            if (m_drainTimeout < 0)
+                executeInSelectorThread(new Stopper2());
+            else
+                executeInSelectorThread(new DrainStarter(m_drainTimeout));
+        }
+    }
+
+    private class DrainStarter extends SelectorThreadRunnable
+    {
+        private final long m_timeout;
+
+        public DrainStarter( long timeout )
+        {
+            m_timeout = timeout;
+        }
+
+        public int runInSelectorThread()
+        {
+            final ArrayList<SessionImpl> sessions = new ArrayList<SessionImpl>();
+            for (SelectionKey key : m_selector.keys())
+            {
+                final Object attachment = key.attachment();
+                if (attachment instanceof SessionImpl)
+                    sessions.add( (SessionImpl) attachment );
+            }
+
+            final Drainer drainer = new Drainer( sessions.toArray(new SessionImpl[sessions.size()]), m_timeout );
+            if (sessions.isEmpty())
+                return drainer.finish();
+
+            /* Listeners are notified in the thread pool. */
+            executeInThreadPool( drainer );
+            return 0;
+        }
+    }
+
+    private static class DrainFinisher extends SelectorThreadRunnable
+    {
+        private final Drainer m_drainer;
+
+        public DrainFinisher( Drainer drainer )
+        {
+            m_drainer = drainer;
+        }
+
+        public int runInSelectorThread()
+        {
+            return m_drainer.finish();
+        }
+    }
+
+    private class Drainer extends ThreadPool.Runnable implements TimerQueue.Task
+    {
+        private static final long CHECK_INTERVAL = 10;
+
+        private final SessionImpl [] m_sessions;
+        private final long m_startTime;
+        private final long m_deadline;
+
+        public Drainer( SessionImpl [] sessions, long timeout )
+        {
+            m_sessions = sessions;
+            m_startTime = System.nanoTime();
+            m_deadline = (m_startTime + TimeUnit.MILLISECONDS.toNanos(timeout));
+        }
+
+        public void runInThreadPool()
+        {
+            for (SessionImpl session : m_sessions)
+                session.handleShutdown();
+            m_timerQueue.schedule( this, 0, TimeUnit.MILLISECONDS );
+        }
+
+        public long run()
+        {
+            boolean released = true;
+            for (SessionImpl session : m_sessions)
+            {
+                if (!session.isReleased())
+                {
+                    released = false;
+                    break;
+                }
+            }
+
+            final long remaining = (m_deadline - System.nanoTime());
+            if (released || (remaining <= 0))
+            {
+                executeInSelectorThread( new DrainFinisher(this) );
+                return 0;
+            }
+            return Math.min( CHECK_INTERVAL, Math.max(TimeUnit.NANOSECONDS.toMillis(remaining), 1) );
+        }
+
+        /* Executed in the selector thread. */
+        public int finish()
+        {
+            final DrainReport drainReport = new DrainReport();
+            drainReport.sessions = m_sessions.length;
+            for (SessionImpl session : m_sessions)
+            {
+                if (!session.isReleased())
+                {
+                    drainReport.sessionsAbandoned++;
+                    drainReport.bytesAbandoned += session.getSendQueueBytes();
+                    session.abort();
+                }
+            }
+            drainReport.drainTime = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - m_startTime );
+
+            if (s_logger.isLoggable(Level.INFO))
+                s_logger.info( "drain: " + drainReport );
+
+            m_drainReport = drainReport;
+            return new Stopper2().runInSelectorThread();
         }
     }
 
@@ -187,14 +319,37 @@ class ColliderImpl extends Collider
         }
     }
 
+    /* Collider wide session counters, updated by all sessions. */
+    static class SessionCounters
+    {
+        final StripedCounter sessionsOpened;
+        final StripedCounter sessionsClosed;
+        final StripedCounter bytesIn;
+        final StripedCounter messagesIn;
+        final StripedCounter readSuspensions;
+        final StripedCounter bytesOut;
+        final StripedCounter messagesOut;
+
+        SessionCounters()
+        {
+            sessionsOpened = new StripedCounter();
+            sessionsClosed = new StripedCounter();
+            bytesIn = new StripedCounter();
+            messagesIn = new StripedCounter();
+            readSuspensions = new StripedCounter();
+            bytesOut = new StripedCounter();
+            messagesOut = new StripedCounter();
+        }
+    }
+
     private static class SessionSharedData
     {
-        private final RetainableDataBlockCache m_inputQueueDataBlockCache;
+        private final RetainableDataBlockCache [] m_inputQueueDataBlockCache;
         private final int m_joinMessageMaxSize;
         private final RetainableByteBufferPool m_joinPool;
 
         public SessionSharedData(
-                RetainableDataBlockCache inputQueueDataBlockCache,
+                RetainableDataBlockCache [] inputQueueDataBlockCache,
                 int joinMessageMaxSize,
                 RetainableByteBufferPool joinPool )
         {
@@ -203,11 +358,30 @@ class ColliderImpl extends Collider
             m_joinPool = joinPool;
         }
 
-        RetainableDataBlockCache getInputQueueDataBlockCache() { return m_inputQueueDataBlockCache; }
+        RetainableDataBlockCache [] getInputQueueDataBlockCache() { return m_inputQueueDataBlockCache; }
         int getJoinMessageMaxSize() { return m_joinMessageMaxSize; }
         RetainableByteBufferPool getJoinPool() { return m_joinPool; }
     }
 
+    private RetainableDataBlockCache createDataBlockCache( int blockSize, int initialSize )
+    {
+        /* To avoid page faults and allocations at the beginning
+         * fill the cache completely if buffers pre-touch is requested.
+         */
+        final Config config = getConfig();
+        if (config.preTouchBuffers && (initialSize > 0))
+            initialSize = config.inputQueueCacheMaxSize;
+
+        return new RetainableDataBlockCache(
+                config.useDirectBuffers,
+                m_memoryArena,
+                blockSize,
+                config.byteOrder,
+                config.inputQueueCacheMaxSize,
+                initialSize,
+                config.preTouchBuffers);
+    }
+
     private SessionSharedData getSessionSharedData( final SessionEmitter sessionEmitter )
     {
         final Config config = getConfig();
@@ -219,6 +393,22 @@ class ColliderImpl extends Collider
             assert( inputQueueBlockSize > 0 );
         }
 
+        int inputQueueMinBlockSize = sessionEmitter.inputQueueMinBlockSize;
+        if (inputQueueMinBlockSize < 0)
+            inputQueueMinBlockSize = config.inputQueueMinBlockSize;
+
+        /* Adaptive mode uses a set of caches with block size
+         * doubling from the minimal size up to the inputQueueBlockSize.
+         */
+        int sizeClasses = 1;
+        if ((inputQueueMinBlockSize > 0) && (inputQueueMinBlockSize < inputQueueBlockSize))
+        {
+            for (int blockSize=inputQueueMinBlockSize; blockSize<inputQueueBlockSize; blockSize*=2)
+                sizeClasses++;
+        }
+        else
+            inputQueueMinBlockSize = inputQueueBlockSize;
+
         int joinMessageMaxSize = sessionEmitter.joinMessageMaxSize;
         if (joinMessageMaxSize < 0)
         {
@@ -230,16 +420,24 @@ class ColliderImpl extends Collider
         m_lock.lock();
         try
         {
-            RetainableDataBlockCache cache = m_dataBlockCache.get(inputQueueBlockSize);
-            if (cache == null)
+            final RetainableDataBlockCache [] cache = new RetainableDataBlockCache[sizeClasses];
+            int blockSize = inputQueueMinBlockSize;
+            for (int idx=0; idx<sizeClasses; idx++)
             {
-                cache = new RetainableDataBlockCache(
-                            config.useDirectBuffers,
-                            inputQueueBlockSize,
-                            config.byteOrder,
-                            config.inputQueueCacheMaxSize,
-                            /*initial size*/8);
-                m_dataBlockCache.put(inputQueueBlockSize, cache);
+                if (idx == (sizeClasses-1))
+                    blockSize = inputQueueBlockSize;
+
+                cache[idx] = m_dataBlockCache.get(blockSize);
+                if (cache[idx] == null)
+                {
+                    /* Sessions start with the smallest blocks,
+                     * no need to preallocate others.
+                     */
+                    cache[idx] = createDataBlockCache(blockSize, /*initial size*/((idx == 0) ? 8 : 0));
+                    m_dataBlockCache.put(blockSize, cache[idx]);
+                    registerMBean(cache[idx], "type=InputQueueCache,collider=" + m_id + ",blockSize=" + blockSize);
+                }
+                blockSize *= 2;
             }
 
             RetainableByteBufferPool joinPool = null;
@@ -270,7 +468,10 @@ class ColliderImpl extends Collider
 
                     /* For the join pool byte order does not matter */
                     m_joinPool = new RetainableByteBufferPool(joinPoolChunkSize,
-                            useDirectBuffers, ByteOrder.nativeOrder(), 16, 2);
+                            useDirectBuffers, (useDirectBuffers ? m_memoryArena : null),
+                            ByteOrder.nativeOrder(), 16, (config.preTouchBuffers ? 16 : 2),
+                            config.preTouchBuffers);
+                    registerMBean(m_joinPool, "type=JoinPool,collider=" + m_id);
                 }
                 joinPool = m_joinPool;
             }
@@ -335,6 +536,10 @@ class ColliderImpl extends Collider
 
     private static final Logger s_logger = Logger.getLogger( Collider.class.getName() );
 
+    private static final int MEMORY_ARENA_SLAB_SIZE = (4 * 1024 * 1024);
+    private static final String MBEAN_DOMAIN = "org.jsl.collider";
+    private static final AtomicInteger s_instances = new AtomicInteger();
+
     private static final AtomicReferenceFieldUpdater<ColliderImpl, SelectorThreadRunnable> s_strHeadUpdater =
             AtomicReferenceFieldUpdater.newUpdater( ColliderImpl.class, SelectorThreadRunnable.class, "m_strHead" );
 
@@ -344,8 +549,24 @@ class ColliderImpl extends Collider
     private static final AtomicReferenceFieldUpdater<SelectorThreadRunnable, SelectorThreadRunnable> s_nextSelectorThreadRunnableUpdater =
             AtomicReferenceFieldUpdater.newUpdater( SelectorThreadRunnable.class, SelectorThreadRunnable.class, "nextSelectorThreadRunnable" );
 
+    private static final AtomicLongFieldUpdater<ColliderImpl> s_statLoopItUpdater =
+            AtomicLongFieldUpdater.newUpdater( ColliderImpl.class, "m_statLoopIt" );
+
+    private static final AtomicLongFieldUpdater<ColliderImpl> s_statLoopSelectNowUpdater =
+            AtomicLongFieldUpdater.newUpdater( ColliderImpl.class, "m_statLoopSelectNow" );
+
+    private static final AtomicLongFieldUpdater<ColliderImpl> s_statRunnablesUpdater =
+            AtomicLongFieldUpdater.newUpdater( ColliderImpl.class, "m_statRunnables" );
+
+    private static final AtomicIntegerFieldUpdater<ColliderImpl> s_statQueueLengthUpdater =
+            AtomicIntegerFieldUpdater.newUpdater( ColliderImpl.class, "m_statQueueLength" );
+
+    private static final AtomicIntegerFieldUpdater<ColliderImpl> s_statQueueMaxLengthUpdater =
+            AtomicIntegerFieldUpdater.newUpdater( ColliderImpl.class, "m_statQueueMaxLength" );
+
     private final Selector m_selector;
     private final ThreadPool m_threadPool;
+    private final TimerQueue m_timerQueue;
     private boolean m_run;
 
     private final ReentrantLock m_lock;
@@ -353,12 +574,31 @@ class ColliderImpl extends Collider
     private final Map<DatagramListener, DatagramListenerImpl> m_datagramListeners;
     private final Map<Integer, RetainableDataBlockCache> m_dataBlockCache;
     private RetainableByteBufferPool m_joinPool;
+    private final MemoryArena m_memoryArena;
+    private final int m_id;
+    private final List<ObjectName> m_mbeans;
     private boolean m_stop;
+    private volatile DrainReport m_drainReport;
 
     private volatile SelectorThreadRunnable m_strHead;
     private volatile SelectorThreadRunnable m_strTail;
     private SelectorThreadRunnable m_strLater;
     private final AtomicReference<SelectorAlarm> m_alarm;
+    private final boolean m_busyPoll;
+
+    /* Array backed selected keys, installed into the selector
+     * or filled by select(Consumer), null if not used.
+     */
+    private final SelectedSelectionKeySet m_selectedKeys;
+    private final boolean m_selectConsumer;
+
+    /* Written by the selector thread only */
+    private volatile long m_statLoopIt;
+    private volatile long m_statLoopSelectNow;
+    private volatile long m_statRunnables;
+    private volatile int m_statQueueLength;
+    private volatile int m_statQueueMaxLength;
+    private final SessionCounters m_sessionCounters;
 
     public ColliderImpl( Config config ) throws IOException
     {
@@ -372,6 +612,7 @@ class ColliderImpl extends Collider
         if (threadPoolThreads < 4)
             threadPoolThreads = 4;
         m_threadPool = new ThreadPool("CTP", threadPoolThreads, config.threadPriority);
+        m_timerQueue = new TimerQueue(m_threadPool);
 
         if (config.inputQueueCacheMaxSize == 0)
             config.inputQueueCacheMaxSize = (threadPoolThreads * 3);
@@ -382,9 +623,41 @@ class ColliderImpl extends Collider
         m_emitters = new HashMap<SessionEmitter, SessionEmitterImpl>();
         m_datagramListeners = new HashMap<DatagramListener, DatagramListenerImpl>();
         m_dataBlockCache = new HashMap<Integer, RetainableDataBlockCache>();
+        m_id = s_instances.incrementAndGet();
+        m_mbeans = new ArrayList<ObjectName>();
         m_stop = false;
 
+        if (config.useMemoryArena && config.useDirectBuffers)
+        {
+            m_memoryArena = MemoryArena.create(MEMORY_ARENA_SLAB_SIZE);
+            if ((m_memoryArena == null) && s_logger.isLoggable(Level.WARNING))
+                s_logger.warning("java.lang.foreign API is not available, memory arena is not used.");
+        }
+        else
+            m_memoryArena = null;
+
         m_alarm = new AtomicReference<SelectorAlarm>( new SelectorAlarm(null) );
+        m_busyPoll = config.busyPoll;
+
+        SelectedSelectionKeySet selectedKeys = null;
+        boolean selectConsumer = false;
+        if (config.optimizeSelectedKeys)
+        {
+            selectedKeys = SelectedSelectionKeySet.install(m_selector);
+            if ((selectedKeys == null) && SelectedSelectionKeySet.isConsumerSupported())
+            {
+                selectedKeys = new SelectedSelectionKeySet();
+                selectConsumer = true;
+            }
+        }
+        m_selectedKeys = selectedKeys;
+        m_selectConsumer = selectConsumer;
+        if (s_logger.isLoggable(Level.FINE))
+        {
+            s_logger.fine("selected keys: " +
+                    ((selectedKeys == null) ? "HashSet" : (selectConsumer ? "select(Consumer)" : "array")));
+        }
+        m_sessionCounters = new SessionCounters();
     }
 
     public void run()
@@ -397,9 +670,22 @@ class ColliderImpl extends Collider
         currentThread.setPriority(getConfig().threadPriority);
         m_threadPool.start();
 
+        m_lock.lock();
+        try
+        {
+            registerMBean(this, "type=Collider,id=" + m_id);
+            registerMBean(m_threadPool, "type=ThreadPool,collider=" + m_id);
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+
         final DummyRunnable dummyRunnable = new DummyRunnable();
-        int statLoopIt = 0;
-        int statLoopReadersG0 = 0;
+        long statLoopIt = 0;
+        long statLoopReadersG0 = 0;
+        long statRunnables = 0;
+        int statQueueMaxLength = 0;
         int readers = 0;
 
         try
@@ -412,14 +698,16 @@ class ColliderImpl extends Collider
                     if (readers > 0)
                     {
                         statLoopReadersG0++;
-                        m_selector.selectNow();
+                        selectNow();
                     }
+                    else if (m_busyPoll)
+                        busyPoll();
                     else
-                        m_selector.select();
+                        select();
                 }
                 else
                 {
-                    m_selector.selectNow();
+                    selectNow();
                     if (m_selector.keys().size() == 0)
                     {
                         assert( readers == 0 );
@@ -427,19 +715,39 @@ class ColliderImpl extends Collider
                     }
                 }
 
+                /* Blocking select() time is not included in the event. */
+                final Object jfrEvent = JfrEvents.beginSelectorIteration();
+
                 if (s_strTailUpdater.compareAndSet(this, null, dummyRunnable))
                     s_strHeadUpdater.lazySet( this, dummyRunnable );
 
-                final Set<SelectionKey> selectedKeys = m_selector.selectedKeys();
-                for (SelectionKey key : selectedKeys)
+                final int statSelectedKeys;
+                if (m_selectedKeys == null)
+                {
+                    final Set<SelectionKey> selectedKeys = m_selector.selectedKeys();
+                    statSelectedKeys = selectedKeys.size();
+                    for (SelectionKey key : selectedKeys)
+                    {
+                        final ChannelHandler channelHandler = (ChannelHandler) key.attachment();
+                        readers += channelHandler.handleReadyOps( m_threadPool );
+                    }
+                    selectedKeys.clear();
+                }
+                else
                 {
-                    final ChannelHandler channelHandler = (ChannelHandler) key.attachment();
-                    readers += channelHandler.handleReadyOps( m_threadPool );
+                    final SelectedSelectionKeySet selectedKeys = m_selectedKeys;
+                    statSelectedKeys = selectedKeys.size();
+                    for (int idx=0; idx<statSelectedKeys; idx++)
+                    {
+                        final ChannelHandler channelHandler = (ChannelHandler) selectedKeys.take(idx).attachment();
+                        readers += channelHandler.handleReadyOps( m_threadPool );
+                    }
+                    selectedKeys.reset();
                 }
-                selectedKeys.clear();
 
                 SelectorThreadRunnable runnable;
                 while ((runnable = m_strHead) == null);
+                int statQueueLength = 0;
 
                 for (;;)
                 {
@@ -458,6 +766,8 @@ class ColliderImpl extends Collider
 
                     readers -= runnable.runInSelectorThread();
                     assert( readers >= 0 );
+                    if (runnable != dummyRunnable)
+                        statQueueLength++;
 
                     runnable = next;
                     if (runnable == null)
@@ -477,11 +787,25 @@ class ColliderImpl extends Collider
                     runnable.nextSelectorThreadRunnable = null;
                     final int rc = runnable.runInSelectorThread();
                     assert( rc == 0 );
+                    statQueueLength++;
+                }
+
+                statRunnables += statQueueLength;
+                if (statQueueLength > statQueueMaxLength)
+                {
+                    statQueueMaxLength = statQueueLength;
+                    s_statQueueMaxLengthUpdater.lazySet( this, statQueueMaxLength );
                 }
+                s_statLoopItUpdater.lazySet( this, statLoopIt );
+                s_statLoopSelectNowUpdater.lazySet( this, statLoopReadersG0 );
+                s_statRunnablesUpdater.lazySet( this, statRunnables );
+                s_statQueueLengthUpdater.lazySet( this, statQueueLength );
+                JfrEvents.commitSelectorIteration( jfrEvent, statSelectedKeys, statQueueLength );
 
                 /* End of select loop */
             }
 
+            m_timerQueue.stop();
             m_threadPool.stopAndWait();
         }
         catch (final IOException ex)
@@ -495,6 +819,16 @@ class ColliderImpl extends Collider
                 s_logger.warning( ex.toString() );
         }
 
+        m_lock.lock();
+        try
+        {
+            unregisterMBeans();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+
         for (Map.Entry<Integer, RetainableDataBlockCache> me : m_dataBlockCache.entrySet())
             me.getValue().clear(s_logger);
         m_dataBlockCache.clear();
@@ -502,16 +836,74 @@ class ColliderImpl extends Collider
         if (m_joinPool != null)
             m_joinPool.release(s_logger);
 
+        /* All sessions are closed, but the listeners still can hold buffers,
+         * any access to them after arena close will throw an exception.
+         */
+        if (m_memoryArena != null)
+        {
+            if (s_logger.isLoggable(Level.FINE))
+                s_logger.fine("memory arena: " + m_memoryArena.getAllocatedSize() + " bytes.");
+            m_memoryArena.close();
+        }
+
         if (s_logger.isLoggable(Level.FINE))
             s_logger.fine("finish (" + statLoopIt + ", " + statLoopReadersG0 + ").");
 
         currentThread.setPriority(threadPriority);
     }
 
+    private int select() throws IOException
+    {
+        if (m_selectConsumer)
+            return m_selectedKeys.select( m_selector );
+        return m_selector.select();
+    }
+
+    private int selectNow() throws IOException
+    {
+        if (m_selectConsumer)
+            return m_selectedKeys.selectNow( m_selector );
+        return m_selector.selectNow();
+    }
+
+    private void busyPoll() throws IOException
+    {
+        /* Spin on selectNow() checking the selector thread queue directly,
+         * so executeInSelectorThread() does not need to wake up the selector.
+         */
+        final Config config = getConfig();
+        final int spins = config.busyPollSpins;
+        final int yields = (spins + config.busyPollYields);
+        final long parkNanos = config.busyPollParkNanos;
+        for (int idle=0;; idle++)
+        {
+            if ((selectNow() > 0) || (m_strTail != null))
+                break;
+
+            if (idle < spins)
+                continue;
+
+            if ((idle < yields) || (parkNanos == 0))
+                Thread.yield();
+            else
+                LockSupport.parkNanos( parkNanos );
+        }
+    }
+
     public void stop()
+    {
+        stop(-1);
+    }
+
+    public void stop( long timeout, TimeUnit unit )
+    {
+        stop(Math.max(unit.toMillis(timeout), 0));
+    }
+
+    private void stop( long drainTimeout )
     {
         if (s_logger.isLoggable(Level.FINE))
-            s_logger.fine("");
+            s_logger.fine("drainTimeout=" + drainTimeout);
 
         m_lock.lock();
         try
@@ -525,7 +917,12 @@ class ColliderImpl extends Collider
             m_lock.unlock();
         }
 
-        executeInThreadPool(new Stopper1());
+        executeInThreadPool(new Stopper1(drainTimeout));
+    }
+
+    public DrainReport getDrainReport()
+    {
+        return m_drainReport;
     }
 
     public final void executeInSelectorThread(SelectorThreadRunnable runnable)
@@ -536,6 +933,10 @@ class ColliderImpl extends Collider
         {
             m_strHead = runnable;
 
+            /* Busy polling selector thread will see the runnable itself. */
+            if (m_busyPoll)
+                return;
+
             for (;;)
             {
                 SelectorAlarm alarm = m_alarm.get();
@@ -578,6 +979,17 @@ class ColliderImpl extends Collider
         m_threadPool.execute(runnable);
     }
 
+    public final void executeInThreadPool(ThreadPool.Runnable [] runnables, int count)
+    {
+        m_threadPool.execute(runnables, count);
+    }
+
+    /* Collider wide timers, tasks are executed in the collider thread pool. */
+    final TimerQueue getTimerQueue()
+    {
+        return m_timerQueue;
+    }
+
     public void addAcceptor( Acceptor acceptor ) throws IOException
     {
         final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
@@ -729,13 +1141,9 @@ class ColliderImpl extends Collider
             dataBlockCache = m_dataBlockCache.get(inputQueueBlockSize);
             if (dataBlockCache == null)
             {
-                dataBlockCache = new RetainableDataBlockCache(
-                        config.useDirectBuffers,
-                        inputQueueBlockSize,
-                        config.byteOrder,
-                        config.inputQueueCacheMaxSize,
-                        /*initial size*/4);
+                dataBlockCache = createDataBlockCache(inputQueueBlockSize, /*initial size*/4);
                 m_dataBlockCache.put(inputQueueBlockSize, dataBlockCache);
+                registerMBean(dataBlockCache, "type=InputQueueCache,collider=" + m_id + ",blockSize=" + inputQueueBlockSize);
             }
         }
         finally
@@ -805,4 +1213,177 @@ class ColliderImpl extends Collider
     {
         return m_threadPool;
     }
+
+    public final SessionCounters getSessionCounters()
+    {
+        return m_sessionCounters;
+    }
+
+    private void registerMBean( Object mbean, String properties )
+    {
+        /* Supposed to be called with m_lock held. */
+        if (!getConfig().registerMBeans)
+            return;
+
+        try
+        {
+            final ObjectName objectName = new ObjectName( MBEAN_DOMAIN + ":" + properties );
+            ManagementFactory.getPlatformMBeanServer().registerMBean( mbean, objectName );
+            m_mbeans.add( objectName );
+        }
+        catch (final Exception ex)
+        {
+            /* JMX is not critical for the collider. */
+            if (s_logger.isLoggable(Level.WARNING))
+                s_logger.warning( properties + ": " + ex.toString() );
+        }
+    }
+
+    private void unregisterMBeans()
+    {
+        if (m_mbeans.isEmpty())
+            return;
+
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : m_mbeans)
+        {
+            try
+            {
+                mbeanServer.unregisterMBean( objectName );
+            }
+            catch (final Exception ex)
+            {
+                if (s_logger.isLoggable(Level.WARNING))
+                    s_logger.warning( objectName + ": " + ex.toString() );
+            }
+        }
+        m_mbeans.clear();
+    }
+
+    /* ColliderMXBean */
+
+    public int getSessions()
+    {
+        /* Read closed sessions counter first to never get a negative value. */
+        final long sessionsClosed = m_sessionCounters.sessionsClosed.get();
+        return (int) (m_sessionCounters.sessionsOpened.get() - sessionsClosed);
+    }
+
+    public int getEmitters()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_emitters.size();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public int getDatagramListeners()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_datagramListeners.size();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public long getBytesIn() { return m_sessionCounters.bytesIn.get(); }
+    public long getMessagesIn() { return m_sessionCounters.messagesIn.get(); }
+    public long getReadSuspensions() { return m_sessionCounters.readSuspensions.get(); }
+    public long getBytesOut() { return m_sessionCounters.bytesOut.get(); }
+    public long getMessagesOut() { return m_sessionCounters.messagesOut.get(); }
+
+    public long getSelectorLoopIterations() { return m_statLoopIt; }
+    public long getSelectorLoopSelectNow() { return m_statLoopSelectNow; }
+    public long getSelectorRunnables() { return m_statRunnables; }
+    public int getSelectorQueueMaxLength() { return m_statQueueMaxLength; }
+
+    public int getInputQueueCacheMaxSize()
+    {
+        m_lock.lock();
+        try
+        {
+            return getConfig().inputQueueCacheMaxSize;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public void setInputQueueCacheMaxSize( int inputQueueCacheMaxSize )
+    {
+        if (inputQueueCacheMaxSize < 0)
+            throw new IllegalArgumentException( "inputQueueCacheMaxSize=" + inputQueueCacheMaxSize );
+
+        m_lock.lock();
+        try
+        {
+            getConfig().inputQueueCacheMaxSize = inputQueueCacheMaxSize;
+            for (RetainableDataBlockCache cache : m_dataBlockCache.values())
+                cache.setMaxSize( inputQueueCacheMaxSize );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public void getMetrics( Metrics metrics )
+    {
+        metrics.sessions = getSessions();
+        metrics.bytesIn = m_sessionCounters.bytesIn.get();
+        metrics.messagesIn = m_sessionCounters.messagesIn.get();
+        metrics.readSuspensions = m_sessionCounters.readSuspensions.get();
+        metrics.bytesOut = m_sessionCounters.bytesOut.get();
+        metrics.messagesOut = m_sessionCounters.messagesOut.get();
+
+        metrics.selectorLoopIterations = m_statLoopIt;
+        metrics.selectorLoopSelectNow = m_statLoopSelectNow;
+        metrics.selectorRunnables = m_statRunnables;
+        metrics.selectorQueueLength = m_statQueueLength;
+        metrics.selectorQueueMaxLength = m_statQueueMaxLength;
+
+        metrics.threadPoolParks = m_threadPool.getParks();
+        metrics.threadPoolUnparks = m_threadPool.getUnparks();
+
+        long inputQueueCacheGets = 0;
+        long inputQueueCacheMisses = 0;
+        RetainableByteBufferPool joinPool;
+        m_lock.lock();
+        try
+        {
+            for (RetainableDataBlockCache cache : m_dataBlockCache.values())
+            {
+                inputQueueCacheGets += cache.getGets();
+                inputQueueCacheMisses += cache.getMisses();
+            }
+            joinPool = m_joinPool;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+
+        metrics.inputQueueCacheGets = inputQueueCacheGets;
+        metrics.inputQueueCacheMisses = inputQueueCacheMisses;
+        if (joinPool == null)
+        {
+            metrics.joinPoolChunkGets = 0;
+            metrics.joinPoolChunkMisses = 0;
+        }
+        else
+        {
+            metrics.joinPoolChunkGets = joinPool.getGets();
+            metrics.joinPoolChunkMisses = joinPool.getMisses();
+        }
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+/**
+ * JMX view of the running collider, registered if
+ * <tt>Collider.Config.registerMBeans</tt> is set.
+ * Counters are the same as in {@link Collider.Metrics}.
+ */
+public interface ColliderMXBean
+{
+    int getSessions();
+    int getEmitters();
+    int getDatagramListeners();
+
+    long getBytesIn();
+    long getMessagesIn();
+    long getReadSuspensions();
+    long getBytesOut();
+    long getMessagesOut();
+
+    long getSelectorLoopIterations();
+    long getSelectorLoopSelectNow();
+    long getSelectorRunnables();
+    int getSelectorQueueMaxLength();
+
+    /* Runtime tunables */
+    int getInputQueueCacheMaxSize();
+    void setInputQueueCacheMaxSize(int inputQueueCacheMaxSize);
+}
@@ -0,0 +1,675 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+
+/*
+ * RetainableByteBuffer presenting a number of buffers as one logical buffer.
+ * Remaining bytes of the buffer are added as a new component,
+ * the buffer is retained and will be released when the composite
+ * buffer itself will be finally released, so the data is never copied.
+ * Byte order of the composite buffer is taken from the first component.
+ *
+ * There is no single NIO ByteBuffer behind the composite buffer,
+ * getNioByteBuffer() returns an empty buffer,
+ * getNioByteBuffers() should be used instead.
+ */
+
+public class CompositeRetainableByteBuffer extends RetainableByteBuffer
+{
+    private RetainableByteBuffer [] m_component;
+    private ByteBuffer [] m_data;
+    private int [] m_offs;
+    private int m_components;
+    private int m_cidx;
+    private int m_capacity;
+    private int m_position;
+    private int m_limit;
+    private ByteOrder m_byteOrder;
+
+    private void addComponent(RetainableByteBuffer component, ByteBuffer data, ByteOrder byteOrder)
+    {
+        /* data is a view of the component with position 0 and limit == capacity */
+        if (m_components == m_component.length)
+        {
+            final int length = (m_components * 2);
+            final RetainableByteBuffer [] component_ = new RetainableByteBuffer[length];
+            final ByteBuffer [] data_ = new ByteBuffer[length];
+            final int [] offs = new int[length + 1];
+            System.arraycopy(m_component, 0, component_, 0, m_components);
+            System.arraycopy(m_data, 0, data_, 0, m_components);
+            System.arraycopy(m_offs, 0, offs, 0, m_components+1);
+            m_component = component_;
+            m_data = data_;
+            m_offs = offs;
+        }
+
+        if (m_components == 0)
+            m_byteOrder = byteOrder;
+
+        data.order(m_byteOrder);
+        m_component[m_components] = component;
+        m_data[m_components] = data;
+        m_capacity += data.capacity();
+        m_components++;
+        m_offs[m_components] = m_capacity;
+        m_limit = m_capacity;
+    }
+
+    private int getComponentIndex(int index)
+    {
+        /* Sequential access is the most probable,
+         * let's check the last used component first.
+         */
+        final int cidx = m_cidx;
+        if ((index >= m_offs[cidx]) && (index < m_offs[cidx+1]))
+            return cidx;
+
+        int lo = 0;
+        int hi = (m_components - 1);
+        while (lo < hi)
+        {
+            final int mid = ((lo + hi + 1) >>> 1);
+            if (m_offs[mid] <= index)
+                lo = mid;
+            else
+                hi = (mid - 1);
+        }
+        m_cidx = lo;
+        return lo;
+    }
+
+    private ByteBuffer getData(int idx, int from, int to)
+    {
+        /* Sets the view of the component to the [from, to) logical range */
+        final ByteBuffer data = m_data[idx];
+        final int offs = m_offs[idx];
+        data.limit(data.capacity());
+        data.position(from - offs);
+        data.limit(to - offs);
+        return data;
+    }
+
+    private void checkIndex(int index, int bytes)
+    {
+        if ((index < 0) || (bytes > (m_limit - index)))
+            throw new IndexOutOfBoundsException();
+    }
+
+    private int nextGetIndex(int bytes)
+    {
+        final int position = m_position;
+        if ((m_limit - position) < bytes)
+            throw new BufferUnderflowException();
+        m_position = (position + bytes);
+        return position;
+    }
+
+    private int nextPutIndex(int bytes)
+    {
+        final int position = m_position;
+        if ((m_limit - position) < bytes)
+            throw new BufferOverflowException();
+        m_position = (position + bytes);
+        return position;
+    }
+
+    private byte getByte(int index)
+    {
+        final int idx = getComponentIndex(index);
+        return m_data[idx].get(index - m_offs[idx]);
+    }
+
+    private void putByte(int index, byte value)
+    {
+        final int idx = getComponentIndex(index);
+        m_data[idx].put(index - m_offs[idx], value);
+    }
+
+    private long getSplit(int index, int bytes)
+    {
+        /* Value crosses the components boundary */
+        long ret = 0;
+        if (m_byteOrder == ByteOrder.BIG_ENDIAN)
+        {
+            for (int cc=0; cc<bytes; cc++)
+                ret = ((ret << 8) | (getByte(index+cc) & 0xFF));
+        }
+        else
+        {
+            for (int cc=bytes-1; cc>=0; cc--)
+                ret = ((ret << 8) | (getByte(index+cc) & 0xFF));
+        }
+        return ret;
+    }
+
+    private void putSplit(int index, long value, int bytes)
+    {
+        if (m_byteOrder == ByteOrder.BIG_ENDIAN)
+        {
+            for (int cc=bytes-1; cc>=0; cc--, value>>=8)
+                putByte(index+cc, (byte) value);
+        }
+        else
+        {
+            for (int cc=0; cc<bytes; cc++, value>>=8)
+                putByte(index+cc, (byte) value);
+        }
+    }
+
+    protected void finalRelease()
+    {
+        for (int idx=0; idx<m_components; idx++)
+        {
+            m_component[idx].release();
+            m_component[idx] = null;
+            m_data[idx] = null;
+        }
+        m_components = 0;
+        m_cidx = 0;
+        m_capacity = 0;
+        m_position = 0;
+        m_limit = 0;
+    }
+
+    public CompositeRetainableByteBuffer(int components)
+    {
+        super(ByteBuffer.allocate(0));
+        if (components < 2)
+            components = 2;
+        m_component = new RetainableByteBuffer[components];
+        m_data = new ByteBuffer[components];
+        m_offs = new int[components + 1];
+        m_byteOrder = ByteOrder.BIG_ENDIAN;
+    }
+
+    public CompositeRetainableByteBuffer()
+    {
+        this(4);
+    }
+
+    /**
+     * Appends remaining bytes of the buffer to the composite buffer.
+     * The buffer is retained, position and limit of the buffer remain unchanged.
+     * Limit of the composite buffer is set to the new capacity.
+     * @param buf the buffer to add
+     * @return this buffer
+     */
+    public final CompositeRetainableByteBuffer addComponent(RetainableByteBuffer buf)
+    {
+        if (buf instanceof CompositeRetainableByteBuffer)
+        {
+            final CompositeRetainableByteBuffer cbuf = (CompositeRetainableByteBuffer) buf;
+            for (int idx=0; idx<cbuf.m_components; idx++)
+            {
+                final ByteBuffer data = cbuf.getComponentData(idx);
+                if (data != null)
+                {
+                    final RetainableByteBuffer component = cbuf.m_component[idx];
+                    component.retain();
+                    addComponent(component, data.slice(), cbuf.m_byteOrder);
+                }
+            }
+        }
+        else
+        {
+            final ByteBuffer data = buf.getNioByteBuffer().slice();
+            if (data.capacity() > 0)
+            {
+                buf.retain();
+                addComponent(buf, data, buf.order());
+            }
+        }
+        return this;
+    }
+
+    public final int getComponents()
+    {
+        return m_components;
+    }
+
+    final RetainableByteBuffer getComponent(int idx)
+    {
+        return m_component[idx];
+    }
+
+    final ByteBuffer getComponentData(int idx)
+    {
+        /* Returns a view of the component data
+         * within the [position, limit) range of the composite buffer,
+         * or null if the component is out of the range.
+         */
+        final int from = Math.max(m_offs[idx], m_position);
+        final int to = Math.min(m_offs[idx+1], m_limit);
+        if (from >= to)
+            return null;
+        final ByteBuffer data = m_data[idx].duplicate();
+        final int offs = m_offs[idx];
+        data.limit(to - offs);
+        data.position(from - offs);
+        data.order(m_byteOrder);
+        return data;
+    }
+
+    /**
+     * @return NIO byte buffers with the data within [position, limit) range,
+     * useful for the gathering write.
+     */
+    public final ByteBuffer [] getNioByteBuffers()
+    {
+        int cnt = 0;
+        final ByteBuffer [] tmp = new ByteBuffer[m_components];
+        for (int idx=0; idx<m_components; idx++)
+        {
+            final ByteBuffer data = getComponentData(idx);
+            if (data != null)
+                tmp[cnt++] = data;
+        }
+        if (cnt == m_components)
+            return tmp;
+        final ByteBuffer [] ret = new ByteBuffer[cnt];
+        System.arraycopy(tmp, 0, ret, 0, cnt);
+        return ret;
+    }
+
+    /*
+     * NIO Buffer
+     */
+
+    public ByteOrder order()
+    {
+        return m_byteOrder;
+    }
+
+    public RetainableByteBuffer order(ByteOrder byteOrder)
+    {
+        m_byteOrder = byteOrder;
+        for (int idx=0; idx<m_components; idx++)
+            m_data[idx].order(byteOrder);
+        return this;
+    }
+
+    public int capacity()
+    {
+        return m_capacity;
+    }
+
+    public RetainableByteBuffer clear()
+    {
+        m_position = 0;
+        m_limit = m_capacity;
+        return this;
+    }
+
+    public RetainableByteBuffer duplicate()
+    {
+        final CompositeRetainableByteBuffer ret = new CompositeRetainableByteBuffer(m_components);
+        for (int idx=0; idx<m_components; idx++)
+        {
+            final ByteBuffer data = m_data[idx].duplicate();
+            data.clear();
+            m_component[idx].retain();
+            ret.addComponent(m_component[idx], data, m_byteOrder);
+        }
+        ret.m_limit = m_limit;
+        ret.m_position = m_position;
+        return ret;
+    }
+
+    public RetainableByteBuffer flip()
+    {
+        m_limit = m_position;
+        m_position = 0;
+        return this;
+    }
+
+    public RetainableByteBuffer rewind()
+    {
+        m_position = 0;
+        return this;
+    }
+
+    public int limit()
+    {
+        return m_limit;
+    }
+
+    public RetainableByteBuffer limit(int limit)
+    {
+        if ((limit > m_capacity) || (limit < 0))
+            throw new IllegalArgumentException();
+        m_limit = limit;
+        if (m_position > limit)
+            m_position = limit;
+        return this;
+    }
+
+    public int position()
+    {
+        return m_position;
+    }
+
+    public RetainableByteBuffer position(int position)
+    {
+        if ((position > m_limit) || (position < 0))
+            throw new IllegalArgumentException();
+        m_position = position;
+        return this;
+    }
+
+    public int remaining()
+    {
+        return (m_limit - m_position);
+    }
+
+    public RetainableByteBuffer reset()
+    {
+        /* mark() is not a part of the RetainableByteBuffer interface. */
+        throw new InvalidMarkException();
+    }
+
+    public RetainableByteBuffer slice()
+    {
+        final CompositeRetainableByteBuffer ret = new CompositeRetainableByteBuffer(m_components);
+        for (int idx=0; idx<m_components; idx++)
+        {
+            final ByteBuffer data = getComponentData(idx);
+            if (data != null)
+            {
+                m_component[idx].retain();
+                ret.addComponent(m_component[idx], data.slice(), m_byteOrder);
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * NIO ByteBuffer
+     */
+
+    public byte get(int index)
+    {
+        checkIndex(index, 1);
+        return getByte(index);
+    }
+
+    public RetainableByteBuffer put(int index, byte value)
+    {
+        checkIndex(index, 1);
+        putByte(index, value);
+        return this;
+    }
+
+    public short getShort(int index)
+    {
+        checkIndex(index, 2);
+        final int idx = getComponentIndex(index);
+        if ((index + 2) <= m_offs[idx+1])
+            return m_data[idx].getShort(index - m_offs[idx]);
+        return (short) getSplit(index, 2);
+    }
+
+    public RetainableByteBuffer putShort(int index, short value)
+    {
+        checkIndex(index, 2);
+        final int idx = getComponentIndex(index);
+        if ((index + 2) <= m_offs[idx+1])
+            m_data[idx].putShort(index - m_offs[idx], value);
+        else
+            putSplit(index, value, 2);
+        return this;
+    }
+
+    public int getInt(int index)
+    {
+        checkIndex(index, 4);
+        final int idx = getComponentIndex(index);
+        if ((index + 4) <= m_offs[idx+1])
+            return m_data[idx].getInt(index - m_offs[idx]);
+        return (int) getSplit(index, 4);
+    }
+
+    public RetainableByteBuffer putInt(int index, int value)
+    {
+        checkIndex(index, 4);
+        final int idx = getComponentIndex(index);
+        if ((index + 4) <= m_offs[idx+1])
+            m_data[idx].putInt(index - m_offs[idx], value);
+        else
+            putSplit(index, value, 4);
+        return this;
+    }
+
+    public long getLong(int index)
+    {
+        checkIndex(index, 8);
+        final int idx = getComponentIndex(index);
+        if ((index + 8) <= m_offs[idx+1])
+            return m_data[idx].getLong(index - m_offs[idx]);
+        return getSplit(index, 8);
+    }
+
+    public RetainableByteBuffer putLong(int index, long value)
+    {
+        checkIndex(index, 8);
+        final int idx = getComponentIndex(index);
+        if ((index + 8) <= m_offs[idx+1])
+            m_data[idx].putLong(index - m_offs[idx], value);
+        else
+            putSplit(index, value, 8);
+        return this;
+    }
+
+    public float getFloat(int index)
+    {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    public RetainableByteBuffer putFloat(int index, float value)
+    {
+        return putInt(index, Float.floatToRawIntBits(value));
+    }
+
+    public double getDouble(int index)
+    {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    public RetainableByteBuffer putDouble(int index, double value)
+    {
+        return putLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    public byte get()
+    {
+        return getByte(nextGetIndex(1));
+    }
+
+    public RetainableByteBuffer get(ByteBuffer dst)
+    {
+        final int position = m_position;
+        final int limit = m_limit;
+        if (dst.remaining() < (limit - position))
+            throw new BufferOverflowException();
+
+        if (position < limit)
+        {
+            int idx = getComponentIndex(position);
+            for (int from=position; from<limit; idx++)
+            {
+                final int to = Math.min(m_offs[idx+1], limit);
+                dst.put(getData(idx, from, to));
+                from = to;
+            }
+            m_position = limit;
+        }
+        return this;
+    }
+
+    public RetainableByteBuffer get(byte [] dst, int offset, int length)
+    {
+        final int position = m_position;
+        if ((m_limit - position) < length)
+            throw new BufferUnderflowException();
+
+        if (length > 0)
+        {
+            final int limit = (position + length);
+            int idx = getComponentIndex(position);
+            for (int from=position; from<limit; idx++)
+            {
+                final int to = Math.min(m_offs[idx+1], limit);
+                getData(idx, from, to).get(dst, offset, to-from);
+                offset += (to - from);
+                from = to;
+            }
+            m_position = limit;
+        }
+        return this;
+    }
+
+    public RetainableByteBuffer put(byte value)
+    {
+        putByte(nextPutIndex(1), value);
+        return this;
+    }
+
+    public RetainableByteBuffer put(ByteBuffer src)
+    {
+        final int position = m_position;
+        final int length = src.remaining();
+        if ((m_limit - position) < length)
+            throw new BufferOverflowException();
+
+        if (length > 0)
+        {
+            final int srcLimit = src.limit();
+            final int limit = (position + length);
+            int idx = getComponentIndex(position);
+            for (int from=position; from<limit; idx++)
+            {
+                final int to = Math.min(m_offs[idx+1], limit);
+                src.limit(src.position() + (to - from));
+                getData(idx, from, to).put(src);
+                from = to;
+            }
+            src.limit(srcLimit);
+            m_position = limit;
+        }
+        return this;
+    }
+
+    public RetainableByteBuffer put(RetainableByteBuffer src)
+    {
+        if (src instanceof CompositeRetainableByteBuffer)
+        {
+            final CompositeRetainableByteBuffer cbuf = (CompositeRetainableByteBuffer) src;
+            if (remaining() < cbuf.remaining())
+                throw new BufferOverflowException();
+            for (int idx=0; idx<cbuf.m_components; idx++)
+            {
+                final ByteBuffer data = cbuf.getComponentData(idx);
+                if (data != null)
+                    put(data);
+            }
+            cbuf.m_position = cbuf.m_limit;
+        }
+        else
+            put(src.getNioByteBuffer());
+        return this;
+    }
+
+    public RetainableByteBuffer put(byte [] src, int offset, int length)
+    {
+        final int position = m_position;
+        if ((m_limit - position) < length)
+            throw new BufferOverflowException();
+
+        if (length > 0)
+        {
+            final int limit = (position + length);
+            int idx = getComponentIndex(position);
+            for (int from=position; from<limit; idx++)
+            {
+                final int to = Math.min(m_offs[idx+1], limit);
+                getData(idx, from, to).put(src, offset, to-from);
+                offset += (to - from);
+                from = to;
+            }
+            m_position = limit;
+        }
+        return this;
+    }
+
+    public RetainableByteBuffer putShort(short value)
+    {
+        return putShort(nextPutIndex(2), value);
+    }
+
+    public short getShort()
+    {
+        return getShort(nextGetIndex(2));
+    }
+
+    public RetainableByteBuffer putInt(int value)
+    {
+        return putInt(nextPutIndex(4), value);
+    }
+
+    public int getInt()
+    {
+        return getInt(nextGetIndex(4));
+    }
+
+    public RetainableByteBuffer putLong(long value)
+    {
+        return putLong(nextPutIndex(8), value);
+    }
+
+    public long getLong()
+    {
+        return getLong(nextGetIndex(8));
+    }
+
+    public RetainableByteBuffer putFloat(float value)
+    {
+        return putFloat(nextPutIndex(4), value);
+    }
+
+    public float getFloat()
+    {
+        return getFloat(nextGetIndex(4));
+    }
+
+    public RetainableByteBuffer putDouble(double value)
+    {
+        return putDouble(nextPutIndex(8), value);
+    }
+
+    public double getDouble()
+    {
+        return getDouble(nextGetIndex(8));
+    }
+}
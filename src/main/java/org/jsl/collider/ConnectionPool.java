@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of the client connections to the one server address.
+ * <p>
+ * Pool keeps the given number of sessions, every pool connection
+ * is a reconnecting {@link Connector}, so a closed session is replaced
+ * with a new one automatically. Data sent with the pool
+ * <tt>sendData()</tt> goes to the session chosen by the picker:
+ * <tt>ROUND_ROBIN</tt> uses the connected sessions one by one,
+ * <tt>LEAST_QUEUED</tt> chooses the session with the minimal amount
+ * of data scheduled to send but not sent yet.
+ * <pre>{@code
+ * final ConnectionPool pool = new ConnectionPool(addr, 4) {
+ *     public Session.Listener createSessionListener(Session session) { ... }
+ *     public void onException(IOException ex) { ... }
+ * };
+ * pool.start(collider);
+ * pool.awaitConnected(4, 10, TimeUnit.SECONDS);
+ * pool.sendData(msg);
+ * }</pre>
+ */
+public abstract class ConnectionPool
+{
+    public static final int ROUND_ROBIN = 0;
+    public static final int LEAST_QUEUED = 1;
+
+    /* Settings to be applied to the pool connectors,
+     * should be changed before start(), see Connector.
+     */
+    public int picker;
+    public boolean tcpNoDelay;
+    public long connectTimeout;
+    public long reconnectDelay;
+    public long reconnectMaxDelay;
+
+    private final InetSocketAddress m_addr;
+    private final Connection [] m_connections;
+    private final AtomicInteger m_next;
+    private final ReentrantLock m_lock;
+    private final Condition m_cond;
+    private int m_connected;
+    private Collider m_collider;
+
+    private class Connection extends Connector implements Session.Listener
+    {
+        private volatile SessionImpl m_session;
+        private Session.Listener m_listener;
+
+        Connection(InetSocketAddress addr)
+        {
+            super(addr);
+            tcpNoDelay = ConnectionPool.this.tcpNoDelay;
+            connectTimeout = ConnectionPool.this.connectTimeout;
+            reconnectDelay = ConnectionPool.this.reconnectDelay;
+            reconnectMaxDelay = ConnectionPool.this.reconnectMaxDelay;
+        }
+
+        final SessionImpl getSession()
+        {
+            return m_session;
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            final Session.Listener listener = ConnectionPool.this.createSessionListener(session);
+            if (listener == null)
+                return null;
+
+            m_listener = listener;
+            m_session = (SessionImpl) session;
+
+            m_lock.lock();
+            try
+            {
+                m_connected++;
+                m_cond.signalAll();
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+            return this;
+        }
+
+        public void onException(IOException ex)
+        {
+            ConnectionPool.this.onException(ex);
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            m_listener.onDataReceived(data);
+        }
+
+        public void onConnectionClosed()
+        {
+            m_session = null;
+            m_lock.lock();
+            try
+            {
+                m_connected--;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+            m_listener.onConnectionClosed();
+        }
+    }
+
+    public ConnectionPool(InetSocketAddress addr, int size)
+    {
+        if (size <= 0)
+            throw new IllegalArgumentException("Invalid pool size " + size);
+
+        picker = LEAST_QUEUED;
+        tcpNoDelay = true;
+        connectTimeout = 0;
+        reconnectDelay = 100;
+        reconnectMaxDelay = 10000;
+
+        m_addr = addr;
+        m_connections = new Connection[size];
+        m_next = new AtomicInteger();
+        m_lock = new ReentrantLock();
+        m_cond = m_lock.newCondition();
+    }
+
+    public final InetSocketAddress getAddr()
+    {
+        return m_addr;
+    }
+
+    /**
+     * Starts all pool connections.
+     * @param collider collider to run the connections with
+     */
+    public final void start(Collider collider)
+    {
+        if (reconnectDelay <= 0)
+            throw new IllegalArgumentException("Pool connections should reconnect.");
+
+        m_lock.lock();
+        try
+        {
+            if (m_collider != null)
+                throw new IllegalStateException("Pool already started.");
+            m_collider = collider;
+            for (int idx=0; idx<m_connections.length; idx++)
+                m_connections[idx] = new Connection(m_addr);
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+
+        for (Connection connection : m_connections)
+            collider.addConnector(connection);
+    }
+
+    /**
+     * Stops reconnecting and closes all pool sessions.
+     */
+    public final void stop() throws InterruptedException
+    {
+        if (m_collider == null)
+            return;
+
+        for (Connection connection : m_connections)
+        {
+            m_collider.removeConnector(connection);
+            final SessionImpl session = connection.getSession();
+            if (session != null)
+                session.closeConnection();
+        }
+    }
+
+    /**
+     * Waits while at least the given number of the pool sessions are connected,
+     * could be used to warm up the pool at start.
+     * @return true if sessions are connected, false on timeout
+     */
+    public final boolean awaitConnected(int sessions, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long nanos = unit.toNanos(timeout);
+        m_lock.lock();
+        try
+        {
+            while (m_connected < sessions)
+            {
+                if (nanos <= 0)
+                    return false;
+                nanos = m_cond.awaitNanos(nanos);
+            }
+            return true;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of the currently connected pool sessions
+     */
+    public final int getConnectedCount()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_connected;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Picks the connected pool session according to the picker.
+     * @return session or null if there is no connected session
+     */
+    public final Session getSession()
+    {
+        final Connection [] connections = m_connections;
+        final int size = connections.length;
+        final int start = ((m_next.getAndIncrement() & Integer.MAX_VALUE) % size);
+
+        if (picker == ROUND_ROBIN)
+        {
+            for (int idx=0; idx<size; idx++)
+            {
+                final Connection connection = connections[(start + idx) % size];
+                if (connection == null)
+                    return null;
+                final SessionImpl session = connection.getSession();
+                if ((session != null) && !session.isClosed())
+                    return session;
+            }
+            return null;
+        }
+        else
+        {
+            /* Starting from the different sessions to spread the load
+             * between the sessions with the same queue size.
+             */
+            SessionImpl ret = null;
+            long minQueueBytes = Long.MAX_VALUE;
+            for (int idx=0; idx<size; idx++)
+            {
+                final Connection connection = connections[(start + idx) % size];
+                if (connection == null)
+                    return null;
+                /* Closed session can stay in the pool until
+                 * the close notification, its queue looks empty.
+                 */
+                final SessionImpl session = connection.getSession();
+                if ((session != null) && !session.isClosed())
+                {
+                    final long queueBytes = session.getSendQueueBytes();
+                    if (queueBytes < minQueueBytes)
+                    {
+                        if (queueBytes == 0)
+                            return session;
+                        minQueueBytes = queueBytes;
+                        ret = session;
+                    }
+                }
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * Sends the data with the session chosen by the picker,
+     * see <tt>Session.sendData()</tt>.
+     * @return less than 0 if there is no connected session
+     * or all tried sessions were closed meanwhile
+     */
+    public final int sendData(ByteBuffer data)
+    {
+        /* Session can be closed meanwhile, try another one,
+         * but not more times than the pool size.
+         */
+        for (int idx=0; idx<m_connections.length; idx++)
+        {
+            final Session session = getSession();
+            if (session == null)
+                break;
+            final int rc = session.sendData(data);
+            if (rc >= 0)
+                return rc;
+        }
+        return -1;
+    }
+
+    public final int sendData(RetainableByteBuffer data)
+    {
+        for (int idx=0; idx<m_connections.length; idx++)
+        {
+            final Session session = getSession();
+            if (session == null)
+                break;
+            final int rc = session.sendData(data);
+            if (rc >= 0)
+                return rc;
+        }
+        return -1;
+    }
+
+    /**
+     * Creates listener for the new pool session,
+     * see <tt>Connector.createSessionListener()</tt>.
+     */
+    public abstract Session.Listener createSessionListener(Session session);
+
+    /**
+     * Called on connection failure, pool will try to connect again,
+     * see <tt>Connector.onException()</tt>.
+     */
+    public abstract void onException(IOException ex);
+}
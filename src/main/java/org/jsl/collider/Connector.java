@@ -24,9 +24,89 @@ import java.net.InetSocketAddress;
 
 public abstract class Connector extends SessionEmitter
 {
+    /* Connect timeout in milliseconds, 0 - no timeout (system default),
+     * onException() is called with SocketTimeoutException on timeout.
+     */
+    public long connectTimeout;
+
+    /* Reconnect delays are in milliseconds,
+     * reconnectDelay == 0 : connect only once (default),
+     * reconnectDelay  > 0 : connect again on failure or when the session closed,
+     *     with exponential backoff from reconnectDelay up to reconnectMaxDelay,
+     *     every delay is randomly reduced by up to reconnectJitter percents.
+     */
+    public long reconnectDelay;
+    public long reconnectMaxDelay;
+    public int reconnectJitter;
+
+    private ReconnectStats m_reconnectStats;
+
+    /**
+     * Reconnect metrics, available only if reconnect is enabled.
+     * Latency is the time from the connection loss (or the first failed
+     * attempt) to the new session creation, in nanoseconds.
+     */
+    public static class ReconnectStats
+    {
+        private final StripedCounter m_attempts;
+        private final StripedCounter m_reconnects;
+        private final LatencyHistogram m_latency;
+
+        ReconnectStats()
+        {
+            m_attempts = new StripedCounter(1);
+            m_reconnects = new StripedCounter(1);
+            m_latency = new LatencyHistogram(4, 1);
+        }
+
+        final void attempt()
+        {
+            m_attempts.increment();
+        }
+
+        final void reconnected(long latency)
+        {
+            m_reconnects.increment();
+            m_latency.record(latency);
+        }
+
+        public final long getAttempts()
+        {
+            return m_attempts.get();
+        }
+
+        public final long getReconnects()
+        {
+            return m_reconnects.get();
+        }
+
+        public final LatencyHistogram.Snapshot getLatency()
+        {
+            return m_latency.getSnapshot();
+        }
+    }
+
     public Connector(InetSocketAddress addr)
     {
         super(addr);
+        connectTimeout = 0;
+        reconnectDelay = 0;
+        reconnectMaxDelay = 30000;
+        reconnectJitter = 20;
+    }
+
+    /**
+     * @return reconnect metrics, or null if reconnect is disabled
+     * or the connector was not added to the collider yet.
+     */
+    public final ReconnectStats getReconnectStats()
+    {
+        return m_reconnectStats;
+    }
+
+    final void setReconnectStats(ReconnectStats reconnectStats)
+    {
+        m_reconnectStats = reconnectStats;
     }
 
     /**
@@ -40,6 +120,8 @@ public abstract class Connector extends SessionEmitter
     /**
      * Called by framework in a case if asynchronous operation
      * with underlying socket channel throws some exception.
+     * If reconnect is enabled the next attempt is scheduled after return,
+     * call <tt>Collider.removeConnector()</tt> to stop.
      * @param ex An exception thrown by asynchronous I/O operation
      */
     public abstract void onException(IOException ex);
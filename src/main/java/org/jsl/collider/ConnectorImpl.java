@@ -22,8 +22,11 @@ package org.jsl.collider;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.SocketTimeoutException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -40,6 +43,7 @@ class ConnectorImpl
     private final Selector m_selector;
     private SocketChannel m_socketChannel;
     private SelectionKey m_selectionKey;
+    private ConnectTimer m_connectTimer;
 
     private final ReentrantLock m_lock;
     private final Condition m_cond;
@@ -48,11 +52,22 @@ class ConnectorImpl
     private int m_state;
     private int m_waiters;
 
+    /* Reconnect mode, see Connector.reconnectDelay */
+    private final boolean m_reconnect;
+    private final Connector.ReconnectStats m_reconnectStats;
+    private ReconnectTimer m_reconnectTimer;
+    private final SessionCloseHandler m_sessionCloseHandler;
+    private boolean m_sessionCreated;
+    private long m_reconnectDelay;
+    private long m_disconnectTime;
+
     private final static int STARTING_0 = 0;
     private final static int STARTING_1 = 1;
     private final static int STARTING_2 = 2;
     private final static int CONNECTING = 3;
     private final static int STOPPED    = 4;
+    private final static int RECONNECT_WAIT = 5;
+    private final static int CONNECTED  = 6;
 
     private boolean setState( int newState )
     {
@@ -75,6 +90,122 @@ class ConnectorImpl
         }
     }
 
+    private class ReconnectTimer implements TimerQueue.Task
+    {
+        public long run()
+        {
+            m_lock.lock();
+            try
+            {
+                if ((m_reconnectTimer != this) || (m_state != RECONNECT_WAIT))
+                    return 0;
+                m_reconnectTimer = null;
+                m_state = STARTING_0;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+
+            if (s_logger.isLoggable(Level.FINE))
+                s_logger.log( Level.FINE, m_connector.getAddr() + ": reconnect" );
+
+            m_reconnectStats.attempt();
+            m_collider.executeInThreadPool( new Starter1() );
+            return 0;
+        }
+    }
+
+    private class SessionCloseHandler extends ThreadPool.Runnable
+    {
+        public void runInThreadPool()
+        {
+            m_lock.lock();
+            try
+            {
+                if (m_state == CONNECTED)
+                {
+                    m_disconnectTime = System.nanoTime();
+                    scheduleReconnectLocked();
+                }
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+    }
+
+    private void scheduleReconnectLocked()
+    {
+        final long maxDelay = m_connector.reconnectMaxDelay;
+        long delay = m_reconnectDelay;
+        if (delay > maxDelay)
+            delay = maxDelay;
+        m_reconnectDelay = (((delay * 2) > maxDelay) ? maxDelay : (delay * 2));
+
+        final int jitter = m_connector.reconnectJitter;
+        if (jitter > 0)
+            delay -= (long) (delay * jitter / 100.0 * ThreadLocalRandom.current().nextDouble());
+
+        if (s_logger.isLoggable(Level.FINE))
+            s_logger.log( Level.FINE, m_connector.getAddr() + ": reconnect in " + delay + " ms" );
+
+        /* New task every time, previous one can still be running
+         * (TimerQueue does not allow to schedule it again until return).
+         */
+        m_state = RECONNECT_WAIT;
+        m_reconnectTimer = new ReconnectTimer();
+        m_collider.getTimerQueue().schedule( m_reconnectTimer, delay, TimeUnit.MILLISECONDS );
+    }
+
+    /* Fired by the collider timer queue,
+     * then closes the connection attempt in the selector thread.
+     */
+    private class ConnectTimer
+            extends ColliderImpl.SelectorThreadRunnable
+            implements TimerQueue.Task
+    {
+        private final SelectionKey m_key;
+
+        public ConnectTimer( SelectionKey key )
+        {
+            m_key = key;
+        }
+
+        public long run()
+        {
+            m_collider.executeInSelectorThread( this );
+            return 0;
+        }
+
+        public int runInSelectorThread()
+        {
+            /* Connection could be established or stopped meanwhile. */
+            if (m_selectionKey == m_key)
+            {
+                if (s_logger.isLoggable(Level.FINE))
+                    s_logger.log( Level.FINE, m_connector.getAddr() + ": connect timeout" );
+
+                m_connectTimer = null;
+                m_selectionKey.interestOps( 0 );
+                m_collider.executeInThreadPool( new Starter3(m_socketChannel, m_selectionKey, true) );
+                m_socketChannel = null;
+                m_selectionKey = null;
+            }
+            return 0;
+        }
+    }
+
+    private void cancelConnectTimer()
+    {
+        if (m_connectTimer != null)
+        {
+            m_collider.getTimerQueue().cancelNoWait( m_connectTimer );
+            m_connectTimer = null;
+        }
+    }
+
     private class Starter1 extends ThreadPool.Runnable
     {
         public void runInThreadPool()
@@ -97,17 +228,21 @@ class ConnectorImpl
                     thrown = ex;
                 }
 
-                final Thread currentThread = Thread.currentThread();
-                addThread( currentThread );
-                m_connector.onException( thrown );
-                removeThreadAndReleaseMonitor( currentThread );
-
+                /* Channel should be released before the monitor,
+                 * the monitor release can schedule a reconnect
+                 * which will use m_socketChannel.
+                 */
                 if (m_socketChannel != null)
                 {
                     try { m_socketChannel.close(); }
                     catch (final IOException ex) { logException( ex ); }
                     m_socketChannel = null;
                 }
+
+                final Thread currentThread = Thread.currentThread();
+                addThread( currentThread );
+                m_connector.onException( thrown );
+                removeThreadAndReleaseMonitor( currentThread );
             }
             else
             {
@@ -155,6 +290,14 @@ class ConnectorImpl
                     {
                         m_selectionKey.interestOps( SelectionKey.OP_CONNECT );
                         m_selectionKey.attach( ConnectorImpl.this );
+
+                        final long connectTimeout = m_connector.connectTimeout;
+                        if (connectTimeout > 0)
+                        {
+                            m_connectTimer = new ConnectTimer( m_selectionKey );
+                            m_collider.getTimerQueue().schedule(
+                                    m_connectTimer, connectTimeout, TimeUnit.MILLISECONDS );
+                        }
                     }
                     else
                     {
@@ -169,14 +312,15 @@ class ConnectorImpl
                 }
                 else
                 {
+                    /* Release the channel before a reconnect can be scheduled. */
+                    try { m_socketChannel.close(); }
+                    catch (final IOException ex) { logException( ex ); }
+                    m_socketChannel = null;
+
                     final Thread currentThread = Thread.currentThread();
                     addThread( currentThread );
                     m_connector.onException( thrown );
                     removeThreadAndReleaseMonitor( currentThread );
-
-                    try { m_socketChannel.close(); }
-                    catch (final IOException ex) { logException( ex ); }
-                    m_socketChannel = null;
                 }
             }
             else
@@ -201,24 +345,34 @@ class ConnectorImpl
     {
         private final SocketChannel m_socketChannel;
         private final SelectionKey m_selectionKey;
+        private final boolean m_timeout;
 
-        public Starter3( SocketChannel socketChannel, SelectionKey selectionKey )
+        public Starter3( SocketChannel socketChannel, SelectionKey selectionKey, boolean timeout )
         {
             m_socketChannel = socketChannel;
             m_selectionKey = selectionKey;
+            m_timeout = timeout;
         }
 
         public void runInThreadPool()
         {
             IOException thrown = null;
             boolean connected = false;
-            try
+            if (m_timeout)
             {
-                connected = m_socketChannel.finishConnect();
+                thrown = new SocketTimeoutException(
+                        "Connect timed out (" + m_connector.connectTimeout + " ms)" );
             }
-            catch (final IOException ex)
+            else
             {
-                thrown = ex;
+                try
+                {
+                    connected = m_socketChannel.finishConnect();
+                }
+                catch (final IOException ex)
+                {
+                    thrown = ex;
+                }
             }
 
             if (s_logger.isLoggable(Level.FINE))
@@ -232,15 +386,16 @@ class ConnectorImpl
                 startSession( m_socketChannel, m_selectionKey );
             else
             {
-                final Thread currentThread = Thread.currentThread();
-                addThread( currentThread );
-                m_connector.onException( thrown );
-                removeThreadAndReleaseMonitor( currentThread );
-
+                /* Release the channel before a reconnect can be scheduled. */
                 m_selectionKey.cancel();
 
                 try { m_socketChannel.close(); }
                 catch (final IOException ex) { logException( ex ); }
+
+                final Thread currentThread = Thread.currentThread();
+                addThread( currentThread );
+                m_connector.onException( thrown );
+                removeThreadAndReleaseMonitor( currentThread );
             }
         }
     }
@@ -294,6 +449,8 @@ class ConnectorImpl
                 try { m_socketChannel.close(); }
                 catch (final IOException ex) { logException(ex); }
                 m_socketChannel = null;
+
+                cancelConnectTimer();
             }
             return 0;
         }
@@ -313,15 +470,57 @@ class ConnectorImpl
         }
     }
 
+    protected void sessionCreated( SessionImpl sessionImpl )
+    {
+        if (m_reconnect)
+        {
+            sessionImpl.setCloseHandler( m_sessionCloseHandler );
+            m_lock.lock();
+            try
+            {
+                m_sessionCreated = true;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+    }
+
     protected void removeThreadAndReleaseMonitor( Thread thread )
     {
+        boolean stopped = true;
         m_lock.lock();
         try
         {
             assert( m_callbackThread == thread );
 
             m_callbackThread = null;
-            m_state = STOPPED;
+            if (m_sessionCreated && (m_disconnectTime != 0))
+            {
+                m_reconnectStats.reconnected( System.nanoTime() - m_disconnectTime );
+                m_disconnectTime = 0;
+            }
+
+            if (m_reconnect && !m_stop)
+            {
+                if (m_sessionCreated)
+                {
+                    m_sessionCreated = false;
+                    m_state = CONNECTED;
+                    m_reconnectDelay = m_connector.reconnectDelay;
+                }
+                else
+                {
+                    /* Connection failed, try again later. */
+                    if (m_disconnectTime == 0)
+                        m_disconnectTime = System.nanoTime();
+                    scheduleReconnectLocked();
+                }
+                stopped = false;
+            }
+            else
+                m_state = STOPPED;
 
             if (m_waiters > 0)
                 m_cond.signalAll();
@@ -331,7 +530,8 @@ class ConnectorImpl
             m_lock.unlock();
         }
 
-        m_collider.removeEmitterNoWait( m_connector );
+        if (stopped)
+            m_collider.removeEmitterNoWait( m_connector );
     }
 
     protected void logException( Exception ex )
@@ -346,7 +546,7 @@ class ConnectorImpl
 
     public ConnectorImpl(
             ColliderImpl collider,
-            RetainableDataBlockCache inputQueueDataBlockCache,
+            RetainableDataBlockCache [] inputQueueDataBlockCache,
             Connector connector,
             int joinMessageMaxSize,
             RetainableByteBufferPool joinPool,
@@ -360,6 +560,20 @@ class ConnectorImpl
         m_cond = m_lock.newCondition();
         m_stop = false;
         m_state = STARTING_0;
+
+        m_reconnect = (connector.reconnectDelay > 0);
+        if (m_reconnect)
+        {
+            m_reconnectStats = new Connector.ReconnectStats();
+            m_sessionCloseHandler = new SessionCloseHandler();
+            m_reconnectDelay = connector.reconnectDelay;
+            connector.setReconnectStats( m_reconnectStats );
+        }
+        else
+        {
+            m_reconnectStats = null;
+            m_sessionCloseHandler = null;
+        }
     }
 
     public void start()
@@ -376,6 +590,7 @@ class ConnectorImpl
          * while Collider.run() is not started yet.
          */
         int state;
+        ReconnectTimer reconnectTimer = null;
 
         m_lock.lock();
         try
@@ -420,20 +635,37 @@ class ConnectorImpl
                 }
                 else
                 {
-                    /* Called from the Connector.onException,
-                     * do nothing, connector is being stopped anyway.
+                    /* Called from the Connector.onException
+                     * or Connector.createSessionListener, connector
+                     * is being stopped anyway, just do not reconnect.
                      */
+                    m_stop = true;
                     state = -1;
                 }
             }
+            else if ((m_state == RECONNECT_WAIT) || (m_state == CONNECTED))
+            {
+                reconnectTimer = m_reconnectTimer;
+                m_reconnectTimer = null;
+                m_stop = true;
+                m_state = STOPPED;
+                if (m_waiters > 0)
+                    m_cond.signalAll();
+            }
         }
         finally
         {
             m_lock.unlock();
         }
 
-        if (state == STARTING_0)
+        if ((state == STARTING_0) || (state == CONNECTED))
+        {
+            m_collider.removeEmitterNoWait(m_connector);
+        }
+        else if (state == RECONNECT_WAIT)
         {
+            /* Timer will do nothing if fires now. */
+            m_collider.getTimerQueue().cancelNoWait( reconnectTimer );
             m_collider.removeEmitterNoWait(m_connector);
         }
         else if (state == CONNECTING)
@@ -458,9 +690,10 @@ class ConnectorImpl
     {
         assert( m_selectionKey.readyOps() == SelectionKey.OP_CONNECT );
         m_selectionKey.interestOps( 0 );
-        m_collider.executeInThreadPool( new Starter3(m_socketChannel, m_selectionKey) );
+        m_collider.executeInThreadPool( new Starter3(m_socketChannel, m_selectionKey, false) );
         m_socketChannel = null;
         m_selectionKey = null;
+        cancelConnectTimer();
         return 0;
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Tracks idle sessions of the one session emitter.
+ * Reader and writer only store the coarse clock value to the session
+ * on every read and write, the clock is advanced and the sessions
+ * are scanned by the one timer task, running while there are
+ * sessions to track, so there is no timer per session.
+ */
+class IdleTracker
+{
+    private static final long MIN_TICK = 10;
+
+    private final TimerQueue m_timerQueue;
+    private final long m_readIdleTimeout;
+    private final long m_writeIdleTimeout;
+    private final long m_tick;
+    private final long m_startTime;
+    private final ReentrantLock m_lock;
+    private final ArrayList<SessionImpl> m_sessions;
+    private final ArrayList<SessionImpl> m_idleSessions;
+    private int [] m_idleStates;
+    private volatile long m_time;
+    private Timer m_timer;
+
+    private class Timer implements TimerQueue.Task
+    {
+        public long run()
+        {
+            return scan( this );
+        }
+    }
+
+    IdleTracker( TimerQueue timerQueue, long readIdleTimeout, long writeIdleTimeout )
+    {
+        m_timerQueue = timerQueue;
+        m_readIdleTimeout = readIdleTimeout;
+        m_writeIdleTimeout = writeIdleTimeout;
+
+        /* Tick is a quarter of the timeout, so the session goes idle
+         * not later than a half of the timeout after expiration.
+         */
+        long timeout;
+        if ((readIdleTimeout > 0) && (writeIdleTimeout > 0))
+            timeout = Math.min( readIdleTimeout, writeIdleTimeout );
+        else
+            timeout = Math.max( readIdleTimeout, writeIdleTimeout );
+        m_tick = Math.max( timeout/4, MIN_TICK );
+
+        m_startTime = System.nanoTime();
+        m_lock = new ReentrantLock();
+        m_sessions = new ArrayList<SessionImpl>();
+        m_idleSessions = new ArrayList<SessionImpl>();
+        m_idleStates = new int[8];
+    }
+
+    private long currentTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - m_startTime );
+    }
+
+    final long getTime()
+    {
+        return m_time;
+    }
+
+    final void addSession( SessionImpl session )
+    {
+        m_lock.lock();
+        try
+        {
+            final long time = currentTime();
+            m_time = time;
+            session.setIdleTracker( this, time );
+            m_sessions.add( session );
+
+            if (m_timer == null)
+            {
+                /* The previous timer can still be running,
+                 * TimerQueue would not schedule the same task again.
+                 */
+                m_timer = new Timer();
+                m_timerQueue.schedule( m_timer, m_tick, TimeUnit.MILLISECONDS );
+            }
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    private long scan( Timer timer )
+    {
+        final ArrayList<SessionImpl> idleSessions;
+        final long ret;
+
+        m_lock.lock();
+        try
+        {
+            if (m_timer != timer)
+                return 0;
+
+            final long time = currentTime();
+            m_time = time;
+
+            idleSessions = m_idleSessions;
+
+            int idx = 0;
+            final int size = m_sessions.size();
+            for (int jdx=0; jdx<size; jdx++)
+            {
+                final SessionImpl session = m_sessions.get( jdx );
+                if (session.isClosed())
+                    continue;
+                m_sessions.set( idx++, session );
+
+                /* Session activity time is the clock value at the moment,
+                 * so activity happened within the tick after it,
+                 * session is reported idle not earlier than the timeout
+                 * and not later than two ticks after.
+                 */
+                int idleState = 0;
+                if ((m_readIdleTimeout > 0) &&
+                    ((time - session.getReadTime() - m_tick) >= m_readIdleTimeout) &&
+                    !session.isReadSuspended())
+                {
+                    /* Next notification after one more timeout. */
+                    session.resetReadTime( time - m_tick );
+                    idleState |= Session.IdleListener.READ_IDLE;
+                }
+
+                if ((m_writeIdleTimeout > 0) && ((time - session.getWriteTime() - m_tick) >= m_writeIdleTimeout))
+                {
+                    session.resetWriteTime( time - m_tick );
+                    idleState |= Session.IdleListener.WRITE_IDLE;
+                }
+
+                if (idleState != 0)
+                {
+                    final int idleSessionIdx = idleSessions.size();
+                    if (idleSessionIdx == m_idleStates.length)
+                        m_idleStates = Arrays.copyOf( m_idleStates, idleSessionIdx*2 );
+                    m_idleStates[idleSessionIdx] = idleState;
+                    idleSessions.add( session );
+                }
+            }
+
+            for (int jdx=size-1; jdx>=idx; jdx--)
+                m_sessions.remove( jdx );
+
+            if (m_sessions.isEmpty())
+            {
+                m_timer = null;
+                ret = 0;
+            }
+            else
+                ret = m_tick;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+
+        /* Listeners are called without lock, the timer is not
+         * replaced while there are sessions, so only one timer
+         * instance gets here at a time.
+         */
+        final int [] states = m_idleStates;
+        final int idleSessionsCount = idleSessions.size();
+        for (int idx=0; idx<idleSessionsCount; idx++)
+            idleSessions.get(idx).handleIdle( states[idx] );
+        idleSessions.clear();
+
+        return ret;
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the I/O hot paths.
+ * <p>
+ * The class itself can be loaded by any JVM, event classes are loaded
+ * only if the <tt>jdk.jfr</tt> module is available and there is a running
+ * recording, so while nothing is recorded an event costs one volatile read.
+ * <tt>begin*()</tt> methods return an opaque event object
+ * (or <tt>null</tt> if the event is not enabled) to be passed
+ * to the corresponding <tt>commit*()</tt> method.
+ */
+final class JfrEvents
+{
+    @Name("org.jsl.collider.SelectorIteration")
+    @Label("Selector Iteration")
+    @Category({"JS-Collider", "Selector"})
+    @StackTrace(false)
+    static class SelectorIteration extends Event
+    {
+        @Label("Selected Keys")
+        int selectedKeys;
+
+        @Label("Runnables")
+        int runnables;
+    }
+
+    @Name("org.jsl.collider.ReaderRun")
+    @Label("Socket Reader Run")
+    @Category({"JS-Collider", "Session"})
+    @StackTrace(false)
+    static class ReaderRun extends Event
+    {
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.jsl.collider.WriterRun")
+    @Label("Socket Writer Run")
+    @Category({"JS-Collider", "Session"})
+    @StackTrace(false)
+    static class WriterRun extends Event
+    {
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        @Label("Buffers")
+        int iovc;
+    }
+
+    @Name("org.jsl.collider.DataReceived")
+    @Label("Listener onDataReceived")
+    @Category({"JS-Collider", "Session"})
+    @StackTrace(false)
+    static class DataReceived extends Event
+    {
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+    }
+
+    @Name("org.jsl.collider.ReadSuspended")
+    @Label("Read Suspended")
+    @Category({"JS-Collider", "Session"})
+    @StackTrace(false)
+    static class ReadSuspended extends Event
+    {
+        @Label("Bytes Queued")
+        @DataAmount
+        int bytesQueued;
+    }
+
+    @Name("org.jsl.collider.ReadResumed")
+    @Label("Read Resumed")
+    @Category({"JS-Collider", "Session"})
+    @StackTrace(false)
+    static class ReadResumed extends Event
+    {
+        @Label("Bytes Queued")
+        @DataAmount
+        int bytesQueued;
+    }
+
+    @Name("org.jsl.collider.ThreadPoolQueueWait")
+    @Label("Thread Pool Queue Wait")
+    @Category({"JS-Collider", "Thread Pool"})
+    @StackTrace(false)
+    static class QueueWait extends Event
+    {
+        @Label("Thread Pool")
+        String threadPool;
+    }
+
+    private static class Listener implements FlightRecorderListener
+    {
+        public void recorderInitialized(FlightRecorder recorder)
+        {
+            update(recorder);
+        }
+
+        public void recordingStateChanged(Recording recording)
+        {
+            update(FlightRecorder.getFlightRecorder());
+        }
+
+        private static void update(FlightRecorder recorder)
+        {
+            boolean running = false;
+            for (Recording recording : recorder.getRecordings())
+            {
+                if (recording.getState() == RecordingState.RUNNING)
+                {
+                    running = true;
+                    break;
+                }
+            }
+            s_recording = running;
+        }
+
+        static void register()
+        {
+            FlightRecorder.addListener(new Listener());
+        }
+    }
+
+    private static volatile boolean s_recording;
+
+    static
+    {
+        try
+        {
+            Class.forName("jdk.jfr.FlightRecorder");
+            Listener.register();
+        }
+        catch (final Throwable ex)
+        {
+            /* JFR is not available, events are never emitted. */
+        }
+    }
+
+    private JfrEvents()
+    {
+    }
+
+    static Object beginSelectorIteration()
+    {
+        if (!s_recording)
+            return null;
+        final SelectorIteration event = new SelectorIteration();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commitSelectorIteration(Object obj, int selectedKeys, int runnables)
+    {
+        if (obj != null)
+        {
+            final SelectorIteration event = (SelectorIteration) obj;
+            event.selectedKeys = selectedKeys;
+            event.runnables = runnables;
+            event.commit();
+        }
+    }
+
+    static Object beginReaderRun()
+    {
+        if (!s_recording)
+            return null;
+        final ReaderRun event = new ReaderRun();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commitReaderRun(Object obj, long bytes)
+    {
+        if (obj != null)
+        {
+            final ReaderRun event = (ReaderRun) obj;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginWriterRun()
+    {
+        if (!s_recording)
+            return null;
+        final WriterRun event = new WriterRun();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commitWriterRun(Object obj, long bytes, int iovc)
+    {
+        if (obj != null)
+        {
+            final WriterRun event = (WriterRun) obj;
+            event.bytes = bytes;
+            event.iovc = iovc;
+            event.commit();
+        }
+    }
+
+    static Object beginDataReceived()
+    {
+        if (!s_recording)
+            return null;
+        final DataReceived event = new DataReceived();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commitDataReceived(Object obj, int bytes)
+    {
+        if (obj != null)
+        {
+            final DataReceived event = (DataReceived) obj;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static void readSuspended(int bytesQueued)
+    {
+        if (s_recording)
+        {
+            final ReadSuspended event = new ReadSuspended();
+            if (event.isEnabled())
+            {
+                event.bytesQueued = bytesQueued;
+                event.commit();
+            }
+        }
+    }
+
+    static void readResumed(int bytesQueued)
+    {
+        if (s_recording)
+        {
+            final ReadResumed event = new ReadResumed();
+            if (event.isEnabled())
+            {
+                event.bytesQueued = bytesQueued;
+                event.commit();
+            }
+        }
+    }
+
+    static Object beginQueueWait()
+    {
+        if (!s_recording)
+            return null;
+        final QueueWait event = new QueueWait();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commitQueueWait(Object obj, String threadPool)
+    {
+        if (obj != null)
+        {
+            final QueueWait event = (QueueWait) obj;
+            event.threadPool = threadPool;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram (the same bucket layout as HdrHistogram has).
+ * Values below 2^significantBits are counted exactly, bigger values are
+ * counted in buckets each power of two range is split into 2^(significantBits-1)
+ * linear sub-buckets, so the relative error is less than 2^(1-significantBits).
+ * <p>
+ * Counts are striped by the thread id like in {@link StripedCounter},
+ * <tt>record()</tt> does not allocate anything and does not wait for other threads.
+ * Percentiles are calculated on a {@link Snapshot}, which can be
+ * a cumulative one or an interval one (since the previous interval snapshot),
+ * snapshots of the different histograms can be merged.
+ */
+public class LatencyHistogram
+{
+    private static final int PADDING = 16;
+    private static final int MAX_STRIPES = 16;
+
+    /* Additional counters after the buckets of each stripe */
+    private static final int SUM = 0;
+    private static final int MIN = 1;
+    private static final int MAX = 2;
+
+    private final int m_significantBits;
+    private final int m_buckets;
+    private final int m_stride;
+    private final int m_mask;
+    private final AtomicLongArray m_data;
+    private Snapshot m_lastSnapshot;
+
+    public static class Snapshot
+    {
+        private final int m_significantBits;
+        private final long [] m_counts;
+        private final long m_count;
+        private final long m_sum;
+        private final long m_min;
+        private final long m_max;
+
+        Snapshot(int significantBits, long [] counts, long sum, long min, long max)
+        {
+            long count = 0;
+            for (long c : counts)
+                count += c;
+
+            m_significantBits = significantBits;
+            m_counts = counts;
+            m_count = count;
+            m_sum = sum;
+            m_min = ((count == 0) ? 0 : min);
+            m_max = ((count == 0) ? 0 : max);
+        }
+
+        public final long getCount() { return m_count; }
+        public final long getSum() { return m_sum; }
+        public final long getMin() { return m_min; }
+        public final long getMax() { return m_max; }
+
+        public final double getMean()
+        {
+            return ((m_count == 0) ? 0.0 : ((double) m_sum / m_count));
+        }
+
+        /**
+         * @param percentile percentile in the range [0, 100]
+         * @return the highest value equivalent to the bucket containing the percentile
+         */
+        public final long getValueAtPercentile(double percentile)
+        {
+            if (m_count == 0)
+                return 0;
+
+            long target = (long) Math.ceil((percentile / 100.0) * m_count);
+            if (target < 1)
+                target = 1;
+            else if (target > m_count)
+                target = m_count;
+
+            long count = 0;
+            for (int idx=0; idx<m_counts.length; idx++)
+            {
+                count += m_counts[idx];
+                if (count >= target)
+                {
+                    final long value = getHighValue(m_significantBits, idx);
+                    return ((value < m_max) ? value : m_max);
+                }
+            }
+            return m_max;
+        }
+
+        /**
+         * Merges two snapshots of the histograms
+         * with the same significant bits.
+         * @param snapshot the snapshot to merge with
+         * @return new snapshot
+         */
+        public final Snapshot merge(Snapshot snapshot)
+        {
+            if (snapshot.m_significantBits != m_significantBits)
+                throw new IllegalArgumentException("Different histogram significant bits");
+
+            final long [] counts = new long[m_counts.length];
+            for (int idx=0; idx<counts.length; idx++)
+                counts[idx] = (m_counts[idx] + snapshot.m_counts[idx]);
+
+            final long min;
+            final long max;
+            if (m_count == 0)
+            {
+                min = snapshot.m_min;
+                max = snapshot.m_max;
+            }
+            else if (snapshot.m_count == 0)
+            {
+                min = m_min;
+                max = m_max;
+            }
+            else
+            {
+                min = Math.min(m_min, snapshot.m_min);
+                max = Math.max(m_max, snapshot.m_max);
+            }
+            return new Snapshot(m_significantBits, counts, m_sum+snapshot.m_sum, min, max);
+        }
+
+        /* Interval snapshot does not have exact min and max,
+         * use bucket bounds instead.
+         */
+        Snapshot subtract(Snapshot snapshot)
+        {
+            final long [] counts = new long[m_counts.length];
+            int first = -1;
+            int last = -1;
+            for (int idx=0; idx<counts.length; idx++)
+            {
+                counts[idx] = (m_counts[idx] - snapshot.m_counts[idx]);
+                if (counts[idx] > 0)
+                {
+                    if (first < 0)
+                        first = idx;
+                    last = idx;
+                }
+            }
+
+            long min = 0;
+            long max = 0;
+            if (first >= 0)
+            {
+                min = Math.max(getLowValue(m_significantBits, first), m_min);
+                max = Math.min(getHighValue(m_significantBits, last), m_max);
+            }
+            return new Snapshot(m_significantBits, counts, m_sum-snapshot.m_sum, min, max);
+        }
+
+        public String toString()
+        {
+            return "cnt=" + m_count +
+                   " min=" + m_min +
+                   " avg=" + (long) getMean() +
+                   " p50=" + getValueAtPercentile(50.0) +
+                   " p99=" + getValueAtPercentile(99.0) +
+                   " p99.9=" + getValueAtPercentile(99.9) +
+                   " max=" + m_max;
+        }
+    }
+
+    static int getIndex(int significantBits, long value)
+    {
+        if (value < (1L << significantBits))
+            return (int) value;
+        final int h = (63 - Long.numberOfLeadingZeros(value));
+        final int shift = (h - significantBits + 1);
+        return ((shift << (significantBits - 1)) + (int) (value >> shift));
+    }
+
+    static long getLowValue(int significantBits, int idx)
+    {
+        if (idx < (1 << significantBits))
+            return idx;
+        final int shift = ((idx >> (significantBits - 1)) - 1);
+        final long sub = (idx - (shift << (significantBits - 1)));
+        return (sub << shift);
+    }
+
+    static long getHighValue(int significantBits, int idx)
+    {
+        if (idx < (1 << significantBits))
+            return idx;
+        final int shift = ((idx >> (significantBits - 1)) - 1);
+        final long sub = (idx - (shift << (significantBits - 1)));
+        return (((sub + 1) << shift) - 1);
+    }
+
+    public LatencyHistogram()
+    {
+        this(7, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param significantBits value precision, from 2 to 16 bits
+     * @param stripes expected number of threads recording values at the same time
+     */
+    public LatencyHistogram(int significantBits, int stripes)
+    {
+        if ((significantBits < 2) || (significantBits > 16))
+            throw new IllegalArgumentException("significantBits=" + significantBits);
+
+        if (stripes > MAX_STRIPES)
+            stripes = MAX_STRIPES;
+
+        int size = 1;
+        while (size < stripes)
+            size *= 2;
+
+        m_significantBits = significantBits;
+        m_buckets = (getIndex(significantBits, Long.MAX_VALUE) + 1);
+        m_stride = (m_buckets + 3 + PADDING);
+        m_mask = (size - 1);
+        m_data = new AtomicLongArray(size * m_stride);
+
+        for (int idx=0; idx<size; idx++)
+            m_data.set(idx*m_stride + m_buckets + MIN, Long.MAX_VALUE);
+    }
+
+    public final void record(long value)
+    {
+        record(value, 1);
+    }
+
+    /**
+     * Records the same value <tt>count</tt> times.
+     * @param value value to record
+     * @param count number of times
+     */
+    public final void record(long value, int count)
+    {
+        if (value < 0)
+            value = 0;
+
+        final int stripe = (((int) Thread.currentThread().getId() & m_mask) * m_stride);
+        m_data.getAndAdd(stripe + getIndex(m_significantBits, value), count);
+        m_data.getAndAdd(stripe + m_buckets + SUM, value*count);
+
+        final int minIdx = (stripe + m_buckets + MIN);
+        for (;;)
+        {
+            final long min = m_data.get(minIdx);
+            if (value >= min)
+                break;
+            if (m_data.compareAndSet(minIdx, min, value))
+                break;
+        }
+
+        final int maxIdx = (stripe + m_buckets + MAX);
+        for (;;)
+        {
+            final long max = m_data.get(maxIdx);
+            if (value <= max)
+                break;
+            if (m_data.compareAndSet(maxIdx, max, value))
+                break;
+        }
+    }
+
+    /**
+     * Records the time passed since the given <tt>System.nanoTime()</tt> value.
+     * @param startTime start time
+     */
+    public final void trace(long startTime)
+    {
+        record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return snapshot of all values recorded since the histogram creation
+     */
+    public final Snapshot getSnapshot()
+    {
+        final long [] counts = new long[m_buckets];
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int stripe=0; stripe<m_data.length(); stripe+=m_stride)
+        {
+            for (int idx=0; idx<m_buckets; idx++)
+                counts[idx] += m_data.get(stripe + idx);
+            sum += m_data.get(stripe + m_buckets + SUM);
+            min = Math.min(min, m_data.get(stripe + m_buckets + MIN));
+            max = Math.max(max, m_data.get(stripe + m_buckets + MAX));
+        }
+        return new Snapshot(m_significantBits, counts, sum, min, max);
+    }
+
+    /**
+     * @return snapshot of values recorded since the previous
+     * <tt>getIntervalSnapshot()</tt> call (or histogram creation)
+     */
+    public final synchronized Snapshot getIntervalSnapshot()
+    {
+        final Snapshot snapshot = getSnapshot();
+        final Snapshot ret = ((m_lastSnapshot == null) ? snapshot : snapshot.subtract(m_lastSnapshot));
+        m_lastSnapshot = snapshot;
+        return ret;
+    }
+}
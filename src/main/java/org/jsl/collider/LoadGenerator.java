@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Open loop load generator for the capacity testing.
+ * Opens a number of connections to the server and sends messages
+ * at the fixed target rate regardless of the responses, the server
+ * supposed to reply with one message per request, messages are
+ * framed with 4 bytes length header (including the header itself).
+ * Latency is measured from the time the message was supposed
+ * to be sent, not from the time it was actually sent, so the sender
+ * falling behind the schedule is not hidden (coordinated omission).
+ * <p>
+ * Generator is a client only, it runs on the given collider
+ * and can be used against any server speaking such protocol,
+ * see <tt>tests/src/org/jsl/tests/load_generator</tt> for the example.
+ */
+public class LoadGenerator
+{
+    private static final Logger s_logger = Logger.getLogger(LoadGenerator.class.getName());
+
+    /* Milliseconds */
+    private static final long CONNECT_TIMEOUT = 10000;
+
+    private final Collider m_collider;
+    private final InetSocketAddress m_addr;
+    private final ByteBuffer [] m_messages;
+    private final int m_rate;
+    private final int m_totalMessages;
+    private final int m_warmUpMessages;
+    private final Connection [] m_connections;
+    private final CountDownLatch m_connected;
+    private final CountDownLatch m_done;
+    private final AtomicInteger m_received;
+    /* Replies received plus messages lost with the closed connections */
+    private final AtomicInteger m_completed;
+    private final AtomicInteger m_lost;
+    private final AtomicInteger m_failedConnections;
+    private final LatencyHistogram m_histogram;
+    private long m_startTime;
+    private long m_sendEndTime;
+    private volatile long m_recvEndTime;
+
+    private static class TimeQueue
+    {
+        private long [] m_times;
+        private int m_head;
+        private int m_size;
+        private boolean m_closed;
+
+        TimeQueue()
+        {
+            m_times = new long[1024];
+        }
+
+        /* Returns false if the queue is closed, the reply will never come. */
+        synchronized boolean put(long time)
+        {
+            if (m_closed)
+                return false;
+
+            if (m_size == m_times.length)
+            {
+                final long [] times = new long[m_size * 2];
+                for (int idx=0; idx<m_size; idx++)
+                    times[idx] = m_times[(m_head + idx) % m_size];
+                m_times = times;
+                m_head = 0;
+            }
+            m_times[(m_head + m_size) % m_times.length] = time;
+            m_size++;
+            return true;
+        }
+
+        synchronized long get()
+        {
+            if (m_size == 0)
+                throw new AssertionError();
+            final long ret = m_times[m_head];
+            m_head = ((m_head + 1) % m_times.length);
+            m_size--;
+            return ret;
+        }
+
+        /* Returns the number of messages left without reply. */
+        synchronized int close()
+        {
+            final int ret = m_size;
+            m_closed = true;
+            m_size = 0;
+            return ret;
+        }
+    }
+
+    private static class MessageStream extends StreamDefragger
+    {
+        MessageStream()
+        {
+            super(4);
+        }
+
+        protected int validateHeader(ByteBuffer header)
+        {
+            final int pos = header.position();
+            return header.getInt(pos);
+        }
+    }
+
+    private class Connection extends Connector implements Session.Listener
+    {
+        private final TimeQueue m_sendTimes;
+        private final MessageStream m_stream;
+        private Session m_session;
+        private volatile boolean m_closing;
+        /* Accessed by the sender thread only */
+        private boolean m_sendFailed;
+
+        Connection()
+        {
+            super(m_addr);
+            tcpNoDelay = true;
+            connectTimeout = CONNECT_TIMEOUT;
+            m_sendTimes = new TimeQueue();
+            m_stream = new MessageStream();
+        }
+
+        void send(ByteBuffer msg, long intendedTime)
+        {
+            /* Time should be in the queue before the reply can come. */
+            if (m_sendTimes.put(intendedTime))
+            {
+                /* If the session is closed the time will be
+                 * removed by onConnectionClosed().
+                 */
+                if ((m_session.sendData(msg.duplicate()) < 0) && !m_sendFailed)
+                {
+                    s_logger.warning(m_session.getRemoteAddress() + ": sendData() failed, session closed.");
+                    m_sendFailed = true;
+                }
+            }
+            else
+                onLost(1);
+        }
+
+        void close()
+        {
+            m_closing = true;
+            if (m_session != null)
+                m_session.closeConnection();
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            m_session = session;
+            m_connected.countDown();
+            return this;
+        }
+
+        public void onException(IOException ex)
+        {
+            s_logger.warning(m_addr + ": " + ex + ".");
+            m_failedConnections.incrementAndGet();
+            m_connected.countDown();
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            RetainableByteBuffer msg = m_stream.getNext(data);
+            while (msg != null)
+            {
+                if (msg == StreamDefragger.INVALID_HEADER)
+                {
+                    m_session.closeConnection();
+                    break;
+                }
+
+                final long time = System.nanoTime();
+                final long intendedTime = m_sendTimes.get();
+                final int received = m_received.incrementAndGet();
+                if (received > m_warmUpMessages)
+                    m_histogram.record(time - intendedTime);
+
+                onCompleted(1, time);
+                msg = m_stream.getNext();
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            m_stream.close();
+            final int lost = m_sendTimes.close();
+            if (!m_closing)
+                s_logger.warning(m_session.getRemoteAddress() + ": connection closed, " + lost + " replies lost.");
+            if (lost > 0)
+                onLost(lost);
+        }
+    }
+
+    private void onCompleted(int messages, long time)
+    {
+        if (m_completed.addAndGet(messages) == m_totalMessages)
+        {
+            m_recvEndTime = time;
+            m_done.countDown();
+        }
+    }
+
+    private void onLost(int messages)
+    {
+        m_lost.addAndGet(messages);
+        onCompleted(messages, System.nanoTime());
+    }
+
+    /**
+     * @param collider collider to run connections with
+     * @param addr server address
+     * @param connections number of connections to open
+     * @param messages messages to send, sent one by one round robin
+     * @param rate target rate in messages per second, over all connections
+     * @param duration test duration in seconds
+     * @param warmUp number of seconds at the beginning to exclude from the latency histogram
+     */
+    public LoadGenerator(
+            Collider collider, InetSocketAddress addr, int connections,
+            ByteBuffer [] messages, int rate, int duration, int warmUp)
+    {
+        m_collider = collider;
+        m_addr = addr;
+        m_messages = messages;
+        m_rate = rate;
+        m_totalMessages = (rate * duration);
+        m_warmUpMessages = (rate * warmUp);
+        m_connections = new Connection[connections];
+        m_connected = new CountDownLatch(connections);
+        m_done = new CountDownLatch(1);
+        m_received = new AtomicInteger();
+        m_completed = new AtomicInteger();
+        m_lost = new AtomicInteger();
+        m_failedConnections = new AtomicInteger();
+        m_histogram = new LatencyHistogram();
+    }
+
+    /**
+     * Creates a message of the given length, filled with a pattern.
+     */
+    public static ByteBuffer [] createMessages(int messageLength)
+    {
+        if (messageLength < 4)
+            messageLength = 4;
+        final ByteBuffer msg = ByteBuffer.allocateDirect(messageLength);
+        msg.putInt(messageLength);
+        for (int idx=4; idx<messageLength; idx++)
+            msg.put((byte) idx);
+        msg.flip();
+        return new ByteBuffer [] { msg };
+    }
+
+    /**
+     * Reads messages to replay from the file,
+     * file is a sequence of the messages with 4 bytes length header.
+     */
+    public static ByteBuffer [] readMessages(String fileName) throws IOException
+    {
+        final ArrayList<ByteBuffer> messages = new ArrayList<ByteBuffer>();
+        final DataInputStream input = new DataInputStream(new FileInputStream(fileName));
+        try
+        {
+            for (;;)
+            {
+                final int messageLength;
+                try
+                {
+                    messageLength = input.readInt();
+                }
+                catch (final EOFException ex)
+                {
+                    break;
+                }
+                if (messageLength < 4)
+                    throw new IOException("Invalid message length " + messageLength);
+                final byte [] bytes = new byte[messageLength];
+                input.readFully(bytes, 4, messageLength-4);
+                final ByteBuffer msg = ByteBuffer.allocateDirect(messageLength);
+                msg.put(bytes);
+                msg.putInt(0, messageLength);
+                msg.flip();
+                messages.add(msg);
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+
+        if (messages.isEmpty())
+            throw new IOException("No messages in " + fileName);
+        return messages.toArray(new ByteBuffer[messages.size()]);
+    }
+
+    /**
+     * Connects to the server and sends the messages,
+     * should be called when collider is running,
+     * returns when all messages are sent.
+     * @throws IOException if failed to open any of the connections,
+     *         connections opened successfully are closed then
+     */
+    public void run() throws IOException, InterruptedException
+    {
+        for (int idx=0; idx<m_connections.length; idx++)
+        {
+            m_connections[idx] = new Connection();
+            m_collider.addConnector(m_connections[idx]);
+        }
+        m_connected.await();
+
+        final int failedConnections = m_failedConnections.get();
+        if (failedConnections > 0)
+        {
+            for (Connection connection : m_connections)
+                connection.close();
+            throw new IOException(
+                    "Failed to open " + failedConnections + " of " + m_connections.length + " connections");
+        }
+
+        final double interval = (1000000000.0 / m_rate);
+        m_startTime = System.nanoTime();
+        for (int idx=0; idx<m_totalMessages; idx++)
+        {
+            final long intendedTime = (m_startTime + (long) (idx * interval));
+            for (;;)
+            {
+                final long delay = (intendedTime - System.nanoTime());
+                if (delay <= 0)
+                    break;
+                /* Do not spin, the sender should not steal CPU from the collider. */
+                if (delay > 20000)
+                    LockSupport.parkNanos(delay);
+                else
+                    Thread.yield();
+            }
+
+            final Connection connection = m_connections[idx % m_connections.length];
+            connection.send(m_messages[idx % m_messages.length], intendedTime);
+        }
+        m_sendEndTime = System.nanoTime();
+    }
+
+    /**
+     * Waits for all replies and closes the connections.
+     * Messages sent to the connection closed during the test
+     * are counted as lost and not waited for.
+     * @return true if all replies have been received or lost
+     */
+    public boolean waitDone(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        final boolean ret = m_done.await(timeout, unit);
+        for (Connection connection : m_connections)
+            connection.close();
+        return ret;
+    }
+
+    public LatencyHistogram.Snapshot getSnapshot()
+    {
+        return m_histogram.getSnapshot();
+    }
+
+    public String getReport()
+    {
+        final LatencyHistogram.Snapshot snapshot = m_histogram.getSnapshot();
+        final double sendTime = ((m_sendEndTime - m_startTime) / 1000000000.0);
+        final long recvEndTime = m_recvEndTime;
+        final int received = m_received.get();
+        final int lost = m_lost.get();
+        final StringBuilder sb = new StringBuilder();
+        sb.append(m_connections.length).append(" connections, target ");
+        sb.append(m_rate).append(" msgs/sec, sent ");
+        sb.append(m_totalMessages).append(" messages at ");
+        sb.append((int) (m_totalMessages / sendTime)).append(" msgs/sec, received ");
+        sb.append(received).append(" messages");
+        if (recvEndTime != 0)
+        {
+            final double recvTime = ((recvEndTime - m_startTime) / 1000000000.0);
+            sb.append(" at ").append((int) (received / recvTime)).append(" msgs/sec");
+        }
+        if (lost > 0)
+            sb.append(", lost ").append(lost).append(" messages");
+        sb.append(".\nLatency: p50=").append(snapshot.getValueAtPercentile(50.0) / 1000);
+        sb.append(" p90=").append(snapshot.getValueAtPercentile(90.0) / 1000);
+        sb.append(" p99=").append(snapshot.getValueAtPercentile(99.0) / 1000);
+        sb.append(" p99.9=").append(snapshot.getValueAtPercentile(99.9) / 1000);
+        sb.append(" max=").append(snapshot.getMax() / 1000).append(" usec");
+        return sb.toString();
+    }
+}
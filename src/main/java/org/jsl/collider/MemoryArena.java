@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap memory arena based on the <tt>java.lang.foreign</tt> API.
+ * Memory is allocated in big slabs, callers get <tt>ByteBuffer</tt> views
+ * of the slabs, all the memory is released at once on <tt>close()</tt>,
+ * without waiting for the garbage collector. Any access to the buffers
+ * allocated from the arena after <tt>close()</tt> throws
+ * <tt>IllegalStateException</tt>.
+ * <p>
+ * The <tt>java.lang.foreign</tt> API is accessed via method handles,
+ * so the class can be loaded by any JVM, but the arena is available
+ * only on JDK 21 or later, see {@link #isSupported()}.
+ */
+public class MemoryArena
+{
+    /* Align all allocations by the cache line size. */
+    private static final int ALIGNMENT = 64;
+
+    private static final MethodHandle s_ofShared;
+    private static final MethodHandle s_allocate;
+    private static final MethodHandle s_asByteBuffer;
+    private static final MethodHandle s_close;
+
+    static
+    {
+        MethodHandle ofShared = null;
+        MethodHandle allocate = null;
+        MethodHandle asByteBuffer = null;
+        MethodHandle close = null;
+        try
+        {
+            final Class<?> arenaClass = Class.forName("java.lang.foreign.Arena");
+            final Class<?> segmentClass = Class.forName("java.lang.foreign.MemorySegment");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            ofShared = lookup.findStatic(arenaClass, "ofShared", MethodType.methodType(arenaClass));
+            allocate = lookup.findVirtual(arenaClass, "allocate",
+                    MethodType.methodType(segmentClass, long.class, long.class));
+            asByteBuffer = lookup.findVirtual(segmentClass, "asByteBuffer", MethodType.methodType(ByteBuffer.class));
+            close = lookup.findVirtual(arenaClass, "close", MethodType.methodType(void.class));
+        }
+        catch (final Exception ex)
+        {
+            /* java.lang.foreign is not available */
+            ofShared = null;
+        }
+        s_ofShared = ofShared;
+        s_allocate = allocate;
+        s_asByteBuffer = asByteBuffer;
+        s_close = close;
+    }
+
+    private static RuntimeException rethrow(Throwable ex)
+    {
+        if (ex instanceof RuntimeException)
+            return (RuntimeException) ex;
+        if (ex instanceof Error)
+            throw (Error) ex;
+        return new RuntimeException(ex);
+    }
+
+    private final Object m_arena;
+    private final int m_slabSize;
+    private final ReentrantLock m_lock;
+    private ByteBuffer m_slab;
+    private long m_allocatedSize;
+    private boolean m_closed;
+
+    private MemoryArena(Object arena, int slabSize)
+    {
+        m_arena = arena;
+        m_slabSize = slabSize;
+        m_lock = new ReentrantLock();
+    }
+
+    private ByteBuffer allocateSegment(int size)
+    {
+        try
+        {
+            final Object segment = s_allocate.invoke(m_arena, (long) size, (long) ALIGNMENT);
+            final ByteBuffer ret = (ByteBuffer) s_asByteBuffer.invoke(segment);
+            m_allocatedSize += size;
+            return ret;
+        }
+        catch (final Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    public static boolean isSupported()
+    {
+        return (s_ofShared != null);
+    }
+
+    /**
+     * Creates a new arena.
+     * @param slabSize size of the memory slab the arena will allocate at once
+     * @return new arena or null if <tt>java.lang.foreign</tt> API is not available
+     */
+    public static MemoryArena create(int slabSize)
+    {
+        if (s_ofShared == null)
+            return null;
+
+        try
+        {
+            return new MemoryArena(s_ofShared.invoke(), slabSize);
+        }
+        catch (final Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Allocates a direct <tt>ByteBuffer</tt> of the given capacity.
+     * Memory can not be released separately, it will be released
+     * only on arena close, so allocated buffers supposed to be reused.
+     * Buffers larger than the slab size get a dedicated memory segment.
+     * @param capacity buffer capacity
+     * @return the new buffer with big endian byte order
+     */
+    public final ByteBuffer allocate(int capacity)
+    {
+        m_lock.lock();
+        try
+        {
+            if (m_closed)
+                throw new IllegalStateException("Arena already closed.");
+
+            if (capacity > m_slabSize)
+                return allocateSegment(capacity);
+
+            final int reservedSize = ((capacity + ALIGNMENT - 1) & -ALIGNMENT);
+            if ((m_slab == null) || (m_slab.remaining() < capacity))
+                m_slab = allocateSegment(m_slabSize);
+
+            final int position = m_slab.position();
+            final ByteBuffer dup = m_slab.duplicate();
+            dup.limit(position + capacity);
+
+            final int newPosition = (position + reservedSize);
+            m_slab.position((newPosition < m_slabSize) ? newPosition : m_slabSize);
+            return dup.slice();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return total size of the memory allocated by the arena
+     */
+    public final long getAllocatedSize()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_allocatedSize;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Releases all memory allocated by the arena.
+     */
+    public final void close()
+    {
+        m_lock.lock();
+        try
+        {
+            if (m_closed)
+                return;
+            m_closed = true;
+            m_slab = null;
+            s_close.invoke(m_arena);
+        }
+        catch (final Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+}
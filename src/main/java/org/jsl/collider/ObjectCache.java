@@ -23,15 +23,15 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public abstract class ObjectCache<TYPE>
+public abstract class ObjectCache<TYPE> implements CacheMXBean
 {
     private final String m_name;
     private final ReentrantLock m_lock;
     private final TYPE [] m_cache;
     private int m_size;
-    private int m_gets;
-    private int m_puts;
-    private int m_miss;
+    private long m_gets;
+    private long m_puts;
+    private long m_miss;
 
     protected abstract TYPE allocateObject();
 
@@ -86,6 +86,63 @@ public abstract class ObjectCache<TYPE>
         return allocateObject();
     }
 
+    public final int getSize()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_size;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public final int getMaxSize()
+    {
+        return m_cache.length;
+    }
+
+    public final long getGets()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_gets;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public final long getPuts()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_puts;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public final long getMisses()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_miss;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
     public void clear(Logger logger)
     {
         for (int idx=0; idx<m_size; idx++)
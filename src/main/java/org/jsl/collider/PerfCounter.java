@@ -19,76 +19,39 @@
 
 package org.jsl.collider;
 
-import java.util.concurrent.atomic.AtomicLongArray;
-
 public class PerfCounter
 {
-    /* 0 - min
-     * 1 - avg
-     * 2 - max
-     * 3 - sum
-     */
     private final String m_name;
-    private final AtomicLongArray m_data;
+    private final LatencyHistogram m_histogram;
 
     public PerfCounter( String name )
     {
         m_name = name;
-        m_data = new AtomicLongArray(4);
-        m_data.set( 0, Long.MAX_VALUE );
+        m_histogram = new LatencyHistogram();
     }
 
     public final void trace( long startTime )
     {
-        final long delay = (System.nanoTime() - startTime);
-
-        for (;;)
-        {
-            long min = m_data.get(0);
-            if (delay >= min)
-                break;
-            if (m_data.compareAndSet(0, min, delay))
-                break;
-        }
-
-        for (;;)
-        {
-            final long avg = m_data.get(1);
-            long cnt = (avg >> 32);
-            long newAvg = cnt * (avg & 0xFFFFFFFFL) + delay;
-            cnt++;
-            newAvg /= cnt;
-            newAvg &= 0xFFFFFFFFL;
-            newAvg |= (cnt << 32);
-            if (m_data.compareAndSet(1, avg, newAvg))
-                break;
-        }
-
-        for (;;)
-        {
-            long max = m_data.get(2);
-            if (delay <= max)
-                break;
-            if (m_data.compareAndSet(2, max, delay))
-                break;
-        }
+        m_histogram.trace( startTime );
+    }
 
-        for (;;)
-        {
-            long total = m_data.get(3);
-            if (m_data.compareAndSet(3, total, total+delay))
-                break;
-        }
+    public final LatencyHistogram getHistogram()
+    {
+        return m_histogram;
     }
 
     public final String getStats()
     {
+        final LatencyHistogram.Snapshot snapshot = m_histogram.getSnapshot();
         String str = m_name;
-        str += ": min=" + formatUsec( m_data.get(0)/1000 );
-        str += " avg=" + formatUsec( (m_data.get(1) & 0xFFFFFFFFL) / 1000 );
-        str += " max=" + formatUsec( m_data.get(2)/1000 );
-        str += " sum=" + formatUsec( m_data.get(3)/1000 );
-        str += " cnt=" + (m_data.get(1) >> 32);
+        str += ": min=" + formatUsec( snapshot.getMin()/1000 );
+        str += " avg=" + formatUsec( (long) snapshot.getMean() / 1000 );
+        str += " p50=" + formatUsec( snapshot.getValueAtPercentile(50.0)/1000 );
+        str += " p99=" + formatUsec( snapshot.getValueAtPercentile(99.0)/1000 );
+        str += " p99.9=" + formatUsec( snapshot.getValueAtPercentile(99.9)/1000 );
+        str += " max=" + formatUsec( snapshot.getMax()/1000 );
+        str += " sum=" + formatUsec( snapshot.getSum()/1000 );
+        str += " cnt=" + snapshot.getCount();
         return str;
     }
 
@@ -107,6 +107,30 @@ public abstract class RetainableByteBuffer
         }
     }
 
+    /* Retains the buffer for several owners at once,
+     * caller should already own a reference, see SessionGroup.
+     */
+    final void retain(int count)
+    {
+        final int retainCount = s_retainCountUpdater.getAndAdd(this, count);
+        assert(retainCount > 0);
+    }
+
+    final void release(int count)
+    {
+        for (;;)
+        {
+            final int retainCount = s_retainCountUpdater.get(this);
+            assert(retainCount >= count);
+            if (s_retainCountUpdater.compareAndSet(this, retainCount, retainCount-count))
+            {
+                if (retainCount == count)
+                    finalRelease();
+                break;
+            }
+        }
+    }
+
     public final boolean releaseReuse()
     {
         for (;;)
@@ -146,6 +170,8 @@ public abstract class RetainableByteBuffer
 
     /*
      * NIO ByteBuffer interface mimic.
+     * Relative operations are not final
+     * to let CompositeRetainableByteBuffer override them.
      */
 
     public ByteOrder order() { return m_buf.order(); }
@@ -154,7 +180,7 @@ public abstract class RetainableByteBuffer
     public abstract int capacity();
     public abstract RetainableByteBuffer clear();
 
-    public final RetainableByteBuffer duplicate()
+    public RetainableByteBuffer duplicate()
     {
         retain();
         return new Slice(m_buf.duplicate(), this);
@@ -169,18 +195,18 @@ public abstract class RetainableByteBuffer
     public abstract int position();
     public abstract RetainableByteBuffer position( int position );
 
-    public final int remaining()
+    public int remaining()
     {
         return m_buf.remaining();
     }
 
-    public final RetainableByteBuffer reset()
+    public RetainableByteBuffer reset()
     {
         m_buf.reset();
         return this;
     }
 
-    public final RetainableByteBuffer slice()
+    public RetainableByteBuffer slice()
     {
         retain();
         return new Slice(m_buf.slice(), this);
@@ -204,12 +230,12 @@ public abstract class RetainableByteBuffer
     public abstract double getDouble(int index);
     public abstract RetainableByteBuffer putDouble(int index, double value);
 
-    public final byte get()
+    public byte get()
     {
         return m_buf.get();
     }
 
-    public final RetainableByteBuffer get(ByteBuffer dst)
+    public RetainableByteBuffer get(ByteBuffer dst)
     {
         dst.put(m_buf);
         return this;
@@ -220,27 +246,28 @@ public abstract class RetainableByteBuffer
         return get( dst, 0, dst.length );
     }
 
-    public final RetainableByteBuffer get( byte [] dst, int offset, int length )
+    public RetainableByteBuffer get( byte [] dst, int offset, int length )
     {
         m_buf.get( dst, offset, length );
         return this;
     }
 
-    public final RetainableByteBuffer put(byte value)
+    public RetainableByteBuffer put(byte value)
     {
         m_buf.put(value);
         return this;
     }
 
-    public final RetainableByteBuffer put( ByteBuffer src )
+    public RetainableByteBuffer put( ByteBuffer src )
     {
         m_buf.put( src );
         return this;
     }
 
-    public final RetainableByteBuffer put( RetainableByteBuffer src )
+    public RetainableByteBuffer put( RetainableByteBuffer src )
     {
-        m_buf.put( src.m_buf );
+        /* Source can be a composite buffer, let it copy the data. */
+        src.get( m_buf );
         return this;
     }
 
@@ -249,63 +276,63 @@ public abstract class RetainableByteBuffer
         return put( src, 0, src.length );
     }
 
-    public final RetainableByteBuffer put(byte [] src, int offset, int length)
+    public RetainableByteBuffer put(byte [] src, int offset, int length)
     {
         m_buf.put(src, offset, length);
         return this;
     }
 
-    public final RetainableByteBuffer putShort(short value)
+    public RetainableByteBuffer putShort(short value)
     {
         m_buf.putShort(value);
         return this;
     }
 
-    public final short getShort()
+    public short getShort()
     {
         return m_buf.getShort();
     }
 
-    public final RetainableByteBuffer putInt(int value)
+    public RetainableByteBuffer putInt(int value)
     {
         m_buf.putInt(value);
         return this;
     }
 
-    public final int getInt()
+    public int getInt()
     {
         return m_buf.getInt();
     }
 
-    public final RetainableByteBuffer putLong(long value)
+    public RetainableByteBuffer putLong(long value)
     {
         m_buf.putLong(value);
         return this;
     }
 
-    public final long getLong()
+    public long getLong()
     {
         return m_buf.getLong();
     }
 
-    public final RetainableByteBuffer putFloat( float value )
+    public RetainableByteBuffer putFloat( float value )
     {
         m_buf.putFloat( value );
         return this;
     }
 
-    public final float getFloat()
+    public float getFloat()
     {
         return m_buf.getFloat();
     }
 
-    public final RetainableByteBuffer putDouble( double value )
+    public RetainableByteBuffer putDouble( double value )
     {
         m_buf.putDouble( value );
         return this;
     }
 
-    public final double getDouble()
+    public double getDouble()
     {
         return m_buf.getDouble();
     }
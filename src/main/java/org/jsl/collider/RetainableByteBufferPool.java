@@ -22,11 +22,12 @@ package org.jsl.collider;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class RetainableByteBufferPool
+public class RetainableByteBufferPool implements CacheMXBean
 {
     private static class Chunk
     {
@@ -94,31 +95,48 @@ public class RetainableByteBufferPool
         private final static AtomicReferenceFieldUpdater<ChunkCache, Chunk> s_tailUpdater =
                 AtomicReferenceFieldUpdater.newUpdater(ChunkCache.class, Chunk.class, "m_tail");
 
+        private final static AtomicLongFieldUpdater<ChunkCache> s_getsUpdater =
+                AtomicLongFieldUpdater.newUpdater(ChunkCache.class, "m_gets");
+
+        private final static AtomicLongFieldUpdater<ChunkCache> s_missesUpdater =
+                AtomicLongFieldUpdater.newUpdater(ChunkCache.class, "m_misses");
+
+        private final static AtomicLongFieldUpdater<ChunkCache> s_putsUpdater =
+                AtomicLongFieldUpdater.newUpdater(ChunkCache.class, "m_puts");
+
         private final int m_bufferCapacity;
         private final boolean m_useDirectBuffer;
+        private final MemoryArena m_arena;
+        private final boolean m_preTouch;
         private final ByteOrder m_byteOrder;
         private final int m_maxSize;
         private final int m_initialSize;
         private Chunk m_head;
         private volatile Chunk m_tail;
         private volatile int m_size;
+        private volatile long m_gets;
+        private volatile long m_misses;
+        private volatile long m_puts;
 
-        ChunkCache(int bufferCapacity, boolean useDirectBuffer, ByteOrder byteOrder, int maxSize, int initialSize)
+        ChunkCache(int bufferCapacity, boolean useDirectBuffer, MemoryArena arena, boolean preTouch,
+                   ByteOrder byteOrder, int maxSize, int initialSize)
         {
             m_bufferCapacity = bufferCapacity;
             m_useDirectBuffer = useDirectBuffer;
+            m_arena = arena;
+            m_preTouch = preTouch;
             m_byteOrder = byteOrder;
             m_maxSize = maxSize;
             m_initialSize = ((initialSize < maxSize) ? initialSize : maxSize);
 
             if (m_initialSize > 0)
             {
-                Chunk head = alloc(m_useDirectBuffer, m_bufferCapacity, m_byteOrder, this);
+                Chunk head = allocChunk();
                 Chunk tail = head;
                 int cc = (m_initialSize - 1);
                 for (; cc>0; cc--)
                 {
-                    final Chunk chunk = alloc(m_useDirectBuffer, m_bufferCapacity, m_byteOrder, this);
+                    final Chunk chunk = allocChunk();
                     Chunk.lazySetNext(tail, chunk);
                     tail = chunk;
                 }
@@ -128,8 +146,23 @@ public class RetainableByteBufferPool
             }
         }
 
+        private Chunk allocChunk()
+        {
+            final ByteBuffer byteBuffer =
+                    (m_arena != null) ? m_arena.allocate(m_bufferCapacity) :
+                    m_useDirectBuffer ? ByteBuffer.allocateDirect(m_bufferCapacity)
+                                      : ByteBuffer.allocate(m_bufferCapacity);
+            if (m_preTouch)
+                Util.preTouch(byteBuffer);
+            byteBuffer.order(m_byteOrder);
+            return new Chunk(this, byteBuffer);
+        }
+
         Chunk alloc(int size)
         {
+            /* Chunk for one big buffer is not reused,
+             * so it is never allocated from the arena.
+             */
             return alloc(m_useDirectBuffer, size, m_byteOrder, null);
         }
 
@@ -145,9 +178,14 @@ public class RetainableByteBufferPool
 
         Chunk get()
         {
+            /* Chunk switch is rare enough to use a plain atomic counters. */
+            s_getsUpdater.incrementAndGet(this);
             final Chunk chunk = m_head;
             if (chunk == null)
-                return alloc(m_useDirectBuffer, m_bufferCapacity, m_byteOrder, this);
+            {
+                s_missesUpdater.incrementAndGet(this);
+                return allocChunk();
+            }
 
             Chunk next = Chunk.getNext(chunk);
             if (next == null)
@@ -172,10 +210,14 @@ public class RetainableByteBufferPool
 
         public void put(Chunk chunk)
         {
+            s_putsUpdater.incrementAndGet(this);
             for (;;)
             {
                 final int size = s_sizeUpdater.get(this);
-                if (size == m_maxSize)
+                /* Arena memory can not be released separately,
+                 * so keep all chunks allocated from the arena.
+                 */
+                if ((size == m_maxSize) && (m_arena == null))
                     return;
                 if (s_sizeUpdater.compareAndSet(this, size, size+1))
                     break;
@@ -188,6 +230,31 @@ public class RetainableByteBufferPool
                 Chunk.s_nextUpdater.set(tail, chunk);
         }
 
+        long getGets()
+        {
+            return m_gets;
+        }
+
+        long getMisses()
+        {
+            return m_misses;
+        }
+
+        long getPuts()
+        {
+            return m_puts;
+        }
+
+        int getSize()
+        {
+            return m_size;
+        }
+
+        int getMaxSize()
+        {
+            return m_maxSize;
+        }
+
         public void release(Logger logger)
         {
             final int size = s_sizeUpdater.get(this);
@@ -388,9 +455,26 @@ public class RetainableByteBufferPool
     }
 
     public RetainableByteBufferPool(int chunkSize, boolean useDirectBuffers, ByteOrder byteOrder, int maxCacheSize, int initialCacheSize)
+    {
+        this(chunkSize, useDirectBuffers, null, byteOrder, maxCacheSize, initialCacheSize, false);
+    }
+
+    /* Pool allocating chunks from the memory arena,
+     * arena should be closed by the owner after pool release.
+     */
+    public RetainableByteBufferPool(int chunkSize, MemoryArena arena, ByteOrder byteOrder, int maxCacheSize, int initialCacheSize)
+    {
+        this(chunkSize, true, arena, byteOrder, maxCacheSize, initialCacheSize, false);
+    }
+
+    /* With <preTouch> set all memory pages of each new chunk
+     * are touched on allocation.
+     */
+    public RetainableByteBufferPool(int chunkSize, boolean useDirectBuffers, MemoryArena arena, ByteOrder byteOrder,
+                                    int maxCacheSize, int initialCacheSize, boolean preTouch)
     {
         m_chunkSize = chunkSize;
-        m_cache = new ChunkCache(chunkSize, useDirectBuffers, byteOrder, maxCacheSize, initialCacheSize);
+        m_cache = new ChunkCache(chunkSize, useDirectBuffers, arena, preTouch, byteOrder, maxCacheSize, initialCacheSize);
         m_chunk = m_cache.get();
     }
 
@@ -499,6 +583,33 @@ public class RetainableByteBufferPool
         return alloc(size, size);
     }
 
+    /* CacheMXBean, all values are related to the chunks. */
+
+    public final int getSize()
+    {
+        return m_cache.getSize();
+    }
+
+    public final int getMaxSize()
+    {
+        return m_cache.getMaxSize();
+    }
+
+    public final long getGets()
+    {
+        return m_cache.getGets();
+    }
+
+    public final long getPuts()
+    {
+        return m_cache.getPuts();
+    }
+
+    public final long getMisses()
+    {
+        return m_cache.getMisses();
+    }
+
     public void release(Logger logger)
     {
         final int state = s_stateUpdater.get(this);
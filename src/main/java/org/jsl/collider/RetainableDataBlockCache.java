@@ -24,17 +24,20 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class RetainableDataBlockCache
+public class RetainableDataBlockCache implements CacheMXBean
 {
     private final boolean m_useDirectBuffers;
+    private final MemoryArena m_arena;
     private final int m_blockSize;
     private final ByteOrder m_byteOrder;
-    private final int m_maxSize;
+    private int m_maxSize;
+    private final boolean m_preTouch;
     private final ReentrantLock m_lock;
     private RetainableDataBlock m_dataBlock;
     private int m_size;
-    private int m_gets;
-    private int m_puts;
+    private long m_gets;
+    private long m_puts;
+    private long m_misses;
 
     private static class DataBlockImpl extends RetainableDataBlock
     {
@@ -56,8 +59,11 @@ public class RetainableDataBlockCache
     private RetainableDataBlock createDataBlock()
     {
         final ByteBuffer byteBuffer =
+                (m_arena != null) ? m_arena.allocate(m_blockSize) :
                 m_useDirectBuffers ? ByteBuffer.allocateDirect(m_blockSize)
                                    : ByteBuffer.allocate(m_blockSize);
+        if (m_preTouch)
+            Util.preTouch(byteBuffer);
         byteBuffer.order(m_byteOrder);
         return new DataBlockImpl(byteBuffer, this);
     }
@@ -68,7 +74,10 @@ public class RetainableDataBlockCache
         try
         {
             m_puts++;
-            if (m_size < m_maxSize)
+            /* Arena memory can not be released separately,
+             * so keep all blocks allocated from the arena.
+             */
+            if ((m_size < m_maxSize) || (m_arena != null))
             {
                 dataBlock.next = m_dataBlock;
                 m_dataBlock = dataBlock;
@@ -82,11 +91,28 @@ public class RetainableDataBlockCache
     }
 
     public RetainableDataBlockCache(boolean useDirectBuffers, int blockSize, ByteOrder byteOrder, int maxSize, int initialSize)
+    {
+        this(useDirectBuffers, null, blockSize, byteOrder, maxSize, initialSize, false);
+    }
+
+    public RetainableDataBlockCache(MemoryArena arena, int blockSize, ByteOrder byteOrder, int maxSize, int initialSize)
+    {
+        this(true, arena, blockSize, byteOrder, maxSize, initialSize, false);
+    }
+
+    /* With <preTouch> set all memory pages of each new block
+     * are touched on allocation.
+     */
+    public RetainableDataBlockCache(
+            boolean useDirectBuffers, MemoryArena arena, int blockSize, ByteOrder byteOrder,
+            int maxSize, int initialSize, boolean preTouch)
     {
         m_useDirectBuffers = useDirectBuffers;
+        m_arena = arena;
         m_blockSize = blockSize;
         m_byteOrder = byteOrder;
         m_maxSize = maxSize;
+        m_preTouch = preTouch;
         m_lock = new ReentrantLock();
         m_dataBlock = null;
         m_size = initialSize;
@@ -134,6 +160,8 @@ public class RetainableDataBlockCache
                 }
                 m_dataBlock = null;
             }
+            /* Rest of the blocks will be allocated. */
+            m_misses += cnt;
         }
         finally
         {
@@ -157,6 +185,106 @@ public class RetainableDataBlockCache
         return ret;
     }
 
+    public final int getSize()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_size;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public final int getMaxSize()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_maxSize;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the maximum cache size at runtime,
+     * blocks over the new maximum size are dropped.
+     * @param maxSize new maximum cache size
+     */
+    public final void setMaxSize(int maxSize)
+    {
+        m_lock.lock();
+        try
+        {
+            m_maxSize = maxSize;
+            /* Arena blocks are never dropped, see put(). */
+            if (m_arena == null)
+            {
+                while (m_size > maxSize)
+                {
+                    final RetainableDataBlock dataBlock = m_dataBlock;
+                    m_dataBlock = dataBlock.next;
+                    dataBlock.next = null;
+                    m_size--;
+                }
+            }
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return amount of data blocks taken from the cache
+     */
+    public final long getGets()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_gets;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    public final long getPuts()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_puts;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return amount of data blocks allocated because the cache was empty
+     */
+    public final long getMisses()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_misses;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
     public final RetainableDataBlock getByDataSize( int dataSize )
     {
         int blocks = (dataSize / m_blockSize);
@@ -186,7 +314,7 @@ public class RetainableDataBlockCache
             }
         }
 
-        if (size > m_maxSize)
+        if ((size > m_maxSize) && (m_arena == null))
         {
             if (logger.isLoggable(Level.WARNING))
             {
@@ -213,5 +341,6 @@ public class RetainableDataBlockCache
         m_size = 0;
         m_gets = 0;
         m_puts = 0;
+        m_misses = 0;
     }
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.io.IOException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Array backed set of the selected keys.
+ * <p>
+ * Can be installed into the JDK selector instead of the <tt>HashSet</tt>
+ * it uses for the selected keys (see {@link #install(Selector)}),
+ * or filled by the <tt>Selector.select(Consumer)</tt> API available
+ * since JDK 11 (see {@link #select(Selector)}). In both cases the keys
+ * are taken from the plain array without any iterator allocation
+ * and without hashing.
+ * <p>
+ * <tt>Consumer</tt> API is accessed through the method handles only,
+ * so the class still can be compiled and loaded by JDK 1.7.
+ * <p>
+ * The set does not check for duplicates, <tt>contains()</tt>
+ * always returns <tt>false</tt>. Supposed to be used by one thread.
+ */
+public final class SelectedSelectionKeySet extends AbstractSet<SelectionKey>
+{
+    private static final Class<?> s_selectorImplClass;
+
+    /* (SelectedSelectionKeySet)Object, creates a Consumer calling accept() */
+    private static final MethodHandle s_consumerFactory;
+    /* (Selector, Object)int */
+    private static final MethodHandle s_select;
+    private static final MethodHandle s_selectNow;
+
+    static
+    {
+        Class<?> selectorImplClass;
+        try
+        {
+            selectorImplClass = Class.forName(
+                    "sun.nio.ch.SelectorImpl", false, ClassLoader.getSystemClassLoader());
+        }
+        catch (final Throwable ex)
+        {
+            selectorImplClass = null;
+        }
+        s_selectorImplClass = selectorImplClass;
+
+        MethodHandle consumerFactory = null;
+        MethodHandle select = null;
+        MethodHandle selectNow = null;
+        try
+        {
+            final Class<?> consumerClass = Class.forName("java.util.function.Consumer");
+            final MethodHandles.Lookup publicLookup = MethodHandles.publicLookup();
+            final MethodType selectType = MethodType.methodType(int.class, Selector.class, Object.class);
+            select = publicLookup.findVirtual(Selector.class, "select",
+                    MethodType.methodType(int.class, consumerClass)).asType(selectType);
+            selectNow = publicLookup.findVirtual(Selector.class, "selectNow",
+                    MethodType.methodType(int.class, consumerClass)).asType(selectType);
+
+            /* The same way javac implements a method reference,
+             * so the consumer is a plain class, not a proxy.
+             */
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodHandle metafactory = publicLookup.findStatic(
+                    Class.forName("java.lang.invoke.LambdaMetafactory"), "metafactory",
+                    MethodType.methodType(CallSite.class, MethodHandles.Lookup.class, String.class,
+                            MethodType.class, MethodType.class, MethodHandle.class, MethodType.class));
+            final CallSite callSite = (CallSite) metafactory.invoke(
+                    lookup, "accept",
+                    MethodType.methodType(consumerClass, SelectedSelectionKeySet.class),
+                    MethodType.methodType(void.class, Object.class),
+                    lookup.findVirtual(SelectedSelectionKeySet.class, "accept",
+                            MethodType.methodType(void.class, SelectionKey.class)),
+                    MethodType.methodType(void.class, SelectionKey.class));
+            consumerFactory = callSite.getTarget().asType(
+                    MethodType.methodType(Object.class, SelectedSelectionKeySet.class));
+        }
+        catch (final Throwable ex)
+        {
+            /* JDK 10 or earlier */
+            consumerFactory = null;
+        }
+        s_consumerFactory = consumerFactory;
+        s_select = select;
+        s_selectNow = selectNow;
+    }
+
+    private SelectionKey [] m_keys;
+    private int m_size;
+    private Object m_consumer;
+
+    public SelectedSelectionKeySet()
+    {
+        m_keys = new SelectionKey[1024];
+    }
+
+    private static IOException rethrow(Throwable ex)
+    {
+        if (ex instanceof IOException)
+            return (IOException) ex;
+        if (ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        if (ex instanceof Error)
+            throw (Error) ex;
+        return new IOException(ex);
+    }
+
+    private Object getConsumer() throws IOException
+    {
+        if (m_consumer == null)
+        {
+            try
+            {
+                m_consumer = (Object) s_consumerFactory.invokeExact(this);
+            }
+            catch (final Throwable ex)
+            {
+                throw rethrow(ex);
+            }
+        }
+        return m_consumer;
+    }
+
+    /**
+     * Replaces the selected keys set of the selector with a new
+     * <tt>SelectedSelectionKeySet</tt> instance. Requires access
+     * to the JDK internal <tt>sun.nio.ch</tt> package, on JDK 9 or later
+     * it means <tt>--add-opens java.base/sun.nio.ch=ALL-UNNAMED</tt>.
+     * @return installed set or <tt>null</tt> if it is not possible
+     */
+    public static SelectedSelectionKeySet install(Selector selector)
+    {
+        if ((s_selectorImplClass == null) || !s_selectorImplClass.isInstance(selector))
+            return null;
+
+        try
+        {
+            final Field selectedKeysField = s_selectorImplClass.getDeclaredField("selectedKeys");
+            final Field publicSelectedKeysField = s_selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+
+            final SelectedSelectionKeySet keySet = new SelectedSelectionKeySet();
+            selectedKeysField.set(selector, keySet);
+            publicSelectedKeysField.set(selector, keySet);
+            return keySet;
+        }
+        catch (final Throwable ex)
+        {
+            /* Reflection is not allowed (InaccessibleObjectException)
+             * or the selector implementation is different.
+             */
+            return null;
+        }
+    }
+
+    /**
+     * @return true if <tt>Selector.select(Consumer)</tt> API is available
+     */
+    public static boolean isConsumerSupported()
+    {
+        return (s_consumerFactory != null);
+    }
+
+    /**
+     * Calls <tt>selector.select(Consumer)</tt> adding selected keys to the set,
+     * supposed to be used only if {@link #isConsumerSupported()} returns true.
+     */
+    public int select(Selector selector) throws IOException
+    {
+        final Object consumer = getConsumer();
+        try
+        {
+            return (int) s_select.invokeExact(selector, consumer);
+        }
+        catch (final Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Calls <tt>selector.selectNow(Consumer)</tt> adding selected keys to the set,
+     * supposed to be used only if {@link #isConsumerSupported()} returns true.
+     */
+    public int selectNow(Selector selector) throws IOException
+    {
+        final Object consumer = getConsumer();
+        try
+        {
+            return (int) s_selectNow.invokeExact(selector, consumer);
+        }
+        catch (final Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    public boolean add(SelectionKey key)
+    {
+        if (key == null)
+            return false;
+
+        if (m_size == m_keys.length)
+        {
+            final SelectionKey [] keys = new SelectionKey[m_size * 2];
+            System.arraycopy(m_keys, 0, keys, 0, m_size);
+            m_keys = keys;
+        }
+        m_keys[m_size++] = key;
+        return true;
+    }
+
+    private void accept(SelectionKey key)
+    {
+        add(key);
+    }
+
+    public boolean contains(Object obj)
+    {
+        return false;
+    }
+
+    public boolean remove(Object obj)
+    {
+        return false;
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    /**
+     * Returns the key at the index and clears the slot,
+     * so the array does not keep the key after processing.
+     */
+    public SelectionKey take(int idx)
+    {
+        final SelectionKey key = m_keys[idx];
+        m_keys[idx] = null;
+        return key;
+    }
+
+    /**
+     * Resets the size, supposed to be called after all keys
+     * are taken with {@link #take(int)}.
+     */
+    public void reset()
+    {
+        m_size = 0;
+    }
+
+    public void clear()
+    {
+        for (int idx=0; idx<m_size; idx++)
+            m_keys[idx] = null;
+        m_size = 0;
+    }
+
+    public Iterator<SelectionKey> iterator()
+    {
+        return new Iterator<SelectionKey>()
+        {
+            private int m_idx;
+
+            public boolean hasNext()
+            {
+                return (m_idx < m_size);
+            }
+
+            public SelectionKey next()
+            {
+                if (m_idx == m_size)
+                    throw new NoSuchElementException();
+                return m_keys[m_idx++];
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+/**
+ * Outbound messages tracing histograms, see <tt>Collider.Config.sendTraceSampleRate</tt>.
+ * Only sampled messages are traced, each sampled message is timestamped
+ * when it is queued by <tt>Session.sendData()</tt>, when it is taken
+ * to the socket write and when it is completely written to the socket.
+ * All values are in nanoseconds.
+ * <p>
+ * There is one instance per session (see {@link Session#getSendTrace()})
+ * and one per session emitter (see {@link SessionEmitter#getSendTrace()})
+ * accumulating values of all emitter sessions.
+ * Messages sent after the switch to the shared memory IPC are not traced.
+ */
+public class SendTrace
+{
+    private final LatencyHistogram m_queueWait;
+    private final LatencyHistogram m_joinCopy;
+    private final LatencyHistogram m_socketWait;
+    private final SendTrace m_parent;
+
+    SendTrace(int stripes, SendTrace parent)
+    {
+        m_queueWait = new LatencyHistogram(6, stripes);
+        m_joinCopy = new LatencyHistogram(6, stripes);
+        m_socketWait = new LatencyHistogram(6, stripes);
+        m_parent = parent;
+    }
+
+    final void recordQueueWait(long value)
+    {
+        m_queueWait.record(value);
+        if (m_parent != null)
+            m_parent.m_queueWait.record(value);
+    }
+
+    final void recordJoinCopy(long value)
+    {
+        m_joinCopy.record(value);
+        if (m_parent != null)
+            m_parent.m_joinCopy.record(value);
+    }
+
+    final void recordSocketWait(long value, int messages)
+    {
+        m_socketWait.record(value, messages);
+        if (m_parent != null)
+            m_parent.m_socketWait.record(value, messages);
+    }
+
+    /**
+     * @return time messages waited in the session send queue
+     */
+    public final LatencyHistogram getQueueWait()
+    {
+        return m_queueWait;
+    }
+
+    /**
+     * @return time spent to copy small messages into the join buffer,
+     * one value per join buffer containing sampled messages,
+     * see <tt>Collider.Config.joinMessageMaxSize</tt>
+     */
+    public final LatencyHistogram getJoinCopy()
+    {
+        return m_joinCopy;
+    }
+
+    /**
+     * @return time from the first attempt to write a message to the socket
+     * till the message is completely written
+     */
+    public final LatencyHistogram getSocketWait()
+    {
+        return m_socketWait;
+    }
+
+    public String toString()
+    {
+        return "queue=[" + m_queueWait.getSnapshot() +
+               "] join=[" + m_joinCopy.getSnapshot() +
+               "] socket=[" + m_socketWait.getSnapshot() + "]";
+    }
+}
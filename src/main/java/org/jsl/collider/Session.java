@@ -42,6 +42,69 @@ public interface Session
         void onConnectionClosed();
     }
 
+    /**
+     * Optional interface the session listener can implement to be notified
+     * when the session goes idle, see <tt>SessionEmitter.readIdleTimeout</tt>
+     * and <tt>SessionEmitter.writeIdleTimeout</tt>.
+     */
+    interface IdleListener
+    {
+        int READ_IDLE = 1;
+        int WRITE_IDLE = 2;
+
+        /**
+         * Called by framework when no data was received (READ_IDLE)
+         * or sent (WRITE_IDLE) for at least the configured timeout,
+         * and then again every timeout while the session remains idle.
+         * Called from the timer thread, can run concurrently
+         * with <tt>onDataReceived()</tt>, so should not block.
+         * @param session the idle session
+         * @param idleState bit mask of READ_IDLE and WRITE_IDLE
+         */
+        void onSessionIdle(Session session, int idleState);
+    }
+
+    /**
+     * Optional interface the session listener can implement to be notified
+     * when the collider is being stopped gracefully, see <tt>Collider.stop(timeout, unit)</tt>.
+     * Sessions with listeners not implementing the interface are closed
+     * right away when the drain starts.
+     */
+    interface ShutdownListener
+    {
+        /**
+         * Called by framework in the thread pool when collider starts draining.
+         * Listener supposed to finish the current exchange and close the session,
+         * session still open at the drain deadline will be closed forcibly.
+         * @param session the session to close
+         */
+        void onShutdown(Session session);
+    }
+
+    /**
+     * Session runtime counters, see {@link Session#getMetrics(Metrics)}.
+     */
+    class Metrics
+    {
+        public long bytesIn;
+        public long reads;
+        public long messagesIn; /* Listener.onDataReceived() calls */
+        public long readSuspensions; /* forwardReadMaxSize hits */
+        public long bytesOut;
+        public long messagesOut;
+        public long sendQueueMessages; /* scheduled but not sent yet */
+        public long sendQueueBytes;
+
+        public String toString()
+        {
+            return "in=" + bytesIn + "/" + messagesIn +
+                   " reads=" + reads +
+                   " readSuspensions=" + readSuspensions +
+                   " out=" + bytesOut + "/" + messagesOut +
+                   " sendQueue=" + sendQueueMessages + "/" + sendQueueBytes;
+        }
+    }
+
     /**
      * @return Collider instance the session is linked with.
      */
@@ -105,5 +168,39 @@ public interface Session
      */
     Listener replaceListener(Listener newListener);
 
+    /**
+     * Stops reading data from the socket channel until <em>resumeRead</em>
+     * will be called, so the peer will be blocked by the TCP flow control
+     * as soon as the socket receive buffer will be full. Works asynchronously,
+     * data already read from the socket will be delivered to the listener,
+     * one more read can happen if it is in progress at the moment.
+     * Read idle timeout is not triggered for the session with suspended read.
+     * Can be called from any thread, but not before the session listener
+     * is created.
+     * @return less than 0 if the session is closed, 0 otherwise.
+     */
+    int suspendRead();
+
+    /**
+     * Resumes reading data from the socket channel
+     * after <em>suspendRead</em> call.
+     * @return less than 0 if the session is closed, 0 otherwise.
+     */
+    int resumeRead();
+
     int accelerate(ShMem shMem, ByteBuffer message);
+
+    /**
+     * Fills the given instance with the current values of the session counters.
+     * Can be called from any thread, values of the different counters
+     * are not guaranteed to be consistent with each other.
+     * @param metrics the instance to fill
+     */
+    void getMetrics(Metrics metrics);
+
+    /**
+     * @return sent messages tracing histograms of the session,
+     * or null if tracing is disabled, see <tt>Collider.Config.sendTraceSampleRate</tt>.
+     */
+    SendTrace getSendTrace();
 }
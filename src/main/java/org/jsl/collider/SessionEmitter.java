@@ -39,9 +39,22 @@ public abstract class SessionEmitter
     public int socketRecvBufSize;
     public int socketSendBufSize;
     public int forwardReadMaxSize;
+    public int deliveryQuota;
     public int inputQueueBlockSize;
+    public int inputQueueMinBlockSize;
 
     public int joinMessageMaxSize;
+    public int sendTraceSampleRate;
+
+    public long readIdleTimeout;
+    public long writeIdleTimeout;
+
+    public long sendRate;
+    public long sendBurst;
+    public long emitterSendRate;
+    public long emitterSendBurst;
+
+    private SendTrace m_sendTrace;
 
     public SessionEmitter(InetSocketAddress addr)
     {
@@ -57,12 +70,49 @@ public abstract class SessionEmitter
         socketRecvBufSize = 0;
         socketSendBufSize = 0;
         forwardReadMaxSize = 0;
+
+        /* Max amount of data delivered to the session listener at once,
+         * then reader yields the thread to other sessions and continues
+         * later. 0 - use collider global value, < 0 - unlimited.
+         */
+        deliveryQuota = 0;
+
         inputQueueBlockSize = 0;
 
+        /* -1 - use collider global value,
+         *  0 - always use blocks of inputQueueBlockSize,
+         * >0 - adapt block size to the read size within
+         *      [inputQueueMinBlockSize, inputQueueBlockSize]
+         */
+        inputQueueMinBlockSize = -1;
+
         /* -1 - use collider global value,
          *  0 - disable message join,
          */
         joinMessageMaxSize = -1;
+
+        /* -1 - use collider global value,
+         *  0 - disable sent messages tracing,
+         * >0 - trace 1 of N sent messages
+         */
+        sendTraceSampleRate = -1;
+
+        /* Idle timeouts in milliseconds, 0 - disabled.
+         * If the session listener does not implement Session.IdleListener
+         * then read idle session is closed, write idle is ignored.
+         */
+        readIdleTimeout = 0;
+        writeIdleTimeout = 0;
+
+        /* Outbound traffic shaping, bytes per second, 0 - unlimited.
+         * sendRate limits every session, emitterSendRate limits
+         * all emitter sessions together. Burst is the max amount
+         * of data can be written at once, 0 - 1/10 of the rate.
+         */
+        sendRate = 0;
+        sendBurst = 0;
+        emitterSendRate = 0;
+        emitterSendBurst = 0;
     }
 
     public InetSocketAddress getAddr()
@@ -70,6 +120,20 @@ public abstract class SessionEmitter
         return m_addr;
     }
 
+    /**
+     * @return sent messages tracing histograms of all emitter sessions,
+     * or null if tracing is disabled or the emitter was not added to the collider yet.
+     */
+    public final SendTrace getSendTrace()
+    {
+        return m_sendTrace;
+    }
+
+    final void setSendTrace(SendTrace sendTrace)
+    {
+        m_sendTrace = sendTrace;
+    }
+
     /**
      * Called by the Collider runtime to create session listener instance.
      * See <tt>Acceptor.createSessionListener</tt> and
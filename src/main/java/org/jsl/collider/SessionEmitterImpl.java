@@ -27,15 +27,22 @@ import java.nio.channels.SocketChannel;
 abstract class SessionEmitterImpl
 {
     protected final ColliderImpl m_collider;
-    protected final RetainableDataBlockCache m_inputQueueDataBlockCache;
+    protected final RetainableDataBlockCache [] m_inputQueueDataBlockCache;
     private final SessionEmitter m_sessionEmitter;
     private final int m_joinMessageMaxSize;
     private final RetainableByteBufferPool m_joinPool;
     private final int m_forwardReadMaxSize;
+    private final int m_deliveryQuota;
+    private final int m_sendTraceSampleRate;
+    private final SendTrace m_sendTrace;
+    private final IdleTracker m_idleTracker;
+    private final long m_sendRate;
+    private final long m_sendBurst;
+    private final SharedTokenBucket m_sharedSendBucket;
 
     protected SessionEmitterImpl(
             ColliderImpl collider,
-            RetainableDataBlockCache inputQueueDataBlockCache,
+            RetainableDataBlockCache [] inputQueueDataBlockCache,
             SessionEmitter sessionEmitter,
             int joinMessageMaxSize,
             RetainableByteBufferPool joinPool )
@@ -50,25 +57,97 @@ abstract class SessionEmitterImpl
                 ((sessionEmitter.forwardReadMaxSize == 0)
                         ? collider.getConfig().forwardReadMaxSize
                         : sessionEmitter.forwardReadMaxSize);
+
+        final int deliveryQuota =
+                ((sessionEmitter.deliveryQuota == 0)
+                        ? collider.getConfig().deliveryQuota
+                        : sessionEmitter.deliveryQuota);
+        m_deliveryQuota = ((deliveryQuota > 0) ? deliveryQuota : Integer.MAX_VALUE);
+
+        m_sendTraceSampleRate =
+                ((sessionEmitter.sendTraceSampleRate < 0)
+                        ? collider.getConfig().sendTraceSampleRate
+                        : sessionEmitter.sendTraceSampleRate);
+
+        if (m_sendTraceSampleRate > 0)
+        {
+            m_sendTrace = new SendTrace(Runtime.getRuntime().availableProcessors(), null);
+            sessionEmitter.setSendTrace(m_sendTrace);
+        }
+        else
+            m_sendTrace = null;
+
+        if ((sessionEmitter.readIdleTimeout > 0) || (sessionEmitter.writeIdleTimeout > 0))
+        {
+            m_idleTracker = new IdleTracker(
+                    collider.getTimerQueue(), sessionEmitter.readIdleTimeout, sessionEmitter.writeIdleTimeout);
+        }
+        else
+            m_idleTracker = null;
+
+        m_sendRate = sessionEmitter.sendRate;
+        m_sendBurst = getBurst( sessionEmitter.sendRate, sessionEmitter.sendBurst );
+        if (sessionEmitter.emitterSendRate > 0)
+        {
+            m_sharedSendBucket = new SharedTokenBucket(
+                    sessionEmitter.emitterSendRate,
+                    getBurst(sessionEmitter.emitterSendRate, sessionEmitter.emitterSendBurst),
+                    System.nanoTime() );
+        }
+        else
+            m_sharedSendBucket = null;
+    }
+
+    private static long getBurst( long rate, long burst )
+    {
+        if (burst > 0)
+            return burst;
+        return Math.max( rate/10, 1 );
     }
 
     protected final void startSession( SocketChannel socketChannel, SelectionKey selectionKey )
+    {
+        startSession( socketChannel, selectionKey, null );
+    }
+
+    /* Close handler is executed in the thread pool after the session
+     * listener onConnectionClosed() call, returns false if the listener
+     * was not created, the handler will not be executed then.
+     */
+    protected final boolean startSession(
+            SocketChannel socketChannel, SelectionKey selectionKey, ThreadPool.Runnable closeHandler )
     {
         final int socketSendBufferSize = configureSocketChannel( socketChannel );
 
         final SessionImpl sessionImpl = new SessionImpl(
                 m_collider, socketChannel, selectionKey, socketSendBufferSize, m_joinMessageMaxSize, m_joinPool );
 
+        if (closeHandler != null)
+            sessionImpl.setCloseHandler( closeHandler );
+
+        if ((m_sendRate > 0) || (m_sharedSendBucket != null))
+            sessionImpl.setSendShaping( m_sendRate, m_sendBurst, m_sharedSendBucket );
+
+        if (m_sendTrace != null)
+            sessionImpl.setSendTrace( new SendTrace(1, m_sendTrace), m_sendTraceSampleRate );
+
         final Thread currentThread = Thread.currentThread();
         addThread( currentThread );
         final Session.Listener sessionListener = m_sessionEmitter.createSessionListener( sessionImpl );
+        if (sessionListener != null)
+            sessionCreated( sessionImpl );
         removeThreadAndReleaseMonitor( currentThread );
 
         /* Case when a sessionListener is null
          * will be handled inside the SessionImpl.initialize()
          */
         sessionImpl.initialize(
-                   m_forwardReadMaxSize, m_inputQueueDataBlockCache, sessionListener );
+                   m_forwardReadMaxSize, m_deliveryQuota, m_inputQueueDataBlockCache, sessionListener );
+
+        if ((sessionListener != null) && (m_idleTracker != null))
+            m_idleTracker.addSession( sessionImpl );
+
+        return (sessionListener != null);
     }
 
     private int configureSocketChannel( SocketChannel socketChannel )
@@ -129,6 +208,13 @@ abstract class SessionEmitterImpl
         return sendBufferSize;
     }
 
+    /* Called before the session initialization
+     * if the session listener is not null.
+     */
+    protected void sessionCreated( SessionImpl sessionImpl )
+    {
+    }
+
     protected abstract void addThread( Thread thread );
     protected abstract void removeThreadAndReleaseMonitor( Thread thread );
     protected abstract void logException( Exception ex );
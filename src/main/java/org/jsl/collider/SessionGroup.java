@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group of sessions receiving the same data.
+ * <p>
+ * <tt>broadcast()</tt> schedules one shared buffer to all the members:
+ * buffer is retained once for all members, writers of the members
+ * having empty output queue are started with one thread pool call.
+ * Member having more than <tt>maxQueueBytes</tt> scheduled but not sent
+ * yet is considered slow and handled according to the group policy:
+ * <tt>DROP</tt> skips the data for the member, <tt>DISCONNECT</tt>
+ * closes the member session, <tt>CONFLATE</tt> keeps only the last
+ * skipped buffer for the member and sends it as soon as the member
+ * output queue will go below the limit, so the slow member gets
+ * the latest data and misses intermediate updates.
+ * <p>
+ * Composite buffers are sent to every member with <tt>sendData()</tt>.
+ * Closed sessions are removed from the group automatically.
+ */
+public class SessionGroup
+{
+    public static final int DROP = 0;
+    public static final int DISCONNECT = 1;
+    public static final int CONFLATE = 2;
+
+    /* Conflated buffers send retry interval, ms */
+    private static final long FLUSH_INTERVAL = 10;
+
+    public static class Stats
+    {
+        private final StripedCounter m_broadcasts;
+        private final StripedCounter m_dropped;
+        private final StripedCounter m_disconnected;
+        private final StripedCounter m_conflated;
+
+        Stats()
+        {
+            m_broadcasts = new StripedCounter(1);
+            m_dropped = new StripedCounter(1);
+            m_disconnected = new StripedCounter(1);
+            m_conflated = new StripedCounter(1);
+        }
+
+        /**
+         * @return number of <tt>broadcast()</tt> calls.
+         */
+        public final long getBroadcasts()
+        {
+            return m_broadcasts.get();
+        }
+
+        /**
+         * @return number of buffers not sent to the slow members
+         * with <tt>DROP</tt> policy.
+         */
+        public final long getDropped()
+        {
+            return m_dropped.get();
+        }
+
+        /**
+         * @return number of slow members disconnected
+         * with <tt>DISCONNECT</tt> policy.
+         */
+        public final long getDisconnected()
+        {
+            return m_disconnected.get();
+        }
+
+        /**
+         * @return number of buffers replaced with the newer one
+         * before being sent to the slow members with <tt>CONFLATE</tt> policy.
+         */
+        public final long getConflated()
+        {
+            return m_conflated.get();
+        }
+    }
+
+    private static class Member
+    {
+        public final SessionImpl session;
+        public RetainableByteBuffer conflated;
+
+        public Member( SessionImpl session )
+        {
+            this.session = session;
+        }
+    }
+
+    private class Flusher implements TimerQueue.Task
+    {
+        public long run()
+        {
+            m_lock.lock();
+            try
+            {
+                if (flush())
+                    return FLUSH_INTERVAL;
+                m_flushScheduled = false;
+                return 0;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+    }
+
+    private final int m_policy;
+    private final long m_maxQueueBytes;
+    private final Stats m_stats;
+    private final ReentrantLock m_lock;
+    private final ArrayList<Member> m_members;
+    private ColliderImpl m_collider;
+    private ThreadPool.Runnable [] m_writers;
+    private Flusher m_flusher;
+    private boolean m_flushScheduled;
+
+    /**
+     * @param policy slow members policy: <tt>DROP</tt>, <tt>DISCONNECT</tt> or <tt>CONFLATE</tt>
+     * @param maxQueueBytes output queue size the member is considered slow at,
+     * 0 - members are never considered slow
+     */
+    public SessionGroup( int policy, long maxQueueBytes )
+    {
+        if ((policy < DROP) || (policy > CONFLATE))
+            throw new IllegalArgumentException( "Invalid policy " + policy );
+        m_policy = policy;
+        m_maxQueueBytes = maxQueueBytes;
+        m_stats = new Stats();
+        m_lock = new ReentrantLock();
+        m_members = new ArrayList<Member>();
+        m_writers = new ThreadPool.Runnable[16];
+    }
+
+    public final Stats getStats()
+    {
+        return m_stats;
+    }
+
+    /**
+     * Adds the session to the group, all sessions of the group
+     * should belong to the same collider.
+     * @return false if the session is already a member of the group
+     */
+    public final boolean add( Session session )
+    {
+        final SessionImpl sessionImpl = (SessionImpl) session;
+        m_lock.lock();
+        try
+        {
+            if (m_collider == null)
+                m_collider = (ColliderImpl) sessionImpl.getCollider();
+            else if (m_collider != sessionImpl.getCollider())
+                throw new IllegalArgumentException( "Session belongs to another collider." );
+
+            if (find(sessionImpl) >= 0)
+                return false;
+
+            m_members.add( new Member(sessionImpl) );
+            return true;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the session from the group.
+     * @return false if the session is not a member of the group
+     */
+    public final boolean remove( Session session )
+    {
+        m_lock.lock();
+        try
+        {
+            final int idx = find( session );
+            if (idx < 0)
+                return false;
+            removeMember( idx );
+            return true;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of sessions in the group.
+     */
+    public final int size()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_members.size();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules data to be sent to all the group members.
+     * Retains the data buffer, but buffer remains unchanged,
+     * see <tt>Session.sendData()</tt>.
+     * @param data buffer with data to send
+     * @return number of members the data was scheduled for
+     */
+    public final int broadcast( RetainableByteBuffer data )
+    {
+        assert( data.remaining() > 0 );
+        m_lock.lock();
+        try
+        {
+            m_stats.m_broadcasts.increment();
+            final int members = m_members.size();
+            if (members == 0)
+                return 0;
+
+            if (data instanceof CompositeRetainableByteBuffer)
+                return broadcastComposite( data );
+
+            if (m_writers.length < members)
+                m_writers = new ThreadPool.Runnable[members * 2];
+
+            /* Every member gets a reference, unused ones are released at the end. */
+            data.retain( members );
+            int references = members;
+            int writers = 0;
+            int ret = 0;
+            int idx = 0;
+            while (idx < m_members.size())
+            {
+                final Member member = m_members.get( idx );
+                final SessionImpl session = member.session;
+
+                if (isSlow(session))
+                {
+                    if (m_policy == DROP)
+                        m_stats.m_dropped.increment();
+                    else if (m_policy == DISCONNECT)
+                    {
+                        m_stats.m_disconnected.increment();
+                        session.closeConnection();
+                        removeMember( idx );
+                        continue;
+                    }
+                    else
+                    {
+                        /* Reference goes to the member. */
+                        if (member.conflated != null)
+                        {
+                            member.conflated.release();
+                            m_stats.m_conflated.increment();
+                        }
+                        member.conflated = data;
+                        references--;
+                        scheduleFlush();
+                    }
+                    idx++;
+                    continue;
+                }
+
+                if (member.conflated != null)
+                {
+                    /* The newer data will be sent. */
+                    member.conflated.release();
+                    member.conflated = null;
+                    m_stats.m_conflated.increment();
+                }
+
+                final int rc = session.sendRetained( data );
+                if (rc < 0)
+                {
+                    removeMember( idx );
+                    continue;
+                }
+
+                references--;
+                ret++;
+                if (rc > 0)
+                    m_writers[writers++] = session.getWriter();
+                idx++;
+            }
+
+            if (references > 0)
+                data.release( references );
+
+            startWriters( writers );
+            return ret;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    private int broadcastComposite( RetainableByteBuffer data )
+    {
+        int ret = 0;
+        int idx = 0;
+        while (idx < m_members.size())
+        {
+            final SessionImpl session = m_members.get(idx).session;
+            if (isSlow(session))
+            {
+                /* Composite buffer components are retained by the session,
+                 * can not be conflated, handled as dropped.
+                 */
+                if (m_policy == DISCONNECT)
+                {
+                    m_stats.m_disconnected.increment();
+                    session.closeConnection();
+                    removeMember( idx );
+                    continue;
+                }
+                m_stats.m_dropped.increment();
+            }
+            else if (session.sendData(data) < 0)
+            {
+                removeMember( idx );
+                continue;
+            }
+            else
+                ret++;
+            idx++;
+        }
+        return ret;
+    }
+
+    private boolean isSlow( SessionImpl session )
+    {
+        return ((m_maxQueueBytes > 0) && (session.getSendQueueBytes() >= m_maxQueueBytes));
+    }
+
+    private int find( Session session )
+    {
+        final int members = m_members.size();
+        for (int idx=0; idx<members; idx++)
+        {
+            if (m_members.get(idx).session == session)
+                return idx;
+        }
+        return -1;
+    }
+
+    private void removeMember( int idx )
+    {
+        /* Order of the members does not matter. */
+        final int lastIdx = (m_members.size() - 1);
+        final Member member = m_members.get( idx );
+        m_members.set( idx, m_members.get(lastIdx) );
+        m_members.remove( lastIdx );
+        if (member.conflated != null)
+        {
+            member.conflated.release();
+            member.conflated = null;
+        }
+    }
+
+    private void startWriters( int writers )
+    {
+        if (writers > 0)
+        {
+            m_collider.executeInThreadPool( m_writers, writers );
+            for (int idx=0; idx<writers; idx++)
+                m_writers[idx] = null;
+        }
+    }
+
+    private void scheduleFlush()
+    {
+        if (!m_flushScheduled)
+        {
+            m_flushScheduled = true;
+            final TimerQueue timerQueue = m_collider.getTimerQueue();
+            if ((m_flusher == null) ||
+                (timerQueue.schedule(m_flusher, FLUSH_INTERVAL, TimeUnit.MILLISECONDS) < 0))
+            {
+                /* Previous flusher is completing, but still registered. */
+                m_flusher = new Flusher();
+                timerQueue.schedule( m_flusher, FLUSH_INTERVAL, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    /* Sends conflated buffers to the members caught up,
+     * returns true if some members are still slow.
+     */
+    private boolean flush()
+    {
+        if (m_writers.length < m_members.size())
+            m_writers = new ThreadPool.Runnable[m_members.size() * 2];
+
+        boolean ret = false;
+        int writers = 0;
+        int idx = 0;
+        while (idx < m_members.size())
+        {
+            final Member member = m_members.get( idx );
+            if (member.conflated != null)
+            {
+                if (isSlow(member.session))
+                    ret = true;
+                else
+                {
+                    final int rc = member.session.sendRetained( member.conflated );
+                    if (rc < 0)
+                    {
+                        removeMember( idx );
+                        continue;
+                    }
+                    member.conflated = null;
+                    if (rc > 0)
+                        m_writers[writers++] = member.session.getWriter();
+                }
+            }
+            idx++;
+        }
+        startWriters( writers );
+        return ret;
+    }
+}
@@ -25,7 +25,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.NotYetConnectedException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
@@ -36,10 +38,32 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
 {
     private static final Logger s_logger = Logger.getLogger( "org.jsl.collider.Session" );
     private static final Node CLOSE_MARKER = new Node( (ByteBuffer) null );
+    private static final Node QUEUED_NONE = new Node( (ByteBuffer) null );
 
     private static final AtomicReferenceFieldUpdater<Node, Node> s_nodeNextUpdater =
             AtomicReferenceFieldUpdater.newUpdater( Node.class, Node.class, "next" );
 
+    private static final AtomicLongFieldUpdater<SessionImpl> s_statMessagesOutUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_statMessagesOut" );
+
+    private static final AtomicLongFieldUpdater<SessionImpl> s_statBytesOutUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_statBytesOut" );
+
+    private static final AtomicLongFieldUpdater<SessionImpl> s_statMessagesDroppedUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_statMessagesDropped" );
+
+    private static final AtomicLongFieldUpdater<SessionImpl> s_statBytesDroppedUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_statBytesDropped" );
+
+    private static final AtomicLongFieldUpdater<SessionImpl> s_readTimeUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_readTime" );
+
+    private static final AtomicLongFieldUpdater<SessionImpl> s_writeTimeUpdater =
+            AtomicLongFieldUpdater.newUpdater( SessionImpl.class, "m_writeTime" );
+
+    /* Shaped writer writes not less than burst/QUANTUM_DIVISOR bytes at once. */
+    private static final int QUANTUM_DIVISOR = 8;
+
     private static final int STATE_MASK   = 0x0003;
     private static final int ST_STARTING  = 0x0000;
     private static final int ST_RUNNING   = 0x0001;
@@ -63,6 +87,35 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
     private SocketChannelReader m_socketChannelReader;
     private ThreadPool.Runnable m_writer;
 
+    /* Counters are updated only by the thread currently writing to the socket,
+     * queued totals are kept in the queue nodes, see setQueued().
+     * m_queuedTail is the last node taken off the queue
+     * (or the last node of the closed queue).
+     */
+    private final ColliderImpl.SessionCounters m_counters;
+    private volatile Node m_queuedTail;
+    private volatile long m_statMessagesOut;
+    private volatile long m_statBytesOut;
+    private volatile long m_statMessagesDropped;
+    private volatile long m_statBytesDropped;
+
+    /* Sampling countdown is updated by any thread calling sendData()
+     * without synchronization, races only make sampling a bit irregular.
+     */
+    private SendTrace m_sendTrace;
+    private int m_sendTraceSampleRate;
+    private int m_sendTraceCountdown;
+    private ThreadPool.Runnable m_closeHandler;
+
+    /* Last read and write times in the IdleTracker coarse clock ticks,
+     * updated by the reader and writer without synchronization.
+     */
+    private IdleTracker m_idleTracker;
+    private volatile long m_readTime;
+    private volatile long m_writeTime;
+    private volatile boolean m_abort;
+    private SendShaper m_sendShaper;
+
     private class SelectorDeregistrator extends ColliderImpl.SelectorThreadRunnable
     {
         public int runInSelectorThread()
@@ -87,6 +140,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 }
             }
             m_socketChannel = null;
+            m_counters.sessionsClosed.increment();
             return 0;
         }
     }
@@ -107,19 +161,126 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         public volatile Node next;
         public ByteBuffer buf;
         public RetainableByteBuffer rbuf;
+        public int messages; /* can be more than 1 for the joined nodes */
+        public long traceTime; /* != 0 for sampled nodes, see SendTrace */
+        public int traced; /* number of sampled messages in the node */
+        public long queuedMessages; /* total queued including this node */
+        public long queuedBytes;
 
         public Node( ByteBuffer buf )
         {
             this.buf = buf;
             this.rbuf = null;
+            this.messages = 1;
         }
 
         public Node( RetainableByteBuffer rbuf )
         {
             this.buf = rbuf.getNioByteBuffer();
             this.rbuf = rbuf;
+            this.messages = 1;
             rbuf.retain();
         }
+
+        public Node( ByteBuffer buf, RetainableByteBuffer rbuf, int messages )
+        {
+            this.buf = buf;
+            this.rbuf = rbuf;
+            this.messages = messages;
+            rbuf.retain();
+        }
+
+        public Node( RetainableByteBuffer rbuf, boolean retained )
+        {
+            /* Buffer can be already retained by the caller. */
+            this.buf = rbuf.getNioByteBuffer();
+            this.rbuf = rbuf;
+            this.messages = 1;
+            if (!retained)
+                rbuf.retain();
+        }
+    }
+
+    private class WriterTimer implements TimerQueue.Task
+    {
+        public long run()
+        {
+            m_collider.executeInThreadPool( m_writer );
+            return 0;
+        }
+    }
+
+    /* Outbound traffic shaper, used only by the socket writer,
+     * so the session bucket needs no synchronization.
+     */
+    private class SendShaper
+    {
+        private final TokenBucket m_bucket;
+        private final SharedTokenBucket m_sharedBucket;
+        private final long m_quantum;
+        private WriterTimer m_timer;
+
+        public SendShaper( TokenBucket bucket, SharedTokenBucket sharedBucket )
+        {
+            m_bucket = bucket;
+            m_sharedBucket = sharedBucket;
+            m_timer = new WriterTimer();
+
+            /* Minimal amount of data worth to write,
+             * the writer waits for it to avoid spinning on the bucket refill
+             * with a lot of tiny writes.
+             */
+            long burst = Long.MAX_VALUE;
+            if (bucket != null)
+                burst = bucket.getBurst();
+            if (sharedBucket != null)
+                burst = Math.min( burst, sharedBucket.getBurst() );
+            m_quantum = Math.max( burst / QUANTUM_DIVISOR, 1 );
+        }
+
+        public final long getQuantum()
+        {
+            return m_quantum;
+        }
+
+        public final long getAllowance( long now )
+        {
+            long ret = Long.MAX_VALUE;
+            if (m_bucket != null)
+                ret = m_bucket.available( now );
+            if ((ret > 0) && (m_sharedBucket != null))
+                ret = Math.min( ret, m_sharedBucket.available(now) );
+            return ret;
+        }
+
+        public final void consume( long bytes )
+        {
+            if (m_bucket != null)
+                m_bucket.consume( bytes );
+            if (m_sharedBucket != null)
+                m_sharedBucket.consume( bytes );
+        }
+
+        public final void defer( long bytes, long now )
+        {
+            long delay = 0;
+            if (m_bucket != null)
+                delay = m_bucket.getDelay( Math.min(bytes, m_bucket.getBurst()), now );
+            if (m_sharedBucket != null)
+                delay = Math.max( delay, m_sharedBucket.getDelay(Math.min(bytes, m_sharedBucket.getBurst()), now) );
+
+            /* Timer queue resolution is 1 millisecond. */
+            final long delayMs = Math.max( TimeUnit.NANOSECONDS.toMillis(delay + 999999), 1 );
+            final TimerQueue timerQueue = m_collider.getTimerQueue();
+            if (timerQueue.schedule(m_timer, delayMs, TimeUnit.MILLISECONDS) < 0)
+            {
+                /* The previous timer task has executed the writer
+                 * but is not completed yet, rare case.
+                 */
+                m_timer = new WriterTimer();
+                timerQueue.schedule( m_timer, delayMs, TimeUnit.MILLISECONDS );
+            }
+        }
     }
 
     private class SocketWriter extends ThreadPool.Runnable
@@ -171,12 +332,25 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                     final RetainableByteBuffer buf = m_pool.alloc( joinBytes, m_joinMessageMaxSize*2 );
                     int space = buf.remaining();
                     int nodeBytes = node.buf.remaining();
+                    int messages = 0;
+                    long traceTime = 0;
+                    int traced = 0;
                     for (;;)
                     {
                         assert( space >= nodeBytes );
 
+                        if (node.traceTime != 0)
+                        {
+                            final long now = System.nanoTime();
+                            m_sendTrace.recordQueueWait( now - node.traceTime );
+                            if (traceTime == 0)
+                                traceTime = now;
+                            traced++;
+                        }
+
                         buf.put( node.buf.duplicate() );
                         node.buf = null;
+                        messages += node.messages;
 
                         if (node.rbuf != null)
                         {
@@ -205,6 +379,15 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                     buf.flip();
                     node.buf = buf.getNioByteBuffer();
                     node.rbuf = buf;
+                    node.messages = messages;
+
+                    if (traceTime != 0)
+                    {
+                        final long now = System.nanoTime();
+                        m_sendTrace.recordJoinCopy( now - traceTime );
+                        node.traceTime = now;
+                        node.traced = traced;
+                    }
 
                     if (prev == null)
                         m_head = node;
@@ -218,6 +401,8 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 {
                     m_iov[m_iovc] = node.buf.duplicate();
                     m_iovc++;
+                    if (node.traceTime != 0)
+                        traceQueueWait( node );
                 }
 
                 bytesReady += node.buf.remaining();
@@ -261,15 +446,73 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                     assert( m_iov[m_iovc] == null );
                     m_iov[m_iovc] = node.buf.duplicate();
                     m_iovc++;
+                    if (node.traceTime != 0)
+                        traceQueueWait( node );
                     node = node.next;
                 }
             }
             else
                 joinMessages();
 
+            /* Traffic shaping: write not more than the token buckets allow,
+             * the last buffer limit is reduced for the write if necessary.
+             */
+            final SendShaper sendShaper = m_sendShaper;
+            int writeIovc = m_iovc;
+            ByteBuffer cappedBuf = null;
+            int cappedLimit = 0;
+            boolean shaped = false;
+            if (sendShaper != null)
+            {
+                final long now = System.nanoTime();
+                long allowance = sendShaper.getAllowance( now );
+                long bytesReady = 0;
+                for (int idx=0; idx<m_iovc; idx++)
+                    bytesReady += m_iov[idx].remaining();
+
+                final long quantum = Math.min( bytesReady, sendShaper.getQuantum() );
+                if (allowance < quantum)
+                {
+                    sendShaper.defer( quantum, now );
+                    return;
+                }
+                shaped = (allowance < bytesReady);
+
+                for (int idx=0; idx<m_iovc; idx++)
+                {
+                    final ByteBuffer buf = m_iov[idx];
+                    final int remaining = buf.remaining();
+                    if (remaining >= allowance)
+                    {
+                        if (remaining > allowance)
+                        {
+                            cappedBuf = buf;
+                            cappedLimit = buf.limit();
+                            buf.limit( buf.position() + (int) allowance );
+                        }
+                        writeIovc = (idx + 1);
+                        break;
+                    }
+                    allowance -= remaining;
+                }
+            }
+
+            final Object jfrEvent = JfrEvents.beginWriterRun();
+            final long bytesSent;
             try
             {
-                final long bytesSent = m_socketChannel.write( m_iov, 0, m_iovc );
+                try
+                {
+                    bytesSent = m_socketChannel.write( m_iov, 0, writeIovc );
+                }
+                finally
+                {
+                    if (cappedBuf != null)
+                        cappedBuf.limit( cappedLimit );
+                }
+                JfrEvents.commitWriterRun( jfrEvent, bytesSent, writeIovc );
+                if (sendShaper != null)
+                    sendShaper.consume( bytesSent );
                 if (bytesSent == 0)
                 {
                     m_collider.executeInSelectorThread( m_starter );
@@ -289,11 +532,13 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 return;
             }
 
+            int messages = 0;
             Node node = m_head;
             for (int idx=0;;)
             {
                 if (m_iov[idx].remaining() > 0)
                 {
+                    statSent( messages, bytesSent );
                     final int iovc = (m_iovc - idx);
                     int cc = 0;
                     for (; idx<m_iovc; idx++, cc++)
@@ -302,10 +547,19 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                         m_iov[cc] = null;
                     m_iovc = iovc;
                     m_head = node;
-                    m_collider.executeInThreadPool( this );
+                    if (shaped)
+                    {
+                        /* The write was limited by the shaper,
+                         * there is no sense to try again before the refill.
+                         */
+                        sendShaper.defer( sendShaper.getQuantum(), System.nanoTime() );
+                    }
+                    else
+                        m_collider.executeInThreadPool( this );
                     return;
                 }
 
+                messages += node.messages;
                 node.buf = null;
                 if (node.rbuf != null)
                 {
@@ -313,6 +567,12 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                     node.rbuf = null;
                 }
 
+                if (node.traceTime != 0)
+                {
+                    m_sendTrace.recordSocketWait( System.nanoTime() - node.traceTime, node.traced );
+                    node.traceTime = 0;
+                }
+
                 m_iov[idx] = null;
                 if  (++idx == m_iovc)
                     break;
@@ -322,11 +582,13 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 node = next;
             }
 
+            statSent( messages, bytesSent );
             m_iovc = 0;
             final Node next = node.next;
             if (next == null)
             {
                 m_head = null;
+                m_queuedTail = node;
                 if (!m_tail.compareAndSet(node, null))
                 {
                     while (node.next == null);
@@ -442,6 +704,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                         return;
                     }
 
+                    statSent( node.messages, length );
                     node.buf = null;
                     if (node.rbuf != null)
                     {
@@ -565,7 +828,10 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 if (tail == null)
                     m_head = CLOSE_MARKER;
                 else
+                {
+                    m_queuedTail = tail;
                     tail.next = CLOSE_MARKER;
+                }
                 break;
             }
             tail = m_tail.get();
@@ -640,6 +906,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                         }
                     }
                     m_socketChannel = null;
+                    m_counters.sessionsClosed.increment();
                 }
 
                 break;
@@ -665,14 +932,18 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         m_state = new AtomicInteger( ST_STARTING + SOCK_RC );
         m_head = null;
         m_tail = new AtomicReference<Node>();
+        m_queuedTail = QUEUED_NONE;
         m_writer = new SocketWriter( socketSendBufferSize, joinMessageMaxSize, joinPool );
+        m_counters = collider.getSessionCounters();
+        m_counters.sessionsOpened.increment();
 
         m_selectionKey.attach( this );
     }
 
     public final void initialize(
                 int inputQueueMaxSize,
-                RetainableDataBlockCache inputQueueDataBlockCache,
+                int deliveryQuota,
+                RetainableDataBlockCache [] inputQueueDataBlockCache,
                 Listener listener )
     {
         if (listener == null)
@@ -686,6 +957,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                     m_collider,
                     this,
                     inputQueueMaxSize,
+                    deliveryQuota,
                     inputQueueDataBlockCache,
                     m_socketChannel,
                     m_selectionKey,
@@ -743,12 +1015,15 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
     {
         assert( data.remaining() > 0 );
         final Node node = new Node( data );
+        if (m_sendTrace != null)
+            sample( node );
         for (;;)
         {
             final Node tail = m_tail.get();
             if (tail == CLOSE_MARKER)
                 return -1;
 
+            setQueued( node, tail, 1, data.remaining() );
             if (m_tail.compareAndSet(tail, node))
             {
                 if (tail == null)
@@ -766,13 +1041,19 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
     public int sendData( RetainableByteBuffer data )
     {
         assert( data.remaining() > 0 );
+        if (data instanceof CompositeRetainableByteBuffer)
+            return sendData( (CompositeRetainableByteBuffer) data );
+
         final Node node = new Node( data );
+        if (m_sendTrace != null)
+            sample( node );
         for (;;)
         {
             final Node tail = m_tail.get();
             if (tail == CLOSE_MARKER)
                 return -1;
 
+            setQueued( node, tail, 1, node.buf.remaining() );
             if (m_tail.compareAndSet(tail, node))
             {
                 if (tail == null)
@@ -787,16 +1068,113 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         }
     }
 
+    /* Adds the buffer already retained by the caller to the queue,
+     * but does not start the writer, see SessionGroup.broadcast().
+     * Returns -1 if the session is closed (buffer is not released),
+     * 1 if the writer returned by getWriter() should be started
+     * by the caller, 0 otherwise.
+     */
+    final int sendRetained( RetainableByteBuffer data )
+    {
+        final Node node = new Node( data, true );
+        if (m_sendTrace != null)
+            sample( node );
+        for (;;)
+        {
+            final Node tail = m_tail.get();
+            if (tail == CLOSE_MARKER)
+                return -1;
+
+            setQueued( node, tail, 1, node.buf.remaining() );
+            if (m_tail.compareAndSet(tail, node))
+            {
+                if (tail == null)
+                {
+                    m_head = node;
+                    return 1;
+                }
+                tail.next = node;
+                return 0;
+            }
+        }
+    }
+
+    final ThreadPool.Runnable getWriter()
+    {
+        return m_writer;
+    }
+
+    private int sendData( CompositeRetainableByteBuffer data )
+    {
+        /* Each component is scheduled as a separate node,
+         * nodes are linked before being added to the queue,
+         * so the data of other threads will not interleave.
+         */
+        Node head = null;
+        Node last = null;
+        final int components = data.getComponents();
+        for (int idx=0; idx<components; idx++)
+        {
+            final ByteBuffer buf = data.getComponentData( idx );
+            if (buf != null)
+            {
+                /* The whole composite buffer is counted as one message. */
+                final Node node = new Node( buf, data.getComponent(idx), ((head == null) ? 1 : 0) );
+                if (head == null)
+                {
+                    if (m_sendTrace != null)
+                        sample( node );
+                    head = node;
+                }
+                else
+                    last.next = node;
+                last = node;
+            }
+        }
+
+        for (;;)
+        {
+            final Node tail = m_tail.get();
+            if (tail == CLOSE_MARKER)
+            {
+                for (Node node=head; node!=null; node=node.next)
+                    node.rbuf.release();
+                return -1;
+            }
+
+            setQueued( last, tail, 1, data.remaining() );
+            if (m_tail.compareAndSet(tail, last))
+            {
+                if (tail == null)
+                {
+                    m_head = head;
+                    m_collider.executeInThreadPool( m_writer );
+                }
+                else
+                    tail.next = head;
+                return 1;
+            }
+        }
+    }
+
     public int sendDataSync( ByteBuffer data )
     {
-        assert( data.remaining() > 0 );
+        /* Shaped session can write only from the writer. */
+        if (m_sendShaper != null)
+            return sendData( data );
+
+        final int bytes = data.remaining();
+        assert( bytes > 0 );
         final Node node = new Node( data );
+        if (m_sendTrace != null)
+            sample( node );
         for (;;)
         {
             final Node tail = m_tail.get();
             if (tail == CLOSE_MARKER)
                 return -1;
 
+            setQueued( node, tail, 1, bytes );
             if (m_tail.compareAndSet(tail, node))
             {
                 if (tail == null)
@@ -823,12 +1201,21 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
             return -1;
         }
 
-        if (data.remaining() > 0)
+        final int remaining = data.remaining();
+        if (remaining > 0)
         {
+            statSent( 0, bytes-remaining );
             m_collider.executeInSelectorThread( m_starter );
             return 1;
         }
 
+        statSent( 1, bytes );
+        if (node.traceTime != 0)
+        {
+            m_sendTrace.recordQueueWait( 0 );
+            m_sendTrace.recordSocketWait( System.nanoTime() - node.traceTime, 1 );
+            node.traceTime = 0;
+        }
         removeNode( node );
         return 0;
     }
@@ -890,6 +1277,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
                 }
                 else
                 {
+                    m_queuedTail = tail;
                     tail.next = CLOSE_MARKER;
                     for (;;)
                     {
@@ -926,7 +1314,9 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
 
     public int accelerate( ShMem shMem, ByteBuffer message )
     {
+        /* Service node, not counted. */
         final Node node = new Node( (ByteBuffer) null );
+        node.messages = 0;
         Node tail;
         for (;;)
         {
@@ -942,6 +1332,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
              * while some other thread send data.
              */
             assert( tail == null );
+            setQueued( node, tail, 0, 0 );
             if (m_tail.compareAndSet(tail, node))
             {
                 m_head = node;
@@ -992,6 +1383,236 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         return m_socketChannelReader.replaceListener( newListener );
     }
 
+    public int suspendRead()
+    {
+        final SocketChannelReader socketChannelReader = m_socketChannelReader;
+        if (socketChannelReader == null)
+            return -1;
+        return socketChannelReader.suspendRead();
+    }
+
+    public int resumeRead()
+    {
+        final SocketChannelReader socketChannelReader = m_socketChannelReader;
+        if (socketChannelReader == null)
+            return -1;
+
+        /* Read idle time is counted from the resume. */
+        updateReadTime();
+        return socketChannelReader.resumeRead();
+    }
+
+    final boolean isReadSuspended()
+    {
+        final SocketChannelReader socketChannelReader = m_socketChannelReader;
+        return ((socketChannelReader != null) && socketChannelReader.isReadSuspended());
+    }
+
+    final void setSendTrace( SendTrace sendTrace, int sampleRate )
+    {
+        m_sendTrace = sendTrace;
+        m_sendTraceSampleRate = sampleRate;
+        m_sendTraceCountdown = sampleRate;
+    }
+
+    /* Should be set before the session initialization. */
+    final void setSendShaping( long rate, long burst, SharedTokenBucket sharedBucket )
+    {
+        final TokenBucket bucket = ((rate > 0) ? new TokenBucket(rate, burst, System.nanoTime()) : null);
+        m_sendShaper = new SendShaper( bucket, sharedBucket );
+    }
+
+    final void setIdleTracker( IdleTracker idleTracker, long time )
+    {
+        s_readTimeUpdater.lazySet( this, time );
+        s_writeTimeUpdater.lazySet( this, time );
+        m_idleTracker = idleTracker;
+    }
+
+    final void updateReadTime()
+    {
+        final IdleTracker idleTracker = m_idleTracker;
+        if (idleTracker != null)
+            s_readTimeUpdater.lazySet( this, idleTracker.getTime() );
+    }
+
+    final long getReadTime() { return m_readTime; }
+    final long getWriteTime() { return m_writeTime; }
+
+    final void resetReadTime( long time ) { s_readTimeUpdater.lazySet( this, time ); }
+    final void resetWriteTime( long time ) { s_writeTimeUpdater.lazySet( this, time ); }
+
+    final boolean isClosed()
+    {
+        return (m_tail.get() == CLOSE_MARKER);
+    }
+
+    final void handleIdle( int idleState )
+    {
+        final Listener listener = m_socketChannelReader.getListener();
+        if (listener instanceof IdleListener)
+            ((IdleListener) listener).onSessionIdle( this, idleState );
+        else if ((idleState & IdleListener.READ_IDLE) != 0)
+        {
+            if (s_logger.isLoggable(Level.FINE))
+                s_logger.fine( m_localSocketAddress + " -> " + m_remoteSocketAddress + ": read idle, closing." );
+            closeConnection();
+        }
+    }
+
+    /* Socket is released by the reader and writer,
+     * all scheduled data is sent or dropped.
+     */
+    final boolean isReleased()
+    {
+        return ((m_state.get() & SOCK_RC_MASK) == 0);
+    }
+
+    final void handleShutdown()
+    {
+        final SocketChannelReader socketChannelReader = m_socketChannelReader;
+        final Listener listener = ((socketChannelReader == null) ? null : socketChannelReader.getListener());
+        if (listener instanceof ShutdownListener)
+            ((ShutdownListener) listener).onShutdown( this );
+        else
+            closeConnection();
+    }
+
+    /* Called in the selector thread, closes the session
+     * dropping the data not sent yet, output shutdown
+     * makes the writer fail and clean up the queue.
+     */
+    final void abort()
+    {
+        closeConnection();
+        final SocketChannel socketChannel = m_socketChannel;
+        if ((socketChannel != null) && !isReleased())
+        {
+            m_abort = true;
+            try
+            {
+                socketChannel.shutdownOutput();
+            }
+            catch (final IOException ex)
+            {
+                if (s_logger.isLoggable(Level.FINER))
+                {
+                    s_logger.finer(
+                            m_localSocketAddress + " -> " + m_remoteSocketAddress +
+                            ": " + ex.toString() );
+                }
+            }
+        }
+    }
+
+    /* Close handler is executed in the thread pool
+     * after the listener onConnectionClosed() call,
+     * should be set before the session initialization.
+     */
+    final void setCloseHandler( ThreadPool.Runnable closeHandler )
+    {
+        m_closeHandler = closeHandler;
+    }
+
+    final void handleListenerClosed()
+    {
+        if (m_closeHandler != null)
+            m_collider.executeInThreadPool( m_closeHandler );
+    }
+
+    private void sample( Node node )
+    {
+        if (--m_sendTraceCountdown <= 0)
+        {
+            m_sendTraceCountdown = m_sendTraceSampleRate;
+            node.traceTime = System.nanoTime();
+            node.traced = 1;
+        }
+    }
+
+    private void traceQueueWait( Node node )
+    {
+        final long now = System.nanoTime();
+        m_sendTrace.recordQueueWait( now - node.traceTime );
+        node.traceTime = now;
+    }
+
+    public SendTrace getSendTrace()
+    {
+        return m_sendTrace;
+    }
+
+    /* Queued totals are carried by the nodes: node gets the totals
+     * of the previous queue tail plus its own data before being added
+     * to the queue, so sendData() does not need any extra atomic operation.
+     * Should be called before every m_tail CAS attempt.
+     */
+    private void setQueued( Node node, Node tail, int messages, int bytes )
+    {
+        final Node prev = (tail == null) ? m_queuedTail : tail;
+        node.queuedMessages = (prev.queuedMessages + messages);
+        node.queuedBytes = (prev.queuedBytes + bytes);
+    }
+
+    /* Node with the current queued totals. */
+    private Node getQueuedTail()
+    {
+        final Node tail = m_tail.get();
+        if ((tail == null) || (tail == CLOSE_MARKER))
+            return m_queuedTail;
+        return tail;
+    }
+
+    private void statSent( int messages, long bytes )
+    {
+        /* Only one thread writes to the socket at a time. */
+        if (messages > 0)
+        {
+            s_statMessagesOutUpdater.lazySet( this, m_statMessagesOut + messages );
+            m_counters.messagesOut.add( messages );
+        }
+        s_statBytesOutUpdater.lazySet( this, m_statBytesOut + bytes );
+        m_counters.bytesOut.add( bytes );
+
+        final IdleTracker idleTracker = m_idleTracker;
+        if (idleTracker != null)
+            s_writeTimeUpdater.lazySet( this, idleTracker.getTime() );
+    }
+
+    /* Bytes scheduled with sendData() but not sent yet. */
+    final long getSendQueueBytes()
+    {
+        final long sendQueueBytes = (getQueuedTail().queuedBytes - m_statBytesOut - m_statBytesDropped);
+        return ((sendQueueBytes > 0) ? sendQueueBytes : 0);
+    }
+
+    public void getMetrics( Metrics metrics )
+    {
+        final SocketChannelReader socketChannelReader = m_socketChannelReader;
+        if (socketChannelReader == null)
+        {
+            metrics.bytesIn = 0;
+            metrics.reads = 0;
+            metrics.messagesIn = 0;
+            metrics.readSuspensions = 0;
+        }
+        else
+            socketChannelReader.getMetrics( metrics );
+
+        final long messagesOut = m_statMessagesOut;
+        final long bytesOut = m_statBytesOut;
+        metrics.messagesOut = messagesOut;
+        metrics.bytesOut = bytesOut;
+        /* Counters are read without synchronization,
+         * so the writer can be a bit ahead for a moment.
+         */
+        final Node queuedTail = getQueuedTail();
+        final long sendQueueMessages = (queuedTail.queuedMessages - messagesOut - m_statMessagesDropped);
+        final long sendQueueBytes = (queuedTail.queuedBytes - bytesOut - m_statBytesDropped);
+        metrics.sendQueueMessages = ((sendQueueMessages > 0) ? sendQueueMessages : 0);
+        metrics.sendQueueBytes = ((sendQueueBytes > 0) ? sendQueueBytes : 0);
+    }
+
     public int handleReadyOps( ThreadPool threadPool )
     {
         final int readyOps = m_selectionKey.readyOps();
@@ -1031,15 +1652,23 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
 
             if (m_tail.compareAndSet(tail, CLOSE_MARKER))
             {
+                m_queuedTail = tail;
                 tail.next = CLOSE_MARKER;
                 break;
             }
         }
 
+        int messagesDropped = 0;
+        long bytesDropped = 0;
         Node node = m_head;
         while (node != CLOSE_MARKER)
         {
             final Node next = node.next;
+            if (node.buf != null)
+            {
+                messagesDropped += node.messages;
+                bytesDropped += node.buf.remaining();
+            }
             if (node.rbuf != null)
                 node.rbuf.release();
             s_nodeNextUpdater.lazySet( node, null );
@@ -1047,6 +1676,9 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         }
         m_head = node;
 
+        s_statMessagesDroppedUpdater.lazySet( this, m_statMessagesDropped + messagesDropped );
+        s_statBytesDroppedUpdater.lazySet( this, m_statBytesDropped + bytesDropped );
+
         if (ex != null)
         {
             /* SocketChannel.write() can throw following exceptions:
@@ -1057,7 +1689,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
              *   - IOException
              * Everything except the IOException we considering as a bug.
              */
-            if (ex.getClass().equals(IOException.class))
+            if (m_abort || ex.getClass().equals(IOException.class))
             {
                 if (s_logger.isLoggable(Level.FINER))
                 {
@@ -1106,6 +1738,7 @@ class SessionImpl implements Session, ColliderImpl.ChannelHandler
         if (next == null)
         {
             m_head = null;
+            m_queuedTail = node;
             if (!m_tail.compareAndSet(node, null))
             {
                 while (node.next == null);
@@ -39,19 +39,38 @@ public abstract class ShMem
         protected final int m_blockSize;
         protected final int m_nextBlockPos;
         protected final FileChannel m_fileChannel;
+        protected final boolean m_preTouch;
         protected MappedByteBuffer [] m_mbb;
 
+        protected final MappedByteBuffer mapBlock( int idx ) throws IOException
+        {
+            final MappedByteBuffer ret =
+                    m_fileChannel.map( FileChannel.MapMode.READ_WRITE, (long)idx*m_blockSize, m_blockSize );
+            if (m_preTouch)
+                ret.load();
+            return ret;
+        }
+
         public Channel( File file, int blockSize, boolean init ) throws IOException
+        {
+            this( file, blockSize, init, false );
+        }
+
+        /* With <preTouch> set each block is loaded to the memory when mapped,
+         * so the data path will not hit page faults.
+         */
+        public Channel( File file, int blockSize, boolean init, boolean preTouch ) throws IOException
         {
             m_file = file;
             m_blockSize = blockSize;
             m_nextBlockPos = (blockSize - 4);
             m_fileChannel = new RandomAccessFile(file, "rw").getChannel();
+            m_preTouch = preTouch;
             m_mbb = new MappedByteBuffer[8];
 
             for (int idx=0; idx<2; idx++)
             {
-                m_mbb[idx] = m_fileChannel.map( FileChannel.MapMode.READ_WRITE, idx*m_blockSize, m_blockSize );
+                m_mbb[idx] = mapBlock( idx );
                 if (init)
                 {
                     m_mbb[idx].putInt( m_nextBlockPos, -1 );
@@ -110,7 +129,12 @@ public abstract class ShMem
 
         public ChannelIn( File file, int blockSize, boolean init ) throws IOException
         {
-            super( file, blockSize, init );
+            this( file, blockSize, init, false );
+        }
+
+        public ChannelIn( File file, int blockSize, boolean init, boolean preTouch ) throws IOException
+        {
+            super( file, blockSize, init, preTouch );
             m_idx = 0;
         }
 
@@ -152,8 +176,7 @@ public abstract class ShMem
                     MappedByteBuffer nextBuf;
                     try
                     {
-                        nextBuf = m_fileChannel.map(
-                                FileChannel.MapMode.READ_WRITE, nextIdx*m_blockSize, m_blockSize );
+                        nextBuf = mapBlock( nextIdx );
                     }
                     catch (IOException ex)
                     {
@@ -183,7 +206,12 @@ public abstract class ShMem
 
         public ChannelOut( File file, int blockSize, boolean init ) throws IOException
         {
-            super( file, blockSize, init );
+            this( file, blockSize, init, false );
+        }
+
+        public ChannelOut( File file, int blockSize, boolean init, boolean preTouch ) throws IOException
+        {
+            super( file, blockSize, init, preTouch );
             m_idx = 0;
         }
 
@@ -246,8 +274,7 @@ public abstract class ShMem
                 MappedByteBuffer nextBuf;
                 try
                 {
-                    nextBuf = m_fileChannel.map(
-                            FileChannel.MapMode.READ_WRITE, idx*m_blockSize, m_blockSize );
+                    nextBuf = mapBlock( idx );
                 }
                 catch (IOException ex)
                 {
@@ -35,28 +35,43 @@ public class ShMemClient extends ShMem
     private final ByteBuffer m_c2sBB;
     private final ByteBuffer m_s2cBB;
 
-    public ShMemClient( String fileHint, int blockSize, File directory ) throws IOException
+    /**
+     * Creates shared memory channel files in the given directory.
+     * To use huge pages the directory should be on a hugetlbfs
+     * and the page size should be the huge page size (2M usually),
+     * tmpfs directory (like /dev/shm) avoids any disk writes.
+     * @param fileHint file name hint
+     * @param blockSize size of the shared memory block, rounded up to the page size
+     * @param directory directory for the files, null means default temporary-file directory
+     * @param pageSize memory page size of the file system
+     * @param preTouch load each block to the memory when mapped
+     * @throws IOException if failed to create or map the file
+     */
+    public ShMemClient( String fileHint, int blockSize, File directory, int pageSize, boolean preTouch ) throws IOException
     {
-        /* It will be better if block size is a multiplier of 4096. */
-        if ((blockSize & 0x0FFF) > 0)
-        {
-            blockSize &= ~0x0FFF;
-            blockSize +=  0x1000;
-        }
+        /* Block size should be a multiplier of the page size. */
+        final int rem = (blockSize % pageSize);
+        if (rem > 0)
+            blockSize += (pageSize - rem);
         m_blockSize = blockSize;
 
         final String prefix = "jsc-" + fileHint + "-";
         final File fileC2S = File.createTempFile( prefix, ".c2s", directory );
-        m_out = new ChannelOut( fileC2S, blockSize, true );
+        m_out = new ChannelOut( fileC2S, blockSize, true, preTouch );
 
         final File fileS2C = File.createTempFile( prefix, ".s2c", directory );
-        m_in = new ChannelIn( fileS2C, blockSize, true );
+        m_in = new ChannelIn( fileS2C, blockSize, true, preTouch );
 
         final CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
         m_c2sBB = encoder.encode( CharBuffer.wrap(fileC2S.getAbsolutePath()) );
         m_s2cBB = encoder.encode( CharBuffer.wrap(fileS2C.getAbsolutePath()) );
     }
 
+    public ShMemClient( String fileHint, int blockSize, File directory ) throws IOException
+    {
+        this( fileHint, blockSize, directory, Util.PAGE_SIZE, false );
+    }
+
     public ShMemClient( String fileHint, int blockSize ) throws IOException
     {
         this( fileHint, blockSize, null );
@@ -29,6 +29,11 @@ public class ShMemServer extends ShMem
     private final ChannelOut m_out;
 
     public ShMemServer( RetainableByteBuffer buf ) throws Exception
+    {
+        this( buf, false );
+    }
+
+    public ShMemServer( RetainableByteBuffer buf, boolean preTouch ) throws Exception
     {
         final short descriptorVersion = buf.getShort();
         final int bufLimit = buf.limit();
@@ -41,12 +46,12 @@ public class ShMemServer extends ShMem
         final int length = buf.getShort();
         buf.limit( buf.position() + length );
         final File fileC2S = new File( decoder.decode(buf.getNioByteBuffer()).toString() );
-        m_in = new ChannelIn( fileC2S, blockSize, false );
+        m_in = new ChannelIn( fileC2S, blockSize, false, preTouch );
 
         buf.limit( bufLimit );
         buf.getShort();
         final File fileS2C = new File( decoder.decode(buf.getNioByteBuffer()).toString() );
-        m_out = new ChannelOut( fileS2C, blockSize, false );
+        m_out = new ChannelOut( fileS2C, blockSize, false, preTouch );
     }
 
     public ChannelIn getIn()
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Thread safe wrapper of the TokenBucket,
+ * used to limit the total rate of all emitter sessions.
+ */
+class SharedTokenBucket
+{
+    private final ReentrantLock m_lock;
+    private final TokenBucket m_bucket;
+
+    SharedTokenBucket( long rate, long burst, long now )
+    {
+        m_lock = new ReentrantLock();
+        m_bucket = new TokenBucket( rate, burst, now );
+    }
+
+    final long getBurst()
+    {
+        return m_bucket.getBurst();
+    }
+
+    final long available( long now )
+    {
+        m_lock.lock();
+        try
+        {
+            return m_bucket.available( now );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    final void consume( long tokens )
+    {
+        m_lock.lock();
+        try
+        {
+            m_bucket.consume( tokens );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    final long getDelay( long tokens, long now )
+    {
+        m_lock.lock();
+        try
+        {
+            return m_bucket.getDelay( tokens, now );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+}
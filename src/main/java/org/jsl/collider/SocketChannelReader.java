@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,9 +34,7 @@ class SocketChannelReader extends ThreadPool.Runnable
     {
         public int runInSelectorThread()
         {
-            final int interestOps = m_selectionKey.interestOps();
-            assert( (interestOps & SelectionKey.OP_READ) == 0 );
-            m_selectionKey.interestOps( interestOps | SelectionKey.OP_READ );
+            startReadST();
             return 0;
         }
     }
@@ -44,13 +43,73 @@ class SocketChannelReader extends ThreadPool.Runnable
     {
         public int runInSelectorThread()
         {
-            final int interestOps = m_selectionKey.interestOps();
-            assert( (interestOps & SelectionKey.OP_READ) == 0 );
-            m_selectionKey.interestOps( interestOps | SelectionKey.OP_READ );
+            startReadST();
             return 1;
         }
     }
 
+    /* Applies the last suspendRead()/resumeRead() request,
+     * one instance is enough because the runnable is scheduled
+     * only if it is not in the selector thread queue yet.
+     */
+    private class ReadController extends ColliderImpl.SelectorThreadRunnable
+    {
+        public int runInSelectorThread()
+        {
+            int readControl;
+            for (;;)
+            {
+                readControl = s_readControlUpdater.get(SocketChannelReader.this);
+                assert((readControl & READ_CONTROL) != 0);
+                if (s_readControlUpdater.compareAndSet(SocketChannelReader.this, readControl, readControl - READ_CONTROL))
+                    break;
+            }
+
+            if (m_selectionKey == null)
+            {
+                /* Reader is already stopped. */
+                return 0;
+            }
+
+            if ((readControl & READ_SUSPEND) != 0)
+            {
+                if (!m_readSuspended)
+                {
+                    m_readSuspended = true;
+                    final int interestOps = m_selectionKey.interestOps();
+                    if ((interestOps & SelectionKey.OP_READ) != 0)
+                    {
+                        m_selectionKey.interestOps( interestOps - SelectionKey.OP_READ );
+                        m_readPending = true;
+                    }
+                }
+            }
+            else if (m_readSuspended)
+            {
+                m_readSuspended = false;
+                if (m_readPending)
+                {
+                    m_readPending = false;
+                    final int interestOps = m_selectionKey.interestOps();
+                    assert( (interestOps & SelectionKey.OP_READ) == 0 );
+                    m_selectionKey.interestOps( interestOps | SelectionKey.OP_READ );
+                }
+            }
+            return 0;
+        }
+    }
+
+    /* Continues data delivery after the reader yielded the thread,
+     * see deliveryQuota.
+     */
+    private class DataHandler extends ThreadPool.Runnable
+    {
+        public void runInThreadPool()
+        {
+            handleData( s_stateUpdater.get(SocketChannelReader.this) );
+        }
+    }
+
     private static class Suspender extends ColliderImpl.SelectorThreadRunnable
     {
         public int runInSelectorThread()
@@ -66,7 +125,7 @@ class SocketChannelReader extends ThreadPool.Runnable
         public int runInSelectorThread()
         {
             final int interestOps = m_selectionKey.interestOps();
-            if ((interestOps & SelectionKey.OP_READ) == 0)
+            if (((interestOps & SelectionKey.OP_READ) == 0) && !m_readPending)
             {
                 final int state = s_stateUpdater.get(SocketChannelReader.this);
                 if ((state & CLOSE) == 0)
@@ -109,7 +168,13 @@ class SocketChannelReader extends ThreadPool.Runnable
                         if ((newState & LENGTH_MASK) == 0)
                             m_collider.executeInThreadPool(new CloseNotifier());
 
-                        m_selectionKey.interestOps( interestOps - SelectionKey.OP_READ );
+                        /* Reader is idle, but OP_READ can be not set
+                         * if the read is suspended by the application.
+                         */
+                        if (m_readPending)
+                            m_readPending = false;
+                        else
+                            m_selectionKey.interestOps( interestOps - SelectionKey.OP_READ );
                         m_selectionKey = null;
                         m_socketChannel = null;
                         m_session.handleReaderStoppedST();
@@ -126,6 +191,7 @@ class SocketChannelReader extends ThreadPool.Runnable
         public void runInThreadPool()
         {
             m_closeListener.onConnectionClosed();
+            m_session.handleListenerClosed();
             logStats();
 
             // Possible queue states here are:
@@ -231,16 +297,36 @@ class SocketChannelReader extends ThreadPool.Runnable
     private static final AtomicIntegerFieldUpdater<SocketChannelReader>
         s_stateUpdater = AtomicIntegerFieldUpdater.newUpdater(SocketChannelReader.class, "m_state");
 
+    private static final AtomicLongFieldUpdater<SocketChannelReader>
+        s_statReadsUpdater = AtomicLongFieldUpdater.newUpdater(SocketChannelReader.class, "m_statReads");
+
+    private static final AtomicLongFieldUpdater<SocketChannelReader>
+        s_statBytesInUpdater = AtomicLongFieldUpdater.newUpdater(SocketChannelReader.class, "m_statBytesIn");
+
+    private static final AtomicLongFieldUpdater<SocketChannelReader>
+        s_statMessagesInUpdater = AtomicLongFieldUpdater.newUpdater(SocketChannelReader.class, "m_statMessagesIn");
+
+    private static final AtomicLongFieldUpdater<SocketChannelReader>
+        s_statReadSuspensionsUpdater = AtomicLongFieldUpdater.newUpdater(SocketChannelReader.class, "m_statReadSuspensions");
+
+    private static final AtomicIntegerFieldUpdater<SocketChannelReader>
+        s_readControlUpdater = AtomicIntegerFieldUpdater.newUpdater(SocketChannelReader.class, "m_readControl");
+
     private static final DummyListener s_dummyListener = new DummyListener();
 
     private static final int LENGTH_MASK = 0x0FFFFFFF;
     private static final int STOP        = 0x10000000;
     private static final int CLOSE       = 0x20000000;
 
+    private static final int READ_SUSPEND = 0x01;
+    private static final int READ_CONTROL = 0x02; /* ReadController is scheduled */
+
     private final ColliderImpl m_collider;
+    private final ColliderImpl.SessionCounters m_counters;
     private final SessionImpl m_session;
     private final int m_forwardReadMaxSize;
-    private final RetainableDataBlockCache m_dataBlockCache;
+    private final int m_deliveryQuota;
+    private final RetainableDataBlockCache [] m_dataBlockCache;
     private SocketChannel m_socketChannel;
     private SelectionKey m_selectionKey;
     private volatile Session.Listener m_dataListener;
@@ -250,8 +336,19 @@ class SocketChannelReader extends ThreadPool.Runnable
     private final Starter0 m_starter0;
     private final Starter1 m_starter1;
     private final Suspender m_suspender;
+    private final DataHandler m_dataHandler;
+    private final ReadController m_readController;
     private final ByteBuffer [] m_iov;
 
+    /* Read suspension requested by the application,
+     * m_readSuspended and m_readPending are accessed only
+     * in the selector thread, m_readPending means the reader is idle
+     * and OP_READ would be set if the read was not suspended.
+     */
+    private volatile int m_readControl;
+    private boolean m_readSuspended;
+    private boolean m_readPending;
+
     // We could reduce contention on the 'm_state' moving it
     // into RetainableDataBlock, but in this case we will not
     // be able to implement properly <forward read max size> feature.
@@ -260,9 +357,31 @@ class SocketChannelReader extends ThreadPool.Runnable
     private RetainableDataBlock m_head;
     private RetainableDataBlock m_tail;
 
-    private int m_statReads;
+    /* Current block size class, can be changed only in adaptive mode. */
+    private int m_cacheIdx;
+    private boolean m_decrease;
+
+    /* Reads and handleData() can run at the same time,
+     * but each counter is updated only by one of them.
+     */
+    private volatile long m_statReads;
+    private volatile long m_statBytesIn;
+    private volatile long m_statMessagesIn;
+    private volatile long m_statReadSuspensions;
     private int m_statHandleData;
 
+    private void startReadST()
+    {
+        if (m_readSuspended)
+            m_readPending = true;
+        else
+        {
+            final int interestOps = m_selectionKey.interestOps();
+            assert( (interestOps & SelectionKey.OP_READ) == 0 );
+            m_selectionKey.interestOps( interestOps | SelectionKey.OP_READ );
+        }
+    }
+
     private void resetQueue()
     {
         RetainableDataBlock dataBlock = m_head;
@@ -281,6 +400,8 @@ class SocketChannelReader extends ThreadPool.Runnable
 
     private void handleData( int state )
     {
+        int messages = 0;
+        int bytesDelivered = 0;
         handleDataLoop: for (;;)
         {
             final int bytesReady = (state & LENGTH_MASK);
@@ -308,7 +429,10 @@ class SocketChannelReader extends ThreadPool.Runnable
                 {
                     final int limit = (pos + bytesRemaining);
                     rd.limit(limit);
+                    final Object jfrEvent = JfrEvents.beginDataReceived();
                     m_dataListener.onDataReceived(rd);
+                    JfrEvents.commitDataReceived(jfrEvent, bytesRemaining);
+                    messages++;
                     /* limit can be changed by listener,
                      * let's set it again to avoid exception.
                      */
@@ -319,7 +443,10 @@ class SocketChannelReader extends ThreadPool.Runnable
 
                 bytesRemaining -= bb;
                 rd.limit(blockSize);
+                final Object jfrEvent = JfrEvents.beginDataReceived();
                 m_dataListener.onDataReceived(rd);
+                JfrEvents.commitDataReceived(jfrEvent, bb);
+                messages++;
 
                 final RetainableDataBlock next = m_head.next;
                 m_head.next = null;
@@ -343,11 +470,15 @@ class SocketChannelReader extends ThreadPool.Runnable
                         if ((newState & CLOSE) == 0)
                         {
                             if ((state & LENGTH_MASK) >= m_forwardReadMaxSize)
+                            {
+                                JfrEvents.readResumed(0);
                                 m_collider.executeInSelectorThread( m_starter0 );
+                            }
                         }
                         else
                         {
                             m_closeListener.onConnectionClosed();
+                            m_session.handleListenerClosed();
                             logStats();
 
                             // Possible queue states here are:
@@ -373,6 +504,7 @@ class SocketChannelReader extends ThreadPool.Runnable
                             ((newState & LENGTH_MASK) < m_forwardReadMaxSize) &&
                             ((newState & CLOSE) == 0))
                         {
+                            JfrEvents.readResumed(newState & LENGTH_MASK);
                             m_collider.executeInSelectorThread( m_starter0 );
                         }
                         state = newState;
@@ -381,21 +513,38 @@ class SocketChannelReader extends ThreadPool.Runnable
                 }
                 state = s_stateUpdater.get(this);
             }
+
+            /* More data is available, but the quota is exhausted,
+             * let other sessions use the thread, nobody else calls
+             * handleData() while the queue is not empty.
+             */
+            bytesDelivered += bytesReady;
+            if (bytesDelivered >= m_deliveryQuota)
+            {
+                m_collider.executeInThreadPool( m_dataHandler );
+                break;
+            }
         }
+
+        s_statMessagesInUpdater.lazySet(this, m_statMessagesIn + messages);
+        m_counters.messagesIn.add(messages);
     }
 
     SocketChannelReader(
             ColliderImpl colliderImpl,
             SessionImpl session,
             int forwardReadMaxSize,
-            RetainableDataBlockCache dataBlockCache,
+            int deliveryQuota,
+            RetainableDataBlockCache [] dataBlockCache,
             SocketChannel socketChannel,
             SelectionKey selectionKey,
             Session.Listener sessionListener )
     {
         m_collider = colliderImpl;
+        m_counters = colliderImpl.getSessionCounters();
         m_session = session;
         m_forwardReadMaxSize = forwardReadMaxSize;
+        m_deliveryQuota = deliveryQuota;
         m_dataBlockCache = dataBlockCache;
         m_socketChannel = socketChannel;
         m_selectionKey = selectionKey;
@@ -404,49 +553,111 @@ class SocketChannelReader extends ThreadPool.Runnable
         m_starter0 = new Starter0();
         m_starter1 = new Starter1();
         m_suspender = new Suspender();
+        m_dataHandler = new DataHandler();
+        m_readController = new ReadController();
         m_iov = new ByteBuffer[2];
-        m_head = m_dataBlockCache.get(2);
+        m_head = m_dataBlockCache[0].get(2);
         m_tail = m_head;
     }
 
+    private void updateBlockSize(long bytesReceived)
+    {
+        /* The same approach as Netty's AdaptiveRecvByteBufAllocator:
+         * switch to the bigger blocks at once if the read filled the current block size,
+         * switch to the smaller blocks if two reads in a row fit into the smaller block.
+         */
+        final int cacheIdx = m_cacheIdx;
+        if ((cacheIdx > 0) && (bytesReceived <= m_dataBlockCache[cacheIdx-1].getBlockSize()))
+        {
+            if (m_decrease)
+            {
+                m_cacheIdx = (cacheIdx - 1);
+                m_decrease = false;
+            }
+            else
+                m_decrease = true;
+        }
+        else
+        {
+            m_decrease = false;
+            if ((cacheIdx < (m_dataBlockCache.length - 1)) &&
+                (bytesReceived >= m_dataBlockCache[cacheIdx].getBlockSize()))
+            {
+                m_cacheIdx = (cacheIdx + 1);
+            }
+        }
+    }
+
     private void logStats()
     {
         if (s_logger.isLoggable(Level.FINE))
         {
             s_logger.fine(
                     m_session.getLocalAddress() + " -> " + m_session.getRemoteAddress() +
-                    ": reads=" + m_statReads + " handleData=" + m_statHandleData);
+                    ": reads=" + m_statReads + " handleData=" + m_statHandleData +
+                    " blockSize=" + m_dataBlockCache[m_cacheIdx].getBlockSize());
         }
     }
 
-    public void runInThreadPool()
+    private void reuseQueue(RetainableDataBlockCache dataBlockCache)
     {
-        /* In a case if the queue is empty
-         * we could try to reuse data blocks from the beginning.
+        /* All received data is already processed,
+         * handleData() does not access the queue and will not be called
+         * until next read, so we can reuse blocks not retained by the listener.
+         * Possible queue states here are:
+         * (m_head == m_tail)
+         * (m_head is empty) && (m_head != m_tail) && (m_head.next == m_tail) && (m_tail.next == null)
          */
-        /*
-        if ((s_stateUpdater.get(this) & LENGTH_MASK) == 0)
+        if (m_head == m_tail)
         {
-            // Can try to reuse all blocks we have in the queue
-            RetainableDataBlock next;
-            for (;;)
+            assert(m_tail.rd.position() == m_tail.wr.position());
+            if ((m_tail.wr.position() > 0) && m_tail.clearSafe() &&
+                (m_tail.wr.capacity() != dataBlockCache.getBlockSize()))
             {
-                final boolean reuse = m_head.clearSafe();
-                next = m_head.next;
-                if (reuse)
-                    break;
-                m_head.release();
-                m_head = next;
+                /* Block size class changed, better to get a new block. */
+                final RetainableDataBlock next = m_tail.next;
+                m_tail.next = null;
+                m_tail.release();
+                m_tail = dataBlockCache.get(1);
+                m_tail.next = next;
+                m_head = m_tail;
             }
         }
-        */
+        else
+        {
+            assert(m_head.rd.position() == m_head.rd.capacity());
+            assert(m_head.next == m_tail);
+            assert(m_tail.wr.position() == 0);
+            assert(m_tail.next == null);
+
+            final RetainableDataBlock head = m_head;
+            m_head = m_tail;
+            head.next = null;
+            if ((head.wr.capacity() == dataBlockCache.getBlockSize()) && head.clearSafe())
+                m_tail.next = head;
+            else
+                head.release();
+        }
+    }
+
+    public void runInThreadPool()
+    {
+        final Object jfrEvent = JfrEvents.beginReaderRun();
+        final RetainableDataBlockCache dataBlockCache = m_dataBlockCache[m_cacheIdx];
+
+        /* In a case if the queue is empty
+         * we could try to reuse data blocks from the beginning,
+         * it reduces data block cache contention and keeps memory hot.
+         */
+        if ((s_stateUpdater.get(this) & LENGTH_MASK) == 0)
+            reuseQueue(dataBlockCache);
 
         /* Always read 2 data blocks */
         int remaining = m_tail.wr.remaining();
         if (remaining == 0)
         {
             assert(m_tail.next == null);
-            m_tail.next = m_dataBlockCache.get(2);
+            m_tail.next = dataBlockCache.get(2);
             m_tail = m_tail.next;
             remaining = m_tail.wr.remaining();
             assert(remaining == m_tail.wr.capacity());
@@ -454,9 +665,19 @@ class SocketChannelReader extends ThreadPool.Runnable
         else
         {
             if (m_tail.next == null)
-                m_tail.next = m_dataBlockCache.get(1);
+                m_tail.next = dataBlockCache.get(1);
             else
+            {
                 assert(m_tail.next.wr.position() == 0);
+                if (m_tail.next.wr.capacity() != dataBlockCache.getBlockSize())
+                {
+                    /* Block size class changed, the next block is still empty
+                     * and not visible to the handleData(), can replace it.
+                     */
+                    m_tail.next.release();
+                    m_tail.next = dataBlockCache.get(1);
+                }
+            }
         }
 
         m_iov[0] = m_tail.wr;
@@ -466,7 +687,7 @@ class SocketChannelReader extends ThreadPool.Runnable
         try
         {
             bytesReceived = m_socketChannel.read( m_iov, 0, 2 );
-            m_statReads++;
+            s_statReadsUpdater.lazySet(this, m_statReads + 1);
         }
         catch (final ClosedChannelException ex)
         {
@@ -508,6 +729,13 @@ class SocketChannelReader extends ThreadPool.Runnable
         int state = s_stateUpdater.get(this);
         if (bytesReceived > 0)
         {
+            s_statBytesInUpdater.lazySet(this, m_statBytesIn + bytesReceived);
+            m_counters.bytesIn.add(bytesReceived);
+            m_session.updateReadTime();
+
+            if (m_dataBlockCache.length > 1)
+                updateBlockSize(bytesReceived);
+
             if (bytesReceived >= remaining)
             {
                 // m_tail must be updated before m_state
@@ -542,6 +770,9 @@ class SocketChannelReader extends ThreadPool.Runnable
             else
             {
                 assert((length - m_forwardReadMaxSize) < m_forwardReadMaxSize);
+                s_statReadSuspensionsUpdater.lazySet(this, m_statReadSuspensions + 1);
+                m_counters.readSuspensions.increment();
+                JfrEvents.readSuspended(length);
                 m_collider.executeInSelectorThreadNoWakeup(m_suspender);
             }
 
@@ -579,6 +810,7 @@ class SocketChannelReader extends ThreadPool.Runnable
             if ((state & LENGTH_MASK) == 0)
             {
                 m_closeListener.onConnectionClosed();
+                m_session.handleListenerClosed();
                 logStats();
 
                 // Possible queue states here are:
@@ -591,6 +823,27 @@ class SocketChannelReader extends ThreadPool.Runnable
                 resetQueue();
             }
         }
+
+        JfrEvents.commitReaderRun(jfrEvent, bytesReceived);
+    }
+
+    public final void getMetrics(Session.Metrics metrics)
+    {
+        metrics.bytesIn = m_statBytesIn;
+        metrics.reads = m_statReads;
+        metrics.messagesIn = m_statMessagesIn;
+        metrics.readSuspensions = m_statReadSuspensions;
+    }
+
+    /* Current session listener, can be called from any thread,
+     * so the result can be a bit outdated.
+     */
+    final Session.Listener getListener()
+    {
+        final Session.Listener listener = m_dataListener;
+        if (listener instanceof ShMemListener)
+            return ((ShMemListener) listener).m_listener;
+        return listener;
     }
 
     public final Session.Listener replaceListener(Session.Listener newListener)
@@ -653,6 +906,42 @@ class SocketChannelReader extends ThreadPool.Runnable
         }
     }
 
+    private int controlRead( boolean suspend )
+    {
+        for (;;)
+        {
+            if ((s_stateUpdater.get(this) & (STOP | CLOSE)) != 0)
+                return -1;
+
+            final int readControl = s_readControlUpdater.get(this);
+            if (((readControl & READ_SUSPEND) != 0) == suspend)
+                return 0;
+
+            final int newReadControl = ((readControl ^ READ_SUSPEND) | READ_CONTROL);
+            if (s_readControlUpdater.compareAndSet(this, readControl, newReadControl))
+            {
+                if ((readControl & READ_CONTROL) == 0)
+                    m_collider.executeInSelectorThread( m_readController );
+                return 0;
+            }
+        }
+    }
+
+    public final int suspendRead()
+    {
+        return controlRead( true );
+    }
+
+    public final int resumeRead()
+    {
+        return controlRead( false );
+    }
+
+    final boolean isReadSuspended()
+    {
+        return ((s_readControlUpdater.get(this) & READ_SUSPEND) != 0);
+    }
+
     public final void reset()
     {
         /* Supposed to be called by SessionImpl in a case if session
@@ -660,6 +949,7 @@ class SocketChannelReader extends ThreadPool.Runnable
          * but before it was started.
          */
         m_closeListener.onConnectionClosed();
+        m_session.handleListenerClosed();
 
         assert( m_head == m_tail );
         assert( m_head.next != null );
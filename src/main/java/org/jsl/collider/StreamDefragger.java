@@ -35,6 +35,13 @@ import java.nio.ByteBuffer;
  * Method <tt>getNext</tt> returns the next available whole message,
  * or null if no message is available.
  *
+ * By default a message split between two data blocks is copied
+ * into the contiguous buffer. Being created with <tt>zeroCopy</tt>
+ * flag defragger retains the data blocks instead and returns such a message
+ * as a CompositeRetainableByteBuffer (header still should be in one block).
+ * Returned message is valid till the next <tt>getNext</tt> call,
+ * should be retained (or duplicated) to be used later.
+ *
  * Here is a usage example with Session.Listener
  * for simple message header containing only 4-bytes length field:
  *
@@ -72,7 +79,10 @@ public abstract class StreamDefragger
     public final static RetainableByteBuffer INVALID_HEADER = new BufferImpl(null);
 
     private final int m_headerSize;
+    private final boolean m_zeroCopy;
     private RetainableByteBuffer m_buf;
+    private CompositeRetainableByteBuffer m_comp;
+    private CompositeRetainableByteBuffer m_msg;
     private RetainableByteBuffer m_data;
     private int m_packetLen;
     private int m_pos;
@@ -122,14 +132,58 @@ public abstract class StreamDefragger
         }
     }
 
-    public StreamDefragger(int headerSize)
+    private void releaseMessage()
+    {
+        if (m_msg != null)
+        {
+            m_msg.release();
+            m_msg = null;
+        }
+    }
+
+    public StreamDefragger(int headerSize, boolean zeroCopy)
     {
         m_headerSize = headerSize;
+        m_zeroCopy = zeroCopy;
+    }
+
+    public StreamDefragger(int headerSize)
+    {
+        this(headerSize, false);
     }
 
     public final RetainableByteBuffer getNext(RetainableByteBuffer data)
     {
         assert(m_data == null);
+        releaseMessage();
+
+        if (m_comp != null)
+        {
+            /* Message crosses the data blocks boundary,
+             * header is already in the composite buffer.
+             */
+            final int pos = data.position();
+            final int limit = data.limit();
+            final int cc = (m_packetLen - m_comp.capacity());
+            if ((limit - pos) < cc)
+            {
+                m_comp.addComponent(data);
+                return null;
+            }
+
+            data.limit(pos + cc);
+            m_comp.addComponent(data);
+            data.limit(limit);
+
+            m_msg = m_comp;
+            m_comp = null;
+
+            m_data = data;
+            m_pos = (pos + cc);
+            m_limit = limit;
+
+            return m_msg;
+        }
 
         if ((m_buf != null) && (m_buf.position() > 0))
         {
@@ -183,6 +237,7 @@ public abstract class StreamDefragger
 
     public final RetainableByteBuffer getNext()
     {
+        releaseMessage();
         m_data.position(m_pos);
         m_data.limit(m_limit);
 
@@ -217,6 +272,14 @@ public abstract class StreamDefragger
 
         if (bytesRemaining < m_packetLen)
         {
+            if (m_zeroCopy)
+            {
+                m_comp = new CompositeRetainableByteBuffer();
+                m_comp.addComponent(m_data);
+                m_data = null;
+                return null;
+            }
+
             if (m_buf == null)
                 m_buf = BufferImpl.create(m_packetLen, dataByteBuffer.isDirect());
             else if (m_buf.capacity() < m_packetLen)
@@ -245,6 +308,14 @@ public abstract class StreamDefragger
             m_buf.release();
             m_buf = null;
         }
+
+        if (m_comp != null)
+        {
+            m_comp.release();
+            m_comp = null;
+        }
+
+        releaseMessage();
     }
 
     abstract protected int validateHeader(ByteBuffer header);
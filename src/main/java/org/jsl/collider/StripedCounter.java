@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter to be updated concurrently by many threads.
+ * Value is spread over a number of stripes placed at the separate
+ * cache lines, each thread updates the stripe selected by the thread id,
+ * so the threads do not contend on the same memory. Update does not
+ * allocate anything, the value is a sum of all stripes.
+ */
+public class StripedCounter
+{
+    /* 128 bytes between stripes, adjacent cache line prefetch included. */
+    private static final int PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicLongArray m_data;
+    private final int m_mask;
+
+    public StripedCounter()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedCounter(int stripes)
+    {
+        if (stripes > MAX_STRIPES)
+            stripes = MAX_STRIPES;
+
+        int size = 1;
+        while (size < stripes)
+            size *= 2;
+
+        m_data = new AtomicLongArray(size * PADDING);
+        m_mask = (size - 1);
+    }
+
+    public final void add(long value)
+    {
+        /* Thread ids are sequential, so thread pool workers
+         * created at once definitely get the different stripes.
+         */
+        final int idx = ((int) Thread.currentThread().getId() & m_mask);
+        m_data.getAndAdd((idx * PADDING) + PADDING - 1, value);
+    }
+
+    public final void increment()
+    {
+        add(1);
+    }
+
+    public final long get()
+    {
+        long ret = 0;
+        for (int idx=PADDING-1; idx<m_data.length(); idx+=PADDING)
+            ret += m_data.get(idx);
+        return ret;
+    }
+
+    public String toString()
+    {
+        return Long.toString(get());
+    }
+}
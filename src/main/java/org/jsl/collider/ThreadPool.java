@@ -26,11 +26,12 @@ import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class ThreadPool
+public class ThreadPool implements ThreadPoolMXBean
 {
     public static abstract class Runnable
     {
         public volatile Runnable nextThreadPoolRunnable;
+        Object jfrQueueWait;
         public abstract void runInThreadPool();
     }
 
@@ -67,6 +68,12 @@ public class ThreadPool
                     }
                     else
                     {
+                        final Object jfrEvent = runnable.jfrQueueWait;
+                        if (jfrEvent != null)
+                        {
+                            runnable.jfrQueueWait = null;
+                            JfrEvents.commitQueueWait(jfrEvent, m_name);
+                        }
                         runnable.runInThreadPool();
                         cc = m_contentionFactor;
                     }
@@ -94,6 +101,7 @@ public class ThreadPool
                             if (s_stateUpdater.compareAndSet(ThreadPool.this, state, state|workerId))
                             {
                                 parks++;
+                                m_parks.increment();
                                 LockSupport.park();
                                 break;
                             }
@@ -129,6 +137,7 @@ public class ThreadPool
 
             if (m_hra.compareAndSet(idx, runnable, LOCK))
             {
+                m_taken.increment();
                 if (runnable.nextThreadPoolRunnable == null)
                 {
                     m_hra.set(idx, null);
@@ -170,6 +179,10 @@ public class ThreadPool
     private final Thread [] m_thread;
     private final AtomicReferenceArray<Runnable> m_hra;
     private final AtomicReferenceArray<Runnable> m_tra;
+    private final StripedCounter m_executed;
+    private final StripedCounter m_taken;
+    private final StripedCounter m_parks;
+    private final StripedCounter m_unparks;
     private volatile int m_state;
 
     public ThreadPool(String name, int threads, int threadPriority, int contentionFactor)
@@ -198,6 +211,10 @@ public class ThreadPool
 
         m_hra = new AtomicReferenceArray<Runnable>( contentionFactor * FS_PADDING );
         m_tra = new AtomicReferenceArray<Runnable>( contentionFactor * FS_PADDING );
+        m_executed = new StripedCounter();
+        m_taken = new StripedCounter(threads);
+        m_parks = new StripedCounter(threads);
+        m_unparks = new StripedCounter();
         m_state = 0;
     }
 
@@ -252,28 +269,71 @@ public class ThreadPool
         }
     }
 
-    public final void execute(Runnable runnable)
+    public final int getWorkers()
     {
-        assert(runnable.nextThreadPoolRunnable == null);
+        return m_thread.length;
+    }
 
-        int idx = (int) Thread.currentThread().getId();
-        idx = (idx % m_contentionFactor) * FS_PADDING + FS_PADDING - 1;
+    public final int getIdleWorkersMask()
+    {
+        return (m_state & IDLE_THREADS_MASK);
+    }
 
-        final Runnable tail = m_tra.getAndSet(idx, runnable);
-        if (tail == null)
-            m_hra.set(idx, runnable);
-        else
-            tail.nextThreadPoolRunnable = runnable;
+    public final int getIdleWorkers()
+    {
+        return Integer.bitCount(m_state & IDLE_THREADS_MASK);
+    }
 
+    public final long getQueueDepth()
+    {
+        /* Read taken counter first to never get a negative value. */
+        final long taken = m_taken.get();
+        return (m_executed.get() - taken);
+    }
+
+    public final long getExecuted()
+    {
+        return m_executed.get();
+    }
+
+    /**
+     * @return how many times worker threads were parked
+     * because there was nothing to run.
+     */
+    public final long getParks()
+    {
+        return m_parks.get();
+    }
+
+    /**
+     * @return how many times a parked worker thread
+     * was unparked to run a new runnable.
+     */
+    public final long getUnparks()
+    {
+        return m_unparks.get();
+    }
+
+    private int getQueueIndex()
+    {
+        final int idx = (int) Thread.currentThread().getId();
+        return (idx % m_contentionFactor) * FS_PADDING + FS_PADDING - 1;
+    }
+
+    /* Unparks one idle worker,
+     * returns false if there are no idle workers.
+     */
+    private boolean unparkWorker()
+    {
         for (;;)
         {
             final int state = s_stateUpdater.get(this);
             if ((state & IDLE_THREADS_MASK) == 0)
             {
                 if ((state & STATE_SPIN) != 0)
-                    break;
+                    return false;
                 if (s_stateUpdater.compareAndSet(this, state, state|STATE_SPIN))
-                    break;
+                    return false;
             }
             else
             {
@@ -294,10 +354,62 @@ public class ThreadPool
                 final int newState = (state ^ (1 << workerIdx));
                 if (s_stateUpdater.compareAndSet(this, state, newState))
                 {
+                    m_unparks.increment();
                     LockSupport.unpark(m_thread[workerIdx]);
-                    break;
+                    return true;
                 }
             }
         }
     }
+
+    public final void execute(Runnable runnable)
+    {
+        assert(runnable.nextThreadPoolRunnable == null);
+
+        final int idx = getQueueIndex();
+        m_executed.increment();
+        runnable.jfrQueueWait = JfrEvents.beginQueueWait();
+        final Runnable tail = m_tra.getAndSet(idx, runnable);
+        if (tail == null)
+            m_hra.set(idx, runnable);
+        else
+            tail.nextThreadPoolRunnable = runnable;
+
+        unparkWorker();
+    }
+
+    /**
+     * Schedules a batch of runnables, runnables are linked together
+     * and added to the queue at once, then not more idle workers
+     * than the batch size are unparked.
+     * @param runnables runnables to execute, should be not scheduled yet
+     * @param count number of runnables in the array
+     */
+    public final void execute(Runnable [] runnables, int count)
+    {
+        if (count == 0)
+            return;
+
+        Runnable last = runnables[0];
+        assert(last.nextThreadPoolRunnable == null);
+        last.jfrQueueWait = JfrEvents.beginQueueWait();
+        for (int ridx=1; ridx<count; ridx++)
+        {
+            final Runnable runnable = runnables[ridx];
+            assert(runnable.nextThreadPoolRunnable == null);
+            runnable.jfrQueueWait = JfrEvents.beginQueueWait();
+            s_nextUpdater.lazySet(last, runnable);
+            last = runnable;
+        }
+
+        final int idx = getQueueIndex();
+        m_executed.add(count);
+        final Runnable tail = m_tra.getAndSet(idx, last);
+        if (tail == null)
+            m_hra.set(idx, runnables[0]);
+        else
+            tail.nextThreadPoolRunnable = runnables[0];
+
+        for (int ridx=0; (ridx<count) && unparkWorker(); ridx++);
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+public interface ThreadPoolMXBean
+{
+    int getWorkers();
+
+    /**
+     * @return bit mask of the currently parked workers
+     */
+    int getIdleWorkersMask();
+    int getIdleWorkers();
+
+    /**
+     * @return amount of runnables scheduled but not started yet
+     */
+    long getQueueDepth();
+    long getExecuted();
+
+    long getParks();
+    long getUnparks();
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 Sergey Zubarev, info@js-labs.org
+ *
+ * This file is a part of JS-Collider framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.collider;
+
+/*
+ * Token bucket rate limiter, not thread safe,
+ * supposed to be used by one thread at a time.
+ * Bucket is refilled with <rate> tokens per second
+ * up to <burst> tokens, initially the bucket is full.
+ * consume() can take more tokens than available,
+ * the debt is repaid by the following refills.
+ */
+class TokenBucket
+{
+    private final double m_rate; /* tokens per nanosecond */
+    private final double m_burst;
+    private double m_tokens;
+    private long m_time;
+
+    TokenBucket( long rate, long burst, long now )
+    {
+        m_rate = (rate / 1000000000.0);
+        m_burst = burst;
+        m_tokens = burst;
+        m_time = now;
+    }
+
+    private void refill( long now )
+    {
+        final long elapsed = (now - m_time);
+        if (elapsed > 0)
+        {
+            m_tokens = Math.min( m_burst, m_tokens + elapsed*m_rate );
+            m_time = now;
+        }
+    }
+
+    final long getBurst()
+    {
+        return (long) m_burst;
+    }
+
+    /**
+     * @param now current time, nanoseconds
+     * @return number of tokens available, 0 if there is a debt
+     */
+    final long available( long now )
+    {
+        refill( now );
+        return ((m_tokens > 0) ? (long) m_tokens : 0);
+    }
+
+    final void consume( long tokens )
+    {
+        m_tokens -= tokens;
+    }
+
+    /**
+     * @param tokens number of tokens required, not more than burst
+     * @param now current time, nanoseconds
+     * @return time in nanoseconds till the tokens will be available
+     */
+    final long getDelay( long tokens, long now )
+    {
+        refill( now );
+        final double deficit = (tokens - m_tokens);
+        return ((deficit > 0) ? (long) Math.ceil(deficit / m_rate) : 0);
+    }
+
+    /**
+     * @param tokens number of tokens to take
+     * @param now current time, nanoseconds
+     * @return true if tokens taken, false if there are not enough tokens
+     */
+    final boolean tryAcquire( long tokens, long now )
+    {
+        refill( now );
+        if (m_tokens >= tokens)
+        {
+            m_tokens -= tokens;
+            return true;
+        }
+        return false;
+    }
+}
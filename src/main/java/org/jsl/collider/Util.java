@@ -23,6 +23,30 @@ public class Util
 {
     private static final char [] HD = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
 
+    /* There is no way to get a real page size in plain Java,
+     * 4K is the most common one.
+     */
+    public static final int PAGE_SIZE = 4096;
+
+    /* Touches all memory pages of the buffer to take page faults now
+     * but not on the first access in the data processing path.
+     * Supposed to be used for the new heap, direct or arena buffers only,
+     * one byte of each page is written with zero. Note that any direct
+     * buffer is a MappedByteBuffer, but load() works only for the
+     * file mapped ones, so it is called where the file is mapped.
+     */
+    public static void preTouch(ByteBuffer byteBuffer)
+    {
+        final int capacity = byteBuffer.capacity();
+        if (capacity > 0)
+        {
+            for (int pos=0; pos<capacity; pos+=PAGE_SIZE)
+                byteBuffer.put(pos, (byte) 0);
+            /* Buffer can start not at the page boundary */
+            byteBuffer.put(capacity-1, (byte) 0);
+        }
+    }
+
     public static String formatDelay(long startTime, long endTime)
     {
         final long delay = ((endTime - startTime) / 1000);
@@ -0,0 +1,203 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.acceptor_admission;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/*
+ * Acceptor admission control test:
+ * every limit is checked with a separate acceptor,
+ * client opens more connections than the limit allows,
+ * extra connections should be rejected without session creation.
+ */
+public class Main
+{
+    private final Collider m_collider;
+
+    private static class ServerListener implements Session.Listener
+    {
+        private final AtomicInteger m_sessions;
+
+        public ServerListener( AtomicInteger sessions )
+        {
+            m_sessions = sessions;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+            m_sessions.decrementAndGet();
+        }
+    }
+
+    private static class TestAcceptor extends Acceptor
+    {
+        private final CountDownLatch m_started;
+        private final AtomicInteger m_sessions;
+        private final AtomicInteger m_sessionsCreated;
+        private int m_port;
+
+        public TestAcceptor()
+        {
+            super( 0 );
+            m_started = new CountDownLatch( 1 );
+            m_sessions = new AtomicInteger();
+            m_sessionsCreated = new AtomicInteger();
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            m_port = localPort;
+            m_started.countDown();
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            m_sessions.incrementAndGet();
+            m_sessionsCreated.incrementAndGet();
+            return new ServerListener( m_sessions );
+        }
+
+        public int getPort() throws InterruptedException
+        {
+            m_started.await();
+            return m_port;
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+    }
+
+    private static void waitFor( String what, BooleanSupplier condition ) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() > deadline)
+                throw new AssertionError( "Timeout waiting for " + what );
+            Thread.sleep( 10 );
+        }
+    }
+
+    private static ArrayList<Socket> connect( int port, int connections ) throws IOException
+    {
+        final ArrayList<Socket> sockets = new ArrayList<Socket>();
+        for (int idx=0; idx<connections; idx++)
+            sockets.add( new Socket("localhost", port) );
+        return sockets;
+    }
+
+    private static void close( ArrayList<Socket> sockets ) throws IOException
+    {
+        for (Socket socket : sockets)
+            socket.close();
+    }
+
+    private void testMaxSessions() throws Exception
+    {
+        final TestAcceptor acceptor = new TestAcceptor();
+        acceptor.maxSessions = 2;
+        m_collider.addAcceptor( acceptor );
+
+        final ArrayList<Socket> sockets = connect( acceptor.getPort(), 3 );
+        final Acceptor.AdmissionStats stats = acceptor.getAdmissionStats();
+        waitFor( "max sessions rejection", () -> (stats.getRejectedMaxSessions() == 1) );
+        waitFor( "sessions", () -> (acceptor.m_sessionsCreated.get() == 2) );
+
+        /* Closed session releases the slot. */
+        sockets.get(0).close();
+        waitFor( "session close", () -> (acceptor.m_sessions.get() == 1) );
+        sockets.add( new Socket("localhost", acceptor.getPort()) );
+        waitFor( "session after close", () -> (acceptor.m_sessionsCreated.get() == 3) );
+        System.out.println( "maxSessions: rejected " + stats.getRejectedMaxSessions() );
+
+        m_collider.removeAcceptor( acceptor );
+        close( sockets );
+    }
+
+    private void testMaxSessionsPerAddress() throws Exception
+    {
+        final TestAcceptor acceptor = new TestAcceptor();
+        acceptor.maxSessionsPerAddress = 1;
+        m_collider.addAcceptor( acceptor );
+
+        final ArrayList<Socket> sockets = connect( acceptor.getPort(), 3 );
+        final Acceptor.AdmissionStats stats = acceptor.getAdmissionStats();
+        waitFor( "per address rejection", () -> (stats.getRejectedPerAddress() == 2) );
+        waitFor( "sessions", () -> (acceptor.m_sessionsCreated.get() == 1) );
+        System.out.println( "maxSessionsPerAddress: rejected " + stats.getRejectedPerAddress() );
+
+        m_collider.removeAcceptor( acceptor );
+        close( sockets );
+    }
+
+    private void testAcceptRate() throws Exception
+    {
+        final TestAcceptor acceptor = new TestAcceptor();
+        acceptor.acceptRate = 1;
+        acceptor.acceptBurst = 2;
+        m_collider.addAcceptor( acceptor );
+
+        final ArrayList<Socket> sockets = connect( acceptor.getPort(), 5 );
+        final Acceptor.AdmissionStats stats = acceptor.getAdmissionStats();
+        waitFor( "accept rate rejection", () -> ((stats.getRejectedRate() + acceptor.m_sessionsCreated.get()) == 5) );
+        /* One more token can be added while connecting. */
+        final int sessionsCreated = acceptor.m_sessionsCreated.get();
+        if ((sessionsCreated < 2) || (sessionsCreated > 3))
+            throw new AssertionError();
+        System.out.println( "acceptRate: rejected " + stats.getRejectedRate() );
+
+        m_collider.removeAcceptor( acceptor );
+        close( sockets );
+    }
+
+    private void run() throws Exception
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+
+        testMaxSessions();
+        testMaxSessionsPerAddress();
+        testAcceptRate();
+
+        m_collider.stop();
+        colliderThread.join();
+    }
+
+    public static void main( String [] args ) throws Exception
+    {
+        new Main( Collider.create() ).run();
+        System.out.println( "Done." );
+    }
+}
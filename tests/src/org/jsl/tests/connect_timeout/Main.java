@@ -0,0 +1,139 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.connect_timeout;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Connect timeout test:
+ * server socket does not accept connections and its backlog is full,
+ * so the kernel drops SYN packets and the connection attempt hangs.
+ * Connector should fail every attempt with SocketTimeoutException
+ * after the connect timeout, reconnect is enabled to check
+ * the timer works for the subsequent attempts as well.
+ */
+public class Main
+{
+    private static final int CONNECT_TIMEOUT = 200;
+    private static final int ATTEMPTS = 3;
+
+    private final Collider m_collider;
+    private final InetSocketAddress m_addr;
+    private final AtomicInteger m_timeouts;
+    private volatile long m_startTime;
+    private volatile boolean m_failed;
+
+    private class TestConnector extends Connector
+    {
+        public TestConnector( InetSocketAddress addr )
+        {
+            super( addr );
+            connectTimeout = CONNECT_TIMEOUT;
+            reconnectDelay = 10;
+            reconnectJitter = 0;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            System.out.println( "Unexpected connection " + session.getLocalAddress() +
+                    " -> " + session.getRemoteAddress() + "." );
+            m_failed = true;
+            session.closeConnection();
+            return null;
+        }
+
+        public void onException( IOException ex )
+        {
+            final long time = ((System.nanoTime() - m_startTime) / 1000000);
+            final int timeouts = m_timeouts.incrementAndGet();
+            System.out.println( getAddr() + ": " + ex + " (" + time + " ms)." );
+
+            if (!(ex instanceof SocketTimeoutException) || (time < CONNECT_TIMEOUT))
+                m_failed = true;
+
+            if ((timeouts == ATTEMPTS) || m_failed)
+            {
+                try { m_collider.removeConnector( this ); }
+                catch (final InterruptedException ex1) { ex1.printStackTrace(); }
+                m_collider.stop();
+            }
+            else
+                m_startTime = (System.nanoTime() + 10*1000000);
+        }
+    }
+
+    private Main( Collider collider, InetSocketAddress addr )
+    {
+        m_collider = collider;
+        m_addr = addr;
+        m_timeouts = new AtomicInteger();
+    }
+
+    private void run()
+    {
+        m_startTime = System.nanoTime();
+        m_collider.addConnector( new TestConnector(m_addr) );
+        m_collider.run();
+
+        System.out.println( "Timeouts: " + m_timeouts.get() + "." );
+        if (m_failed || (m_timeouts.get() != ATTEMPTS))
+            throw new AssertionError();
+    }
+
+    public static void main( String [] args ) throws IOException
+    {
+        final InetAddress loopback = InetAddress.getLoopbackAddress();
+        final ServerSocket serverSocket = new ServerSocket( 0, 1, loopback );
+        final InetSocketAddress addr = new InetSocketAddress( loopback, serverSocket.getLocalPort() );
+
+        /* Fill the server socket backlog. */
+        final ArrayList<Socket> sockets = new ArrayList<Socket>();
+        for (;;)
+        {
+            final Socket socket = new Socket();
+            try
+            {
+                socket.connect( addr, 500 );
+                sockets.add( socket );
+            }
+            catch (final SocketTimeoutException ex)
+            {
+                socket.close();
+                break;
+            }
+        }
+        System.out.println( "Server socket backlog filled with " + sockets.size() + " connections." );
+
+        new Main( Collider.create(), addr ).run();
+
+        for (Socket socket : sockets)
+            socket.close();
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.connection_pool;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Connection pool test:
+ * pool of POOL_SIZE connections sends messages to the acceptor,
+ * with round robin picker every server session should receive
+ * the same amount of data, then one server session is closed
+ * and the pool should replace it with a new one.
+ */
+public class Main
+{
+    private static final int POOL_SIZE = 4;
+    private static final int MESSAGES = 4000;
+    private static final int MESSAGE_SIZE = 100;
+
+    private final Collider m_collider;
+    private final CountDownLatch m_acceptorStarted;
+    private final ArrayList<ServerListener> m_serverListeners;
+    private final AtomicLong m_bytesReceived;
+    private int m_port;
+
+    private class ServerListener implements Session.Listener
+    {
+        private final Session m_session;
+        private final AtomicLong m_bytesReceived;
+
+        public ServerListener( Session session )
+        {
+            m_session = session;
+            m_bytesReceived = new AtomicLong();
+        }
+
+        public Session getSession()
+        {
+            return m_session;
+        }
+
+        public long getBytesReceived()
+        {
+            return m_bytesReceived.get();
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            final int bytesReceived = data.remaining();
+            m_bytesReceived.addAndGet( bytesReceived );
+            Main.this.m_bytesReceived.addAndGet( bytesReceived );
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        public TestAcceptor()
+        {
+            super( 0 );
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            System.out.println( "Acceptor started at port " + localPort );
+            m_port = localPort;
+            m_acceptorStarted.countDown();
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            final ServerListener listener = new ServerListener( session );
+            synchronized (m_serverListeners)
+            {
+                m_serverListeners.add( listener );
+            }
+            return listener;
+        }
+    }
+
+    private static class ClientListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private static class TestPool extends ConnectionPool
+    {
+        public TestPool( InetSocketAddress addr )
+        {
+            super( addr, POOL_SIZE );
+            reconnectDelay = 10;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            System.out.println( session.getLocalAddress() + " -> " + session.getRemoteAddress() +
+                    ": pool session created." );
+            return new ClientListener();
+        }
+
+        public void onException( IOException ex )
+        {
+            ex.printStackTrace();
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+        m_acceptorStarted = new CountDownLatch( 1 );
+        m_serverListeners = new ArrayList<ServerListener>();
+        m_bytesReceived = new AtomicLong();
+    }
+
+    private int getServerSessions()
+    {
+        synchronized (m_serverListeners)
+        {
+            return m_serverListeners.size();
+        }
+    }
+
+    private static void waitFor( String what, java.util.function.BooleanSupplier condition ) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() > deadline)
+                throw new AssertionError( "Timeout waiting for " + what );
+            Thread.sleep( 10 );
+        }
+    }
+
+    private void sendMessages( ConnectionPool pool )
+    {
+        final ByteBuffer msg = ByteBuffer.allocateDirect( MESSAGE_SIZE );
+        for (int idx=0; idx<MESSAGE_SIZE; idx++)
+            msg.put( idx, (byte) idx );
+        for (int idx=0; idx<MESSAGES; idx++)
+        {
+            if (pool.sendData(msg.duplicate()) < 0)
+                throw new AssertionError();
+        }
+    }
+
+    private void run() throws IOException, InterruptedException
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+
+        m_collider.addAcceptor( new TestAcceptor() );
+        m_acceptorStarted.await();
+
+        final TestPool pool = new TestPool( new InetSocketAddress("localhost", m_port) );
+        pool.picker = ConnectionPool.ROUND_ROBIN;
+        pool.start( m_collider );
+        if (!pool.awaitConnected(POOL_SIZE, 10, TimeUnit.SECONDS))
+            throw new AssertionError();
+        waitFor( "server sessions", () -> (getServerSessions() == POOL_SIZE) );
+
+        /* Round robin: every session gets the same part of the messages. */
+        sendMessages( pool );
+        final long expectedBytes = ((long) MESSAGES * MESSAGE_SIZE);
+        waitFor( "round robin data", () -> (m_bytesReceived.get() == expectedBytes) );
+        synchronized (m_serverListeners)
+        {
+            for (ServerListener listener : m_serverListeners)
+            {
+                System.out.println( listener.getSession().getRemoteAddress() +
+                        ": received " + listener.getBytesReceived() + " bytes." );
+                if (listener.getBytesReceived() != (expectedBytes / POOL_SIZE))
+                    throw new AssertionError();
+            }
+        }
+
+        /* Least queued: all data should be delivered. */
+        pool.picker = ConnectionPool.LEAST_QUEUED;
+        sendMessages( pool );
+        waitFor( "least queued data", () -> (m_bytesReceived.get() == expectedBytes*2) );
+
+        /* Pool should replace the closed session. */
+        final Session serverSession;
+        synchronized (m_serverListeners)
+        {
+            serverSession = m_serverListeners.get(0).getSession();
+        }
+        serverSession.closeConnection();
+        waitFor( "pool reconnect",
+                () -> ((getServerSessions() == POOL_SIZE+1) && (pool.getConnectedCount() == POOL_SIZE)) );
+        System.out.println( "Pool session replaced." );
+
+        sendMessages( pool );
+        waitFor( "data after reconnect", () -> (m_bytesReceived.get() == expectedBytes*3) );
+
+        /* Closed sessions should not be used even before the close notification. */
+        pool.stop();
+        if ((pool.getSession() != null) || (pool.sendData(ByteBuffer.allocateDirect(MESSAGE_SIZE)) >= 0))
+            throw new AssertionError();
+        waitFor( "pool stop", () -> (pool.getConnectedCount() == 0) );
+
+        /* Stop of the not started pool should be harmless. */
+        new TestPool( new InetSocketAddress("localhost", m_port) ).stop();
+
+        m_collider.stop();
+        colliderThread.join();
+    }
+
+    public static void main( String [] args ) throws IOException, InterruptedException
+    {
+        new Main( Collider.create() ).run();
+        System.out.println( "Done." );
+    }
+}
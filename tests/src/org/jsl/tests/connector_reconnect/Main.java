@@ -0,0 +1,182 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.connector_reconnect;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Reconnecting connector test:
+ * connector starts when nothing listens on the port, so first
+ * few attempts fail, then the acceptor is started, it closes
+ * first sessions right away, connector should reconnect every time.
+ */
+public class Main
+{
+    private static final int CONNECT_FAILURES = 3;
+    private static final int SESSIONS = 4;
+
+    private final Collider m_collider;
+    private final int m_port;
+    private final AtomicInteger m_connectFailures;
+    private final AtomicInteger m_sessions;
+    private TestConnector m_connector;
+    private volatile boolean m_done;
+
+    private static class ServerListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        public TestAcceptor( int port )
+        {
+            super( port );
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            System.out.println( "Acceptor started at port " + localPort );
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            session.closeConnection();
+            return new ServerListener();
+        }
+    }
+
+    private class ClientListener implements Session.Listener
+    {
+        private final Session m_session;
+
+        public ClientListener( Session session )
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println( m_session.getLocalAddress() + " -> " + m_session.getRemoteAddress() +
+                    ": connection closed." );
+        }
+    }
+
+    private class TestConnector extends Connector
+    {
+        public TestConnector( InetSocketAddress addr )
+        {
+            super( addr );
+            reconnectDelay = 10;
+            reconnectMaxDelay = 100;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            final int sessions = m_sessions.incrementAndGet();
+            System.out.println( session.getLocalAddress() + " -> " + session.getRemoteAddress() +
+                    ": session " + sessions + " created." );
+            if (sessions == SESSIONS)
+            {
+                try { m_collider.removeConnector( this ); }
+                catch (final InterruptedException ex) { ex.printStackTrace(); }
+                m_done = true;
+                m_collider.stop();
+            }
+            return new ClientListener( session );
+        }
+
+        public void onException( IOException ex )
+        {
+            final int connectFailures = m_connectFailures.incrementAndGet();
+            System.out.println( getAddr() + ": connect failed (" + connectFailures + "): " + ex );
+            if (connectFailures == CONNECT_FAILURES)
+            {
+                try
+                {
+                    m_collider.addAcceptor( new TestAcceptor(m_port) );
+                }
+                catch (final IOException ex1)
+                {
+                    ex1.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private Main( Collider collider, int port )
+    {
+        m_collider = collider;
+        m_port = port;
+        m_connectFailures = new AtomicInteger();
+        m_sessions = new AtomicInteger();
+    }
+
+    private void run()
+    {
+        m_connector = new TestConnector( new InetSocketAddress("localhost", m_port) );
+        m_collider.addConnector( m_connector );
+        m_collider.run();
+
+        final Connector.ReconnectStats stats = m_connector.getReconnectStats();
+        System.out.println(
+                "Connect failures: " + m_connectFailures.get() +
+                ", sessions: " + m_sessions.get() +
+                ", reconnect attempts: " + stats.getAttempts() +
+                ", reconnects: " + stats.getReconnects() +
+                ", latency (nsec): " + stats.getLatency() + "." );
+
+        if (!m_done)
+            throw new AssertionError();
+        /* Acceptor start is asynchronous, one more attempt can fail. */
+        final int connectFailures = m_connectFailures.get();
+        if (connectFailures < CONNECT_FAILURES)
+            throw new AssertionError();
+        if (stats.getReconnects() != SESSIONS)
+            throw new AssertionError();
+        if (stats.getAttempts() != (connectFailures + SESSIONS - 1))
+            throw new AssertionError();
+    }
+
+    public static void main( String [] args ) throws IOException
+    {
+        /* Find a free port, nothing listens on it now. */
+        final ServerSocket serverSocket = new ServerSocket( 0 );
+        final int port = serverSocket.getLocalPort();
+        serverSocket.close();
+
+        new Main( Collider.create(), port ).run();
+    }
+}
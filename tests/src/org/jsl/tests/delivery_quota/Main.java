@@ -0,0 +1,224 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.delivery_quota;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Delivery quota test, mixed heavy and light sessions:
+ * heavy client floods the server, server listener spends some time
+ * on every received byte, so the heavy session always has data to deliver,
+ * light clients measure round trip time of the small echo messages.
+ * Collider has one thread pool thread, without the quota light session
+ * reads wait while the heavy session reader delivers all incoming data.
+ */
+public class Main
+{
+    private static final int HEAVY_BLOCK_SIZE = (64 * 1024);
+    private static final long HEAVY_NANOS_PER_BYTE = 10;
+    private static final int LIGHT_CLIENTS = 4;
+    private static final int LIGHT_MESSAGES = 100;
+    private static final int DELIVERY_QUOTA = (16 * 1024);
+
+    private static class HeavyListener implements Session.Listener
+    {
+        private final AtomicLong m_bytesReceived;
+
+        public HeavyListener( AtomicLong bytesReceived )
+        {
+            m_bytesReceived = bytesReceived;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            final int bytes = data.remaining();
+            final long endTime = System.nanoTime() + bytes*HEAVY_NANOS_PER_BYTE;
+            while (System.nanoTime() < endTime);
+            m_bytesReceived.addAndGet( bytes );
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private static class EchoListener implements Session.Listener
+    {
+        private final Session m_session;
+
+        public EchoListener( Session session )
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            final ByteBuffer msg = ByteBuffer.allocate( data.remaining() );
+            data.get( msg );
+            msg.flip();
+            m_session.sendData( msg );
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private static class TestAcceptor extends Acceptor
+    {
+        private final CountDownLatch m_started;
+        private final AtomicLong m_heavyBytesReceived;
+        private int m_port;
+
+        public TestAcceptor()
+        {
+            super( 0 );
+            m_started = new CountDownLatch( 1 );
+            m_heavyBytesReceived = new AtomicLong();
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            m_port = localPort;
+            m_started.countDown();
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            /* The first session is the heavy one. */
+            if (m_heavyBytesReceived.compareAndSet(0, -1))
+                return new HeavyListener( m_heavyBytesReceived );
+            return new EchoListener( session );
+        }
+
+        public int getPort() throws InterruptedException
+        {
+            m_started.await();
+            return m_port;
+        }
+    }
+
+    private static void lightClient( int port, LatencyHistogram histogram ) throws IOException, InterruptedException
+    {
+        final Socket socket = new Socket( "localhost", port );
+        socket.setTcpNoDelay( true );
+        final OutputStream outputStream = socket.getOutputStream();
+        final InputStream inputStream = socket.getInputStream();
+        final byte [] msg = new byte[8];
+        for (int idx=0; idx<LIGHT_MESSAGES; idx++)
+        {
+            final long startTime = System.nanoTime();
+            outputStream.write( msg );
+            for (int bytesReceived=0; bytesReceived<msg.length;)
+            {
+                final int rc = inputStream.read( msg, bytesReceived, msg.length-bytesReceived );
+                if (rc < 0)
+                    throw new AssertionError();
+                bytesReceived += rc;
+            }
+            histogram.record( System.nanoTime() - startTime );
+            Thread.sleep( 1 );
+        }
+        socket.close();
+    }
+
+    private static LatencyHistogram.Snapshot run( int deliveryQuota ) throws Exception
+    {
+        final Collider.Config config = new Collider.Config();
+        config.threadPoolThreads = 1;
+        config.deliveryQuota = deliveryQuota;
+        final Collider collider = Collider.create( config );
+        final Thread colliderThread = new Thread( collider::run );
+        colliderThread.start();
+
+        final TestAcceptor acceptor = new TestAcceptor();
+        collider.addAcceptor( acceptor );
+        final int port = acceptor.getPort();
+
+        final Socket heavySocket = new Socket( "localhost", port );
+        final Thread heavyThread = new Thread( () -> {
+            try
+            {
+                final OutputStream outputStream = heavySocket.getOutputStream();
+                final byte [] block = new byte[HEAVY_BLOCK_SIZE];
+                for (;;)
+                    outputStream.write( block );
+            }
+            catch (final IOException ex)
+            {
+                /* Socket closed */
+            }
+        } );
+        heavyThread.start();
+
+        /* Let the heavy session queue fill up. */
+        while (acceptor.m_heavyBytesReceived.get() <= 0)
+            Thread.sleep( 10 );
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread [] lightThreads = new Thread[LIGHT_CLIENTS];
+        for (int idx=0; idx<LIGHT_CLIENTS; idx++)
+        {
+            lightThreads[idx] = new Thread( () -> {
+                try { lightClient( port, histogram ); }
+                catch (final Exception ex) { ex.printStackTrace(); }
+            } );
+            lightThreads[idx].start();
+        }
+        for (Thread thread : lightThreads)
+            thread.join();
+
+        heavySocket.close();
+        heavyThread.join();
+        collider.stop();
+        colliderThread.join();
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        System.out.println( "deliveryQuota=" + deliveryQuota +
+                ": heavy session received " + acceptor.m_heavyBytesReceived.get() + " bytes" +
+                ", light sessions RTT (usec): p50=" + TimeUnit.NANOSECONDS.toMicros(snapshot.getValueAtPercentile(50)) +
+                " p99=" + TimeUnit.NANOSECONDS.toMicros(snapshot.getValueAtPercentile(99)) +
+                " max=" + TimeUnit.NANOSECONDS.toMicros(snapshot.getMax()) );
+        return snapshot;
+    }
+
+    public static void main( String [] args ) throws Exception
+    {
+        final LatencyHistogram.Snapshot unlimited = run( 0 );
+        final LatencyHistogram.Snapshot limited = run( DELIVERY_QUOTA );
+        if (unlimited.getCount() != (LIGHT_CLIENTS * LIGHT_MESSAGES))
+            throw new AssertionError();
+        if (limited.getCount() != (LIGHT_CLIENTS * LIGHT_MESSAGES))
+            throw new AssertionError();
+        /* Latency numbers depend on the machine load too much
+         * to be asserted, so they are only printed for the comparison.
+         */
+        System.out.println( "Done." );
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.drain_stop;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Graceful collider stop test, three clients:
+ * 'A' - server listener sends a final message on shutdown and closes the session,
+ * 'B' - server listener does not implement Session.ShutdownListener,
+ *       session should be closed right away,
+ * 'C' - server sends a lot of data client never reads,
+ *       session should be abandoned at the drain deadline.
+ */
+public class Main
+{
+    private static final long DRAIN_TIMEOUT = 500;
+    private static final int BLOCK_SIZE = (256 * 1024);
+    private static final int BLOCKS = 64;
+
+    private final Collider m_collider;
+    private final CountDownLatch m_acceptorStarted;
+    private final CountDownLatch m_sessionsReady;
+    private int m_port;
+
+    private static class PlainListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private class ServerListener implements Session.Listener, Session.ShutdownListener
+    {
+        private final Session m_session;
+        private int m_type;
+
+        public ServerListener( Session session )
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            m_type = data.get();
+            System.out.println( m_session.getRemoteAddress() + ": client '" + (char) m_type + "'" );
+            if (m_type == 'B')
+                m_session.replaceListener( new PlainListener() );
+            else if (m_type == 'C')
+            {
+                final ByteBuffer block = ByteBuffer.allocateDirect( BLOCK_SIZE );
+                for (int idx=0; idx<BLOCKS; idx++)
+                    m_session.sendData( block );
+            }
+            m_sessionsReady.countDown();
+        }
+
+        public void onShutdown( Session session )
+        {
+            System.out.println( session.getRemoteAddress() + ": shutdown '" + (char) m_type + "'" );
+            if (m_type == 'A')
+            {
+                final ByteBuffer msg = ByteBuffer.wrap( "BYE".getBytes() );
+                session.sendData( msg );
+                session.closeConnection();
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println( m_session.getRemoteAddress() + ": connection closed '" + (char) m_type + "'" );
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        public TestAcceptor()
+        {
+            super( 0 );
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            m_port = localPort;
+            m_acceptorStarted.countDown();
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            return new ServerListener( session );
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+        m_acceptorStarted = new CountDownLatch( 1 );
+        m_sessionsReady = new CountDownLatch( 3 );
+    }
+
+    private Socket connect( char type ) throws IOException
+    {
+        final Socket socket = new Socket();
+        socket.setReceiveBufferSize( 4 * 1024 );
+        socket.connect( new InetSocketAddress("localhost", m_port) );
+        socket.setSoTimeout( 10000 );
+        socket.getOutputStream().write( type );
+        return socket;
+    }
+
+    private static String readAll( Socket socket ) throws IOException
+    {
+        final InputStream inputStream = socket.getInputStream();
+        final StringBuilder sb = new StringBuilder();
+        for (;;)
+        {
+            final int rc = inputStream.read();
+            if (rc < 0)
+                break;
+            sb.append( (char) rc );
+        }
+        return sb.toString();
+    }
+
+    private void run() throws Exception
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+
+        m_collider.addAcceptor( new TestAcceptor() );
+        m_acceptorStarted.await();
+
+        final Socket socketA = connect( 'A' );
+        final Socket socketB = connect( 'B' );
+        final Socket socketC = connect( 'C' );
+        if (!m_sessionsReady.await(10, TimeUnit.SECONDS))
+            throw new AssertionError();
+
+        final long startTime = System.nanoTime();
+        m_collider.stop( DRAIN_TIMEOUT, TimeUnit.MILLISECONDS );
+        colliderThread.join( 10000 );
+        final long stopTime = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime );
+
+        final Collider.DrainReport drainReport = m_collider.getDrainReport();
+        System.out.println( "Collider stopped in " + stopTime + " ms: " + drainReport );
+
+        if (colliderThread.isAlive())
+            throw new AssertionError();
+        if (!readAll(socketA).equals("BYE"))
+            throw new AssertionError();
+        if (!readAll(socketB).isEmpty())
+            throw new AssertionError();
+        socketA.close();
+        socketB.close();
+        socketC.close();
+
+        if (drainReport.sessions != 3)
+            throw new AssertionError();
+        if (drainReport.sessionsAbandoned != 1)
+            throw new AssertionError();
+        if (drainReport.bytesAbandoned <= 0)
+            throw new AssertionError();
+        if (drainReport.drainTime < DRAIN_TIMEOUT)
+            throw new AssertionError();
+    }
+
+    public static void main( String [] args ) throws Exception
+    {
+        new Main( Collider.create() ).run();
+        System.out.println( "Done." );
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.jsl.tests.echo_latency;
 
+import org.jsl.collider.LatencyHistogram;
 import org.jsl.tests.Util;
 import java.io.IOException;
 import java.net.Socket;
@@ -50,24 +51,37 @@ public class Client
                         "Client socket connected " + socket.getLocalSocketAddress() +
                         " -> " + socket.getRemoteSocketAddress() + "." );
 
-                /* warming up */
+                /* warming up, first exchanges show the cost of the cold buffers */
+                long warmUpMax = 0;
+                final long warmUpStartTime = System.nanoTime();
                 for (int idx=0; idx<100; idx++)
                 {
+                    final long st = System.nanoTime();
                     socketChannel.write( msg );
                     msg.flip();
                     final int bytesReceived = socketChannel.read( buf );
                     assert( bytesReceived == m_msg.capacity() );
                     buf.clear();
+                    final long tm = (System.nanoTime() - st);
+                    if (tm > warmUpMax)
+                        warmUpMax = tm;
                 }
+                final long warmUpTime = ((System.nanoTime() - warmUpStartTime) / 1000);
+                System.out.println(
+                        "Warm up: 100 exchanges, " + (warmUpTime / 100) +
+                        " usec/exchange avg, " + (warmUpMax / 1000) + " usec max" );
 
+                final LatencyHistogram histogram = new LatencyHistogram( 7, 1 );
                 final long startTime = System.nanoTime();
                 for (int c=m_messages; c>0; c--)
                 {
+                    final long st = System.nanoTime();
                     socketChannel.write( msg );
                     msg.flip();
                     final int bytesReceived = socketChannel.read( buf );
                     assert( bytesReceived == m_msg.capacity() );
                     buf.clear();
+                    histogram.trace( st );
                 }
                 final long endTime = System.nanoTime();
                 socketChannel.close();
@@ -78,6 +92,13 @@ public class Client
                         messages + " messages exchanged at " +
                         Util.formatDelay(startTime, endTime) + " sec (" +
                         (tm / messages) + " usec/msg)" );
+
+                final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+                System.out.println(
+                        "Exchange latency: p50=" + (snapshot.getValueAtPercentile(50.0) / 1000) +
+                        " p99=" + (snapshot.getValueAtPercentile(99.0) / 1000) +
+                        " p99.9=" + (snapshot.getValueAtPercentile(99.9) / 1000) +
+                        " max=" + (snapshot.getMax() / 1000) + " usec" );
             }
             catch (final IOException ex)
             {
@@ -26,6 +26,7 @@ public class Main
         int sessions = 1;
         int messages = 1000;
         int messageLength = 500;
+        boolean busyPoll = false;
 
         if (args.length > 0)
             sessions = Integer.parseInt( args[0] );
@@ -36,13 +37,21 @@ public class Main
         if (args.length > 2)
             messageLength = Integer.parseInt( args[2] );
 
+        if (args.length > 3)
+            busyPoll = Boolean.parseBoolean( args[3] );
+
         System.out.println(
                 "Echo latency test: " +
                 sessions + " sessions, " +
                 messages + " messages, " +
-                messageLength + " bytes/message." );
+                messageLength + " bytes/message, busy poll: " + busyPoll + "." );
 
-        Client client = new Client( sessions, messages, messageLength );
-        new Server(client).run();
+        for (int pass=0; pass<2; pass++)
+        {
+            final boolean preTouchBuffers = (pass > 0);
+            System.out.println( "Pre-touch buffers: " + preTouchBuffers );
+            final Client client = new Client( sessions, messages, messageLength );
+            new Server(client, preTouchBuffers, busyPoll).run();
+        }
     }
 }
@@ -28,6 +28,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class Server
 {
     private final Client m_client;
+    private final boolean m_preTouchBuffers;
+    private final boolean m_busyPoll;
     private final AtomicInteger m_sessionsDone;
 
     private class ServerListener implements Session.Listener
@@ -120,9 +122,11 @@ public class Server
         }
     }
 
-    public Server( Client client )
+    public Server( Client client, boolean preTouchBuffers, boolean busyPoll )
     {
         m_client = client;
+        m_preTouchBuffers = preTouchBuffers;
+        m_busyPoll = busyPoll;
         m_sessionsDone = new AtomicInteger();
     }
 
@@ -130,7 +134,10 @@ public class Server
     {
         try
         {
-            final Collider collider = Collider.create();
+            final Collider.Config config = new Collider.Config();
+            config.preTouchBuffers = m_preTouchBuffers;
+            config.busyPoll = m_busyPoll;
+            final Collider collider = Collider.create( config );
             collider.addAcceptor( new TestAcceptor() );
             collider.run();
         }
@@ -145,6 +152,8 @@ public class Server
 
     public static void main( String [] args )
     {
-        new Server(null).run();
+        final boolean preTouchBuffers = ((args.length > 0) && Boolean.parseBoolean(args[0]));
+        final boolean busyPoll = ((args.length > 1) && Boolean.parseBoolean(args[1]));
+        new Server(null, preTouchBuffers, busyPoll).run();
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.input_block_reuse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class Client
+{
+    private final InetSocketAddress m_addr;
+    private final int m_messages;
+    private final int m_messageLength;
+    private final Thread m_thread;
+
+    private class ClientThread extends Thread
+    {
+        public void run()
+        {
+            try
+            {
+                final SocketChannel socketChannel = SocketChannel.open(m_addr);
+                final Socket socket = socketChannel.socket();
+                socket.setTcpNoDelay(true);
+
+                System.out.println(
+                        "Client: " + socket.getLocalSocketAddress() +
+                        " -> " + socket.getRemoteSocketAddress() + ": connected");
+
+                final ByteBuffer msg = ByteBuffer.allocateDirect(m_messageLength);
+                final ByteBuffer ack = ByteBuffer.allocateDirect(4);
+                long offs = 0;
+
+                for (int idx=0; idx<m_messages; idx++)
+                {
+                    msg.clear();
+                    for (int pos=0; pos<m_messageLength; pos++)
+                        msg.put(pos, Server.getByte(offs++));
+
+                    while (msg.hasRemaining())
+                        socketChannel.write(msg);
+
+                    /* Wait for the acknowledge,
+                     * so server input queue is empty before each message.
+                     */
+                    ack.clear();
+                    while (ack.hasRemaining())
+                    {
+                        if (socketChannel.read(ack) < 0)
+                            throw new IOException("Connection closed by server");
+                    }
+
+                    if (ack.getInt(0) != idx)
+                        throw new AssertionError();
+                }
+
+                socketChannel.close();
+                System.out.println("Client: sent " + m_messages + " messages");
+            }
+            catch (final IOException ex)
+            {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    public Client(InetSocketAddress addr, int messages, int messageLength)
+    {
+        m_addr = addr;
+        m_messages = messages;
+        m_messageLength = messageLength;
+        m_thread = new ClientThread();
+        m_thread.start();
+    }
+
+    public void stopAndWait()
+    {
+        try
+        {
+            m_thread.join();
+        }
+        catch (final InterruptedException ex)
+        {
+            ex.printStackTrace();
+        }
+    }
+}
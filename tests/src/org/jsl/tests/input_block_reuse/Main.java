@@ -0,0 +1,37 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.input_block_reuse;
+
+public class Main
+{
+    public static void main(String [] args)
+    {
+        int messages = 10000;
+        int messageLength = 300;
+        int blockSize = 1024;
+
+        if (args.length > 0)
+            messages = Integer.parseInt(args[0]);
+        if (args.length > 1)
+            messageLength = Integer.parseInt(args[1]);
+
+        new Server(messages, messageLength, blockSize).run();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.input_block_reuse;
+
+import org.jsl.collider.Acceptor;
+import org.jsl.collider.Collider;
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.Session;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/*
+ * Listener retains some of the received buffers across several
+ * onDataReceived() calls and checks the data was not overwritten
+ * by the socket reader reusing input queue blocks.
+ */
+public class Server
+{
+    private static final int RETAIN_CALLS = 5;
+
+    private final int m_messages;
+    private final int m_messageLength;
+    private final int m_blockSize;
+    private Client m_client;
+
+    static byte getByte(long offs)
+    {
+        return (byte) ((offs * 31) + (offs >> 8));
+    }
+
+    private class ServerListener implements Session.Listener
+    {
+        private final Session m_session;
+        private final RetainableByteBuffer [] m_retained;
+        private final long [] m_retainedOffs;
+        private long m_offs;
+        private int m_messagesReceived;
+        private int m_calls;
+        private int m_retainedTotal;
+        private int m_errors;
+
+        ServerListener(Session session)
+        {
+            m_session = session;
+            m_retained = new RetainableByteBuffer[RETAIN_CALLS];
+            m_retainedOffs = new long[RETAIN_CALLS];
+        }
+
+        private void verify(RetainableByteBuffer buf, long offs)
+        {
+            final int pos = buf.position();
+            final int limit = buf.limit();
+            for (int idx=pos; idx<limit; idx++)
+            {
+                if (buf.get(idx) != getByte(offs + idx - pos))
+                {
+                    System.out.println("Retained buffer at " + offs + " corrupted at " + (offs + idx - pos));
+                    m_errors++;
+                    break;
+                }
+            }
+        }
+
+        private void verifyRetained()
+        {
+            for (int idx=0; idx<RETAIN_CALLS; idx++)
+            {
+                if (m_retained[idx] != null)
+                    verify(m_retained[idx], m_retainedOffs[idx]);
+            }
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            final int bytesReceived = data.remaining();
+            verify(data, m_offs);
+
+            final int slot = (m_calls % RETAIN_CALLS);
+            if (m_retained[slot] != null)
+            {
+                m_retained[slot].release();
+                m_retained[slot] = null;
+            }
+
+            /* Retain buffers received by two calls of three,
+             * let the reader reuse blocks after the third one.
+             */
+            if ((m_calls % 3) != 2)
+            {
+                m_retained[slot] = data.slice();
+                m_retainedOffs[slot] = m_offs;
+                m_retainedTotal++;
+            }
+            m_calls++;
+
+            verifyRetained();
+
+            final long offs = (m_offs + bytesReceived);
+            while ((long) (m_messagesReceived + 1) * m_messageLength <= offs)
+            {
+                final ByteBuffer ack = ByteBuffer.allocateDirect(4);
+                ack.putInt(0, m_messagesReceived);
+                m_session.sendData(ack);
+                m_messagesReceived++;
+            }
+            m_offs = offs;
+        }
+
+        public void onConnectionClosed()
+        {
+            verifyRetained();
+            for (int idx=0; idx<RETAIN_CALLS; idx++)
+            {
+                if (m_retained[idx] != null)
+                {
+                    m_retained[idx].release();
+                    m_retained[idx] = null;
+                }
+            }
+
+            System.out.println("Server: received " + m_messagesReceived + " messages (" +
+                    m_offs + " bytes), " + m_calls + " calls, " +
+                    m_retainedTotal + " buffers retained, " + m_errors + " errors.");
+
+            if ((m_messagesReceived != m_messages) || (m_errors != 0))
+                System.out.println("Test FAILED.");
+
+            m_session.getCollider().stop();
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        TestAcceptor()
+        {
+            super(0);
+        }
+
+        public void onAcceptorStarted(Collider collider, int localPort)
+        {
+            System.out.println("Server started at port " + localPort);
+            m_client = new Client(new InetSocketAddress("localhost", localPort), m_messages, m_messageLength);
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            System.out.println("Server: connection " +
+                    session.getLocalAddress() + " -> " + session.getRemoteAddress() + " accepted");
+            return new ServerListener(session);
+        }
+    }
+
+    public Server(int messages, int messageLength, int blockSize)
+    {
+        m_messages = messages;
+        m_messageLength = messageLength;
+        m_blockSize = blockSize;
+    }
+
+    public void run()
+    {
+        try
+        {
+            /* Small blocks to have messages crossing the block boundary. */
+            final Collider.Config config = new Collider.Config();
+            config.inputQueueBlockSize = m_blockSize;
+
+            final Collider collider = Collider.create(config);
+            collider.addAcceptor(new TestAcceptor());
+            collider.run();
+
+            if (m_client != null)
+                m_client.stopAndWait();
+        }
+        catch (final IOException ex)
+        {
+            ex.printStackTrace();
+        }
+    }
+}
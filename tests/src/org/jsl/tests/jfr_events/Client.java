@@ -0,0 +1,103 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.jfr_events;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class Client
+{
+    private final InetSocketAddress m_addr;
+    private final int m_messages;
+    private final int m_messageLength;
+    private final Thread m_thread;
+
+    private class ClientThread extends Thread
+    {
+        public void run()
+        {
+            try
+            {
+                final SocketChannel socketChannel = SocketChannel.open(m_addr);
+                final Socket socket = socketChannel.socket();
+                socket.setTcpNoDelay(true);
+
+                System.out.println(
+                        "Client: " + socket.getLocalSocketAddress() +
+                        " -> " + socket.getRemoteSocketAddress() + ": connected");
+
+                /* All messages are sent at once to overflow the server input queue,
+                 * acknowledges are small enough to fit into the socket buffers.
+                 */
+                final ByteBuffer msg = ByteBuffer.allocateDirect(m_messageLength);
+                for (int idx=0; idx<m_messages; idx++)
+                {
+                    msg.clear();
+                    while (msg.hasRemaining())
+                        socketChannel.write(msg);
+                }
+
+                final ByteBuffer ack = ByteBuffer.allocateDirect(m_messages * 4);
+                while (ack.hasRemaining())
+                {
+                    if (socketChannel.read(ack) < 0)
+                        throw new IOException("Connection closed by server");
+                }
+
+                for (int idx=0; idx<m_messages; idx++)
+                {
+                    if (ack.getInt(idx*4) != idx)
+                        throw new AssertionError();
+                }
+
+                socketChannel.close();
+                System.out.println("Client: sent " + m_messages + " messages");
+            }
+            catch (final IOException ex)
+            {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    public Client(InetSocketAddress addr, int messages, int messageLength)
+    {
+        m_addr = addr;
+        m_messages = messages;
+        m_messageLength = messageLength;
+        m_thread = new ClientThread();
+        m_thread.start();
+    }
+
+    public void stopAndWait()
+    {
+        try
+        {
+            m_thread.join();
+        }
+        catch (final InterruptedException ex)
+        {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.jfr_events;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/*
+ * Runs the traffic with the flight recording started
+ * and checks all collider events are recorded.
+ */
+public class Main
+{
+    private static final String [] EVENTS =
+    {
+        "org.jsl.collider.SelectorIteration",
+        "org.jsl.collider.ReaderRun",
+        "org.jsl.collider.WriterRun",
+        "org.jsl.collider.DataReceived",
+        "org.jsl.collider.ReadSuspended",
+        "org.jsl.collider.ReadResumed",
+        "org.jsl.collider.ThreadPoolQueueWait"
+    };
+
+    public static void main(String [] args) throws Exception
+    {
+        /* First run without a recording, nothing is emitted. */
+        new Server(100, 300).run();
+
+        final File file = File.createTempFile("jfr_events", ".jfr");
+        final Map<String, Integer> events = new HashMap<String, Integer>();
+        try
+        {
+            final Recording recording = new Recording();
+            for (String event : EVENTS)
+                recording.enable(event);
+            recording.start();
+            new Server(1000, 300).run();
+            recording.stop();
+            recording.dump(file.toPath());
+            recording.close();
+
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath()))
+            {
+                final String name = event.getEventType().getName();
+                final Integer count = events.get(name);
+                events.put(name, (count == null) ? 1 : (count + 1));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        int errors = 0;
+        for (String event : EVENTS)
+        {
+            final Integer count = events.get(event);
+            System.out.println(event + ": " + count);
+            if (count == null)
+                errors++;
+        }
+
+        if (errors != 0)
+            System.out.println("Test FAILED.");
+    }
+}
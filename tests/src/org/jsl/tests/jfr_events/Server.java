@@ -0,0 +1,130 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.jfr_events;
+
+import org.jsl.collider.Acceptor;
+import org.jsl.collider.Collider;
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.Session;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/*
+ * Listener is slow at the beginning, so the input queue
+ * grows over the forwardReadMaxSize, socket reading is suspended
+ * and resumed later, all messages are acknowledged.
+ */
+public class Server
+{
+    private static final int FORWARD_READ_MAX_SIZE = (8 * 1024);
+
+    private final int m_messages;
+    private final int m_messageLength;
+    private Client m_client;
+
+    private class ServerListener implements Session.Listener
+    {
+        private final Session m_session;
+        private long m_bytesReceived;
+        private int m_messagesReceived;
+        private int m_calls;
+
+        ServerListener(Session session)
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            if (m_calls++ == 0)
+            {
+                try
+                {
+                    Thread.sleep(200);
+                }
+                catch (final InterruptedException ex)
+                {
+                    ex.printStackTrace();
+                }
+            }
+
+            m_bytesReceived += data.remaining();
+            while ((long) (m_messagesReceived + 1) * m_messageLength <= m_bytesReceived)
+            {
+                final ByteBuffer ack = ByteBuffer.allocateDirect(4);
+                ack.putInt(0, m_messagesReceived);
+                m_session.sendData(ack);
+                m_messagesReceived++;
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println("Server: received " + m_messagesReceived + " messages");
+            m_session.getCollider().stop();
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        TestAcceptor()
+        {
+            super(0);
+        }
+
+        public void onAcceptorStarted(Collider collider, int localPort)
+        {
+            System.out.println("Server started at port " + localPort);
+            m_client = new Client(new InetSocketAddress("localhost", localPort), m_messages, m_messageLength);
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            return new ServerListener(session);
+        }
+    }
+
+    public Server(int messages, int messageLength)
+    {
+        m_messages = messages;
+        m_messageLength = messageLength;
+    }
+
+    public void run()
+    {
+        try
+        {
+            final Collider.Config config = new Collider.Config();
+            config.forwardReadMaxSize = FORWARD_READ_MAX_SIZE;
+            config.inputQueueBlockSize = (4 * 1024);
+
+            final Collider collider = Collider.create(config);
+            collider.addAcceptor(new TestAcceptor());
+            collider.run();
+
+            if (m_client != null)
+                m_client.stopAndWait();
+        }
+        catch (final Exception ex)
+        {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.load_generator;
+
+import org.jsl.collider.Acceptor;
+import org.jsl.collider.Collider;
+import org.jsl.collider.LoadGenerator;
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.Session;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs the open loop load generator against the echo server
+ * listening on the loopback interface.
+ * Usage: [connections] [rate] [duration] [message_length | replay_file]
+ */
+public class Main
+{
+    private static class EchoListener implements Session.Listener
+    {
+        private final Session m_session;
+
+        EchoListener(Session session)
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            final RetainableByteBuffer reply = data.slice();
+            m_session.sendData(reply);
+            reply.release();
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private static class EchoAcceptor extends Acceptor
+    {
+        private final int m_connections;
+        private final int m_rate;
+        private final int m_duration;
+        private final ByteBuffer [] m_messages;
+
+        EchoAcceptor(int connections, int rate, int duration, ByteBuffer [] messages)
+        {
+            super(0);
+            tcpNoDelay = true;
+            m_connections = connections;
+            m_rate = rate;
+            m_duration = duration;
+            m_messages = messages;
+        }
+
+        public void onAcceptorStarted(final Collider collider, int localPort)
+        {
+            System.out.println("Echo server started at port " + localPort);
+            final LoadGenerator loadGenerator = new LoadGenerator(
+                    collider, new InetSocketAddress("localhost", localPort),
+                    m_connections, m_messages, m_rate, m_duration, ((m_duration > 1) ? 1 : 0));
+            new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        loadGenerator.run();
+                        final boolean done = loadGenerator.waitDone(m_duration + 10, TimeUnit.SECONDS);
+                        System.out.println(loadGenerator.getReport());
+                        if (!done)
+                            System.out.println("Not all replies received.");
+                    }
+                    catch (final IOException ex)
+                    {
+                        System.out.println(ex.toString());
+                    }
+                    catch (final InterruptedException ex)
+                    {
+                        ex.printStackTrace();
+                    }
+                    collider.stop();
+                }
+            }.start();
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            return new EchoListener(session);
+        }
+    }
+
+    public static void main(String [] args) throws IOException
+    {
+        int connections = 4;
+        int rate = 20000;
+        int duration = 5;
+        ByteBuffer [] messages = null;
+
+        if (args.length > 0)
+            connections = Integer.parseInt(args[0]);
+
+        if (args.length > 1)
+            rate = Integer.parseInt(args[1]);
+
+        if (args.length > 2)
+            duration = Integer.parseInt(args[2]);
+
+        if (args.length > 3)
+        {
+            try
+            {
+                messages = LoadGenerator.createMessages(Integer.parseInt(args[3]));
+            }
+            catch (final NumberFormatException ex)
+            {
+                messages = LoadGenerator.readMessages(args[3]);
+            }
+        }
+        else
+            messages = LoadGenerator.createMessages(100);
+
+        System.out.println(
+                "Load generator test: " + connections + " connections, " +
+                rate + " msgs/sec, " + duration + " sec, " +
+                messages.length + " message(s).");
+
+        final Collider collider = Collider.create();
+        collider.addAcceptor(new EchoAcceptor(connections, rate, duration, messages));
+        collider.run();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.metrics;
+
+import org.jsl.collider.Acceptor;
+import org.jsl.collider.Collider;
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.SendTrace;
+import org.jsl.collider.Session;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * Checks session and collider counters match the traffic.
+ * Listener is slow at the beginning, so the input queue
+ * grows over the forwardReadMaxSize and socket reading is suspended.
+ * At the end checks the collider MBeans and changes
+ * the input queue cache size via JMX.
+ * Every 10th acknowledge is traced, see SendTrace.
+ */
+public class Server
+{
+    private static final int FORWARD_READ_MAX_SIZE = (8 * 1024);
+    private static final int SEND_TRACE_SAMPLE_RATE = 10;
+
+    private final int m_messages;
+    private final int m_messageLength;
+    private Client m_client;
+    private int m_errors;
+
+    private void check(String name, long value, long expected)
+    {
+        if (value != expected)
+        {
+            System.out.println(name + "=" + value + ", expected " + expected);
+            m_errors++;
+        }
+    }
+
+    private void checkPositive(String name, long value)
+    {
+        if (value <= 0)
+        {
+            System.out.println(name + "=" + value + ", expected positive value");
+            m_errors++;
+        }
+    }
+
+    private void checkMBeans()
+    {
+        try
+        {
+            final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            final Set<ObjectName> colliders = mbeanServer.queryNames(new ObjectName("org.jsl.collider:type=Collider,*"), null);
+            final Set<ObjectName> threadPools = mbeanServer.queryNames(new ObjectName("org.jsl.collider:type=ThreadPool,*"), null);
+            final Set<ObjectName> caches = mbeanServer.queryNames(new ObjectName("org.jsl.collider:type=InputQueueCache,*"), null);
+            check("collider MBeans", colliders.size(), 1);
+            check("thread pool MBeans", threadPools.size(), 1);
+            checkPositive("input queue cache MBeans", caches.size());
+            if (m_errors != 0)
+                return;
+
+            final ObjectName collider = colliders.iterator().next();
+            final ObjectName threadPool = threadPools.iterator().next();
+            check("Emitters", (Integer) mbeanServer.getAttribute(collider, "Emitters"), 1);
+            check("BytesIn", (Long) mbeanServer.getAttribute(collider, "BytesIn"), (long) m_messages * m_messageLength);
+            checkPositive("Workers", (Integer) mbeanServer.getAttribute(threadPool, "Workers"));
+
+            mbeanServer.setAttribute(collider, new Attribute("InputQueueCacheMaxSize", 2));
+            check("InputQueueCacheMaxSize", (Integer) mbeanServer.getAttribute(collider, "InputQueueCacheMaxSize"), 2);
+            for (ObjectName cache : caches)
+            {
+                System.out.println("Server: " + cache +
+                        " size=" + mbeanServer.getAttribute(cache, "Size") +
+                        " gets=" + mbeanServer.getAttribute(cache, "Gets") +
+                        " misses=" + mbeanServer.getAttribute(cache, "Misses"));
+                check("cache MaxSize", (Integer) mbeanServer.getAttribute(cache, "MaxSize"), 2);
+                if ((Integer) mbeanServer.getAttribute(cache, "Size") > 2)
+                {
+                    System.out.println("cache size is over the new maximum");
+                    m_errors++;
+                }
+            }
+        }
+        catch (final Exception ex)
+        {
+            ex.printStackTrace();
+            m_errors++;
+        }
+    }
+
+    private class ServerListener implements Session.Listener
+    {
+        private final Session m_session;
+        private long m_bytesReceived;
+        private int m_messagesReceived;
+        private int m_calls;
+
+        ServerListener(Session session)
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived(RetainableByteBuffer data)
+        {
+            if (m_calls++ == 0)
+            {
+                try
+                {
+                    Thread.sleep(200);
+                }
+                catch (final InterruptedException ex)
+                {
+                    ex.printStackTrace();
+                }
+            }
+
+            m_bytesReceived += data.remaining();
+            while ((long) (m_messagesReceived + 1) * m_messageLength <= m_bytesReceived)
+            {
+                final ByteBuffer ack = ByteBuffer.allocateDirect(4);
+                ack.putInt(0, m_messagesReceived);
+                m_session.sendData(ack);
+                m_messagesReceived++;
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            final Session.Metrics metrics = new Session.Metrics();
+            m_session.getMetrics(metrics);
+            System.out.println("Server: session " + metrics);
+
+            check("bytesIn", metrics.bytesIn, (long) m_messages * m_messageLength);
+            check("messagesIn", metrics.messagesIn, m_calls);
+            checkPositive("reads", metrics.reads);
+            checkPositive("readSuspensions", metrics.readSuspensions);
+            check("bytesOut", metrics.bytesOut, (long) m_messages * 4);
+            check("messagesOut", metrics.messagesOut, m_messages);
+            check("sendQueueMessages", metrics.sendQueueMessages, 0);
+            check("sendQueueBytes", metrics.sendQueueBytes, 0);
+
+            /* Acknowledges are sent from one thread, so sampling is exact. */
+            final SendTrace sendTrace = m_session.getSendTrace();
+            System.out.println("Server: session send trace " + sendTrace);
+            check("send trace queueWait", sendTrace.getQueueWait().getSnapshot().getCount(), m_messages / SEND_TRACE_SAMPLE_RATE);
+
+            /* Caches are released on collider stop, get metrics now. */
+            final Collider collider = m_session.getCollider();
+            final Collider.Metrics colliderMetrics = new Collider.Metrics();
+            collider.getMetrics(colliderMetrics);
+            System.out.println("Server: collider " + colliderMetrics);
+
+            check("collider bytesIn", colliderMetrics.bytesIn, metrics.bytesIn);
+            check("collider messagesIn", colliderMetrics.messagesIn, metrics.messagesIn);
+            check("collider readSuspensions", colliderMetrics.readSuspensions, metrics.readSuspensions);
+            check("collider bytesOut", colliderMetrics.bytesOut, metrics.bytesOut);
+            check("collider messagesOut", colliderMetrics.messagesOut, metrics.messagesOut);
+            checkPositive("selectorLoopIterations", colliderMetrics.selectorLoopIterations);
+            checkPositive("selectorRunnables", colliderMetrics.selectorRunnables);
+            checkPositive("threadPoolParks", colliderMetrics.threadPoolParks);
+            checkPositive("inputQueueCacheGets", colliderMetrics.inputQueueCacheGets);
+
+            checkMBeans();
+
+            collider.stop();
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        TestAcceptor()
+        {
+            super(0);
+            sendTraceSampleRate = SEND_TRACE_SAMPLE_RATE;
+        }
+
+        public void onAcceptorStarted(Collider collider, int localPort)
+        {
+            System.out.println("Server started at port " + localPort);
+            m_client = new Client(new InetSocketAddress("localhost", localPort), m_messages, m_messageLength);
+        }
+
+        public Session.Listener createSessionListener(Session session)
+        {
+            System.out.println("Server: connection " +
+                    session.getLocalAddress() + " -> " + session.getRemoteAddress() + " accepted");
+            return new ServerListener(session);
+        }
+    }
+
+    public Server(int messages, int messageLength)
+    {
+        m_messages = messages;
+        m_messageLength = messageLength;
+    }
+
+    public void run()
+    {
+        try
+        {
+            final Collider.Config config = new Collider.Config();
+            config.forwardReadMaxSize = FORWARD_READ_MAX_SIZE;
+            config.inputQueueBlockSize = (4 * 1024);
+            /* Joined acknowledges should be still counted as separate messages. */
+            config.joinMessageMaxSize = 64;
+            config.registerMBeans = true;
+
+            final Collider collider = Collider.create(config);
+            final TestAcceptor acceptor = new TestAcceptor();
+            collider.addAcceptor(acceptor);
+            collider.run();
+
+            if (m_client != null)
+                m_client.stopAndWait();
+
+            final SendTrace sendTrace = acceptor.getSendTrace();
+            check("acceptor send trace socketWait", sendTrace.getSocketWait().getSnapshot().getCount(), m_messages / SEND_TRACE_SAMPLE_RATE);
+
+            final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            check("MBeans after stop", mbeanServer.queryNames(new ObjectName("org.jsl.collider:*"), null).size(), 0);
+
+            if (m_errors != 0)
+                System.out.println("Test FAILED.");
+        }
+        catch (final Exception ex)
+        {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Performance regression harness.
+ * Runs the loopback performance tests with fixed parameters,
+ * each one in a separate JVM, parses the numbers they print
+ * and writes results as JSON and CSV. Being given a baseline
+ * (CSV written by the previous run) compares results with it
+ * and exits with non-zero status if any metric is worse than
+ * the baseline more than the threshold, or if any test failed.
+ *
+ * Usage: [-runs N] [-timeout sec] [-threshold percent]
+ *        [-baseline file.csv] [-json file] [-csv file] [test ...]
+ */
+public class Main
+{
+    private static class Metric
+    {
+        final String name;
+        final String unit;
+        final boolean higherIsBetter;
+        final Pattern pattern;
+        final int group;
+        final int occurrence;
+
+        Metric(String name, String unit, boolean higherIsBetter, String regex, int group, int occurrence)
+        {
+            this.name = name;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+            this.pattern = Pattern.compile(regex);
+            this.group = group;
+            this.occurrence = occurrence;
+        }
+
+        Double parse(String output)
+        {
+            final Matcher matcher = pattern.matcher(output);
+            for (int idx=0; matcher.find(); idx++)
+            {
+                if (idx == occurrence)
+                    return Double.parseDouble(matcher.group(group));
+            }
+            return null;
+        }
+    }
+
+    private static class Test
+    {
+        final String name;
+        final String [] args;
+        final Metric [] metrics;
+
+        Test(String name, String [] args, Metric... metrics)
+        {
+            this.name = name;
+            this.args = args;
+            this.metrics = metrics;
+        }
+    }
+
+    private static class Result
+    {
+        final Test test;
+        final Metric metric;
+        Double value;
+        Double baseline;
+        String status;
+
+        Result(Test test, Metric metric)
+        {
+            this.test = test;
+            this.metric = metric;
+        }
+
+        Double getChange()
+        {
+            if ((value == null) || (baseline == null) || (baseline == 0.0))
+                return null;
+            return ((value - baseline) * 100.0 / baseline);
+        }
+    }
+
+    private static class Output
+    {
+        final String text;
+        final int exitValue;
+
+        Output(String text, int exitValue)
+        {
+            this.text = text;
+            this.exitValue = exitValue;
+        }
+
+        /* Test can print the numbers but still fail. */
+        boolean failed()
+        {
+            return ((exitValue != 0) || text.contains("FAILED") || text.contains("Exception"));
+        }
+    }
+
+    private static final Test [] TESTS =
+    {
+        new Test("echo_throughput", new String [] { "1", "100000", "500" },
+                new Metric("throughput", "msgs/sec", true,
+                        "Received back \\d+ messages \\(\\d+ bytes\\) at [\\d.]+ sec \\((\\d+) msgs/sec\\)", 1, 0)),
+        new Test("echo_latency", new String [] { "1", "10000", "500" },
+                new Metric("p50", "usec", false, "Exchange latency: p50=(\\d+) p99=(\\d+)", 1, 0),
+                new Metric("p99", "usec", false, "Exchange latency: p50=(\\d+) p99=(\\d+)", 2, 0)),
+        new Test("session_throughput", new String [] { "2", "100000", "500" },
+                new Metric("time", "sec", false, "Test done at ([\\d.]+) sec", 1, 0)),
+        new Test("recv_throughput", new String [] { "1", "1000000", "500", "100", "4096" },
+                new Metric("fixed", "msgs/sec", true, "received \\d+ messages .* sec \\((\\d+) msgs/sec\\)", 1, 0),
+                new Metric("adaptive", "msgs/sec", true, "received \\d+ messages .* sec \\((\\d+) msgs/sec\\)", 1, 1)),
+        new Test("send_throughput", new String [] { "1", "1000000", "500", "65536" },
+                new Metric("time", "sec", false, "Received \\d+ messages \\(\\d+ bytes\\) at ([\\d.]+)", 1, 0)),
+        new Test("pubsub", new String [] { "1", "100000", "100" },
+                new Metric("time", "sec", false, "Test done: ([\\d.]+) sec", 1, 0)),
+        new Test("shmem_throughput", new String [0],
+                new Metric("time", "sec", false, "sent \\d+ messages \\(\\d+ bytes\\) at ([\\d.]+) sec", 1, 0)),
+        new Test("dgram_listener", new String [] { "100" },
+                new Metric("lost", "packets", false, "Listener3: lost (\\d+) of", 1, 0))
+    };
+
+    private int m_runs = 1;
+    private int m_timeout = 120;
+    private double m_threshold = 10.0;
+    private String m_baseline;
+    private String m_json = "build/perf/results.json";
+    private String m_csv = "build/perf/results.csv";
+    private final List<Test> m_tests = new ArrayList<Test>();
+
+    private Output runTest(Test test) throws IOException, InterruptedException
+    {
+        final List<String> cmd = new ArrayList<String>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.add("-server");
+        final String loggingConfig = System.getProperty("java.util.logging.config.file");
+        if (loggingConfig != null)
+            cmd.add("-Djava.util.logging.config.file=" + loggingConfig);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("org.jsl.tests." + test.name + ".Main");
+        cmd.addAll(Arrays.asList(test.args));
+
+        final File output = File.createTempFile("perf-" + test.name, ".out");
+        try
+        {
+            final Process process = new ProcessBuilder(cmd)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output)
+                    .start();
+
+            if (!process.waitFor(m_timeout, TimeUnit.SECONDS))
+            {
+                process.destroyForcibly();
+                process.waitFor();
+                return null;
+            }
+            return new Output(
+                    new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8),
+                    process.exitValue());
+        }
+        finally
+        {
+            output.delete();
+        }
+    }
+
+    private static double median(List<Double> values)
+    {
+        final Double [] array = values.toArray(new Double[values.size()]);
+        Arrays.sort(array);
+        final int idx = (array.length / 2);
+        if ((array.length % 2) == 0)
+            return ((array[idx-1] + array[idx]) / 2.0);
+        return array[idx];
+    }
+
+    private List<Result> run() throws IOException, InterruptedException
+    {
+        final List<Result> results = new ArrayList<Result>();
+        for (Test test : m_tests)
+        {
+            final List<List<Double>> values = new ArrayList<List<Double>>();
+            for (int idx=0; idx<test.metrics.length; idx++)
+                values.add(new ArrayList<Double>());
+
+            String status = "OK";
+            for (int run=0; run<m_runs; run++)
+            {
+                System.out.println(test.name + ": run " + (run+1) + " of " + m_runs);
+                final Output output = runTest(test);
+                if (output == null)
+                {
+                    status = "TIMEOUT";
+                    break;
+                }
+
+                if (output.failed())
+                {
+                    System.out.println(output.text);
+                    System.out.println(test.name + ": exit value " + output.exitValue);
+                    status = "FAILED";
+                    break;
+                }
+
+                for (int idx=0; idx<test.metrics.length; idx++)
+                {
+                    final Double value = test.metrics[idx].parse(output.text);
+                    if (value == null)
+                    {
+                        System.out.println(output.text);
+                        status = "FAILED";
+                        break;
+                    }
+                    values.get(idx).add(value);
+                }
+
+                if (!status.equals("OK"))
+                    break;
+            }
+
+            for (int idx=0; idx<test.metrics.length; idx++)
+            {
+                final Result result = new Result(test, test.metrics[idx]);
+                result.status = status;
+                if (status.equals("OK"))
+                    result.value = median(values.get(idx));
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private static String csvLine(String... values)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (String value : values)
+        {
+            if (sb.length() > 0)
+                sb.append(',');
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String toString(Double value)
+    {
+        return ((value == null) ? "" : String.format(Locale.ROOT, "%.3f", value));
+    }
+
+    private static String toJson(Double value)
+    {
+        return ((value == null) ? "null" : String.format(Locale.ROOT, "%.3f", value));
+    }
+
+    private Map<String, Double> readBaseline() throws IOException
+    {
+        final Map<String, Double> baseline = new HashMap<String, Double>();
+        final BufferedReader reader = new BufferedReader(new FileReader(m_baseline));
+        try
+        {
+            /* Header line first: test,metric,value,... */
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null)
+            {
+                final String [] fields = line.split(",", -1);
+                if ((fields.length > 2) && !fields[2].isEmpty())
+                    baseline.put(fields[0] + "." + fields[1], Double.parseDouble(fields[2]));
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return baseline;
+    }
+
+    private int compare(List<Result> results) throws IOException
+    {
+        final Map<String, Double> baseline = ((m_baseline == null) ? null : readBaseline());
+        int errors = 0;
+        for (Result result : results)
+        {
+            if (result.value == null)
+            {
+                errors++;
+                continue;
+            }
+
+            if (baseline == null)
+                continue;
+
+            result.baseline = baseline.get(result.test.name + "." + result.metric.name);
+            final Double change = result.getChange();
+            if (change == null)
+                continue;
+
+            final boolean regression = result.metric.higherIsBetter
+                    ? (change < -m_threshold)
+                    : (change > m_threshold);
+            if (regression)
+            {
+                result.status = "REGRESSION";
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    private static PrintWriter openFile(String fileName) throws IOException
+    {
+        final File file = new File(fileName);
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null)
+            dir.mkdirs();
+        return new PrintWriter(file, "UTF-8");
+    }
+
+    private void writeResults(List<Result> results) throws IOException
+    {
+        final PrintWriter csv = openFile(m_csv);
+        try
+        {
+            csv.println("test,metric,value,unit,higher_is_better,baseline,change_percent,status");
+            for (Result result : results)
+            {
+                csv.println(csvLine(
+                        result.test.name,
+                        result.metric.name,
+                        toString(result.value),
+                        result.metric.unit,
+                        Boolean.toString(result.metric.higherIsBetter),
+                        toString(result.baseline),
+                        toString(result.getChange()),
+                        result.status));
+            }
+        }
+        finally
+        {
+            csv.close();
+        }
+
+        final PrintWriter json = openFile(m_json);
+        try
+        {
+            json.println("{");
+            json.println("  \"java\": \"" + System.getProperty("java.version") + "\",");
+            json.println("  \"runs\": " + m_runs + ",");
+            json.println("  \"threshold\": " + m_threshold + ",");
+            json.println("  \"results\": [");
+            for (int idx=0; idx<results.size(); idx++)
+            {
+                final Result result = results.get(idx);
+                json.println("    {" +
+                        "\"test\": \"" + result.test.name + "\", " +
+                        "\"metric\": \"" + result.metric.name + "\", " +
+                        "\"value\": " + toJson(result.value) + ", " +
+                        "\"unit\": \"" + result.metric.unit + "\", " +
+                        "\"higherIsBetter\": " + result.metric.higherIsBetter + ", " +
+                        "\"baseline\": " + toJson(result.baseline) + ", " +
+                        "\"changePercent\": " + toJson(result.getChange()) + ", " +
+                        "\"status\": \"" + result.status + "\"}" +
+                        ((idx < results.size()-1) ? "," : ""));
+            }
+            json.println("  ]");
+            json.println("}");
+        }
+        finally
+        {
+            json.close();
+        }
+    }
+
+    private boolean parseArgs(String [] args)
+    {
+        for (int idx=0; idx<args.length; idx++)
+        {
+            final String arg = args[idx];
+            if (arg.startsWith("-"))
+            {
+                if (++idx == args.length)
+                    return false;
+                final String value = args[idx];
+                if (arg.equals("-runs"))
+                    m_runs = Integer.parseInt(value);
+                else if (arg.equals("-timeout"))
+                    m_timeout = Integer.parseInt(value);
+                else if (arg.equals("-threshold"))
+                    m_threshold = Double.parseDouble(value);
+                else if (arg.equals("-baseline"))
+                    m_baseline = value;
+                else if (arg.equals("-json"))
+                    m_json = value;
+                else if (arg.equals("-csv"))
+                    m_csv = value;
+                else
+                    return false;
+            }
+            else
+            {
+                Test test = null;
+                for (Test t : TESTS)
+                {
+                    if (t.name.equals(arg))
+                        test = t;
+                }
+                if (test == null)
+                {
+                    System.out.println("Unknown test '" + arg + "'");
+                    return false;
+                }
+                m_tests.add(test);
+            }
+        }
+
+        if (m_tests.isEmpty())
+            m_tests.addAll(Arrays.asList(TESTS));
+        return (m_runs > 0);
+    }
+
+    public static void main(String [] args) throws Exception
+    {
+        final Main main = new Main();
+        if (!main.parseArgs(args))
+        {
+            System.out.println(
+                    "Usage: [-runs N] [-timeout sec] [-threshold percent] " +
+                    "[-baseline file.csv] [-json file] [-csv file] [test ...]");
+            System.exit(2);
+        }
+
+        final List<Result> results = main.run();
+        final int errors = main.compare(results);
+        main.writeResults(results);
+
+        for (Result result : results)
+        {
+            System.out.println(
+                    result.test.name + "." + result.metric.name + ": " +
+                    toString(result.value) + " " + result.metric.unit +
+                    ((result.baseline == null) ? "" :
+                        (" (baseline " + toString(result.baseline) + ", " +
+                         String.format(Locale.ROOT, "%+.1f%%", result.getChange()) + ")")) +
+                    " " + result.status);
+        }
+
+        if (errors != 0)
+        {
+            System.out.println(errors + " performance checks failed.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.read_suspend;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Read suspension test:
+ * server session suspends read on the first received data,
+ * client sends much more data than socket buffers can hold,
+ * server should not receive anything more while read is suspended
+ * (and session should not be closed on read idle timeout),
+ * data should stay in the client send queue.
+ * After resume server should receive all the data,
+ * then server session suspends read once again and closes.
+ */
+public class Main
+{
+    private static final int MESSAGE_SIZE = (16 * 1024);
+    private static final int MESSAGES = 256;
+    private static final int SOCKET_BUF_SIZE = (64 * 1024);
+    private static final long READ_IDLE_TIMEOUT = 200;
+
+    private final Collider m_collider;
+    private final CountDownLatch m_serverSessionCreated;
+    private final CountDownLatch m_clientSessionCreated;
+    private final CountDownLatch m_serverSessionClosed;
+    private final AtomicLong m_bytesReceived;
+    private volatile Session m_serverSession;
+    private volatile Session m_clientSession;
+
+    private class ServerListener implements Session.Listener
+    {
+        private final Session m_session;
+        private boolean m_suspended;
+
+        public ServerListener( Session session )
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            m_bytesReceived.addAndGet( data.remaining() );
+            if (!m_suspended)
+            {
+                m_suspended = true;
+                if (m_session.suspendRead() != 0)
+                    throw new AssertionError();
+                /* Second call should be harmless. */
+                if (m_session.suspendRead() != 0)
+                    throw new AssertionError();
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println( "Server session closed." );
+            m_serverSessionClosed.countDown();
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        public TestAcceptor()
+        {
+            super( 0 );
+            socketRecvBufSize = SOCKET_BUF_SIZE;
+            readIdleTimeout = READ_IDLE_TIMEOUT;
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            System.out.println( "Acceptor started at port " + localPort );
+            final TestConnector connector = new TestConnector( new InetSocketAddress("localhost", localPort) );
+            collider.addConnector( connector );
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            try { m_collider.removeAcceptor( this ); }
+            catch (final InterruptedException ex) { ex.printStackTrace(); }
+            m_serverSession = session;
+            m_serverSessionCreated.countDown();
+            return new ServerListener( session );
+        }
+    }
+
+    private static class ClientListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            /* Server does not send anything. */
+            throw new AssertionError();
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println( "Client session closed." );
+        }
+    }
+
+    private class TestConnector extends Connector
+    {
+        public TestConnector( InetSocketAddress addr )
+        {
+            super( addr );
+            socketSendBufSize = SOCKET_BUF_SIZE;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            try { m_collider.removeConnector( this ); }
+            catch (final InterruptedException ex) { ex.printStackTrace(); }
+            m_clientSession = session;
+            m_clientSessionCreated.countDown();
+            return new ClientListener();
+        }
+
+        public void onException( IOException ex )
+        {
+            ex.printStackTrace();
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+        m_serverSessionCreated = new CountDownLatch( 1 );
+        m_clientSessionCreated = new CountDownLatch( 1 );
+        m_serverSessionClosed = new CountDownLatch( 1 );
+        m_bytesReceived = new AtomicLong();
+    }
+
+    private void run() throws IOException, InterruptedException
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+        m_collider.addAcceptor( new TestAcceptor() );
+
+        if (!m_clientSessionCreated.await( 5, TimeUnit.SECONDS ) ||
+            !m_serverSessionCreated.await( 5, TimeUnit.SECONDS ))
+            throw new AssertionError();
+
+        final long totalBytes = ((long) MESSAGES * MESSAGE_SIZE);
+        final ByteBuffer msg = ByteBuffer.allocateDirect( MESSAGE_SIZE );
+        for (int idx=0; idx<MESSAGES; idx++)
+        {
+            if (m_clientSession.sendData( msg ) <= 0)
+                throw new AssertionError();
+        }
+
+        /* Wait longer than read idle timeout,
+         * amount of received data should not change after a while.
+         */
+        Thread.sleep( READ_IDLE_TIMEOUT * 2 );
+        final long bytesReceived = m_bytesReceived.get();
+        Thread.sleep( READ_IDLE_TIMEOUT );
+
+        final Session.Metrics metrics = new Session.Metrics();
+        m_clientSession.getMetrics( metrics );
+        System.out.println( "Suspended: received " + bytesReceived + " bytes, client send queue " +
+                metrics.sendQueueBytes + " bytes." );
+
+        if (m_serverSessionClosed.getCount() == 0)
+            throw new AssertionError();
+        if (m_bytesReceived.get() != bytesReceived)
+            throw new AssertionError();
+        if (bytesReceived >= totalBytes)
+            throw new AssertionError();
+        if (metrics.sendQueueBytes == 0)
+            throw new AssertionError();
+
+        if (m_serverSession.resumeRead() != 0)
+            throw new AssertionError();
+
+        final long startTime = System.nanoTime();
+        while (m_bytesReceived.get() < totalBytes)
+        {
+            if ((System.nanoTime() - startTime) > TimeUnit.SECONDS.toNanos(5))
+                throw new AssertionError();
+            Thread.sleep( 10 );
+        }
+        System.out.println( "Resumed: received " + m_bytesReceived.get() + " bytes." );
+
+        /* Session with suspended read still can be closed. */
+        if (m_serverSession.suspendRead() != 0)
+            throw new AssertionError();
+        Thread.sleep( 50 );
+        m_serverSession.closeConnection();
+        if (!m_serverSessionClosed.await( 5, TimeUnit.SECONDS ))
+            throw new AssertionError();
+
+        if (m_serverSession.suspendRead() >= 0)
+            throw new AssertionError();
+
+        m_collider.stop();
+        colliderThread.join();
+
+        if (m_bytesReceived.get() != totalBytes)
+            throw new AssertionError();
+        System.out.println( "Done." );
+    }
+
+    public static void main( String [] args ) throws IOException, InterruptedException
+    {
+        new Main( Collider.create() ).run();
+    }
+}
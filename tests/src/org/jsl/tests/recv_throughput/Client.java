@@ -35,7 +35,10 @@ public class Client
     private final int m_messageLength;
     private final int m_socketSendBufferSize;
     private final ByteBuffer m_batch;
+    private final ByteBuffer m_heartbeat;
+    private final SocketChannel [] m_idleSessions;
     private Thread [] m_threads;
+    private Thread m_idleThread;
 
     private class SessionThread extends Thread
     {
@@ -83,7 +86,28 @@ public class Client
         }
     }
 
-    public Client( int sessions, int messages, int messageLength, int socketSendBufferSize )
+    private class IdleThread extends Thread
+    {
+        public void run()
+        {
+            try
+            {
+                for (int idx=0; idx<m_idleSessions.length; idx++)
+                {
+                    final SocketChannel socketChannel = SocketChannel.open( m_addr );
+                    socketChannel.socket().setTcpNoDelay( true );
+                    socketChannel.write( m_heartbeat.duplicate() );
+                    m_idleSessions[idx] = socketChannel;
+                }
+            }
+            catch (IOException ex)
+            {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    public Client( int sessions, int messages, int messageLength, int socketSendBufferSize, int idleSessions )
     {
         if (messageLength < 12)
             messageLength = 12;
@@ -110,6 +134,16 @@ public class Client
         }
         m_batch.position(0);
 
+        /* Idle session sends only one short message
+         * with zero number of messages.
+         */
+        m_heartbeat = ByteBuffer.allocateDirect( 12 );
+        m_heartbeat.putInt( 12 );
+        m_heartbeat.putInt( 0 );
+        m_heartbeat.putInt( 0 );
+        m_heartbeat.position( 0 );
+        m_idleSessions = new SocketChannel[idleSessions];
+
         m_threads = new Thread[sessions];
         for (int idx=0; idx<sessions; idx++)
             m_threads[idx] = new SessionThread();
@@ -122,8 +156,51 @@ public class Client
             thread.start();
     }
 
+    public int getIdleSessions()
+    {
+        return m_idleSessions.length;
+    }
+
+    public void startIdle( InetSocketAddress addr )
+    {
+        /* Acceptor does not accept connections while
+         * Acceptor.onAcceptorStarted() is running, so can not connect inline.
+         */
+        m_addr = addr;
+        m_idleThread = new IdleThread();
+        m_idleThread.start();
+    }
+
     public void stopAndWait()
     {
+        if (m_idleThread != null)
+        {
+            try
+            {
+                m_idleThread.join();
+            }
+            catch (InterruptedException ex)
+            {
+                ex.printStackTrace();
+            }
+        }
+
+        for (int idx=0; idx<m_idleSessions.length; idx++)
+        {
+            if (m_idleSessions[idx] != null)
+            {
+                try
+                {
+                    m_idleSessions[idx].close();
+                }
+                catch (IOException ex)
+                {
+                    ex.printStackTrace();
+                }
+                m_idleSessions[idx] = null;
+            }
+        }
+
         for (Thread thread : m_threads)
         {
             try
@@ -173,6 +250,6 @@ public class Client
             }
         }
 
-        new Client(sessions, messages, messageLength, socketSendBufferSize).start( addr );
+        new Client(sessions, messages, messageLength, socketSendBufferSize, 0).start( addr );
     }
 }
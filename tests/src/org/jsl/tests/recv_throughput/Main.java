@@ -27,6 +27,8 @@ public class Main
         int messages = 1000000;
         int messageLength = 500;
         int socketBufferSize = (64*1024);
+        int idleSessions = 100;
+        int inputQueueMinBlockSize = (4*1024);
 
         if (args.length > 0)
             sessions = Integer.parseInt( args[0] );
@@ -34,8 +36,17 @@ public class Main
             messages = Integer.parseInt( args[1] );
         if (args.length > 2)
             messageLength = Integer.parseInt( args[2] );
+        if (args.length > 3)
+            idleSessions = Integer.parseInt( args[3] );
+        if (args.length > 4)
+            inputQueueMinBlockSize = Integer.parseInt( args[4] );
 
-        Client client = new Client( sessions, messages, messageLength, socketBufferSize );
-        new Server(client, socketBufferSize).run();
+        System.out.println( "Fixed input queue block size:" );
+        Client client = new Client( sessions, messages, messageLength, socketBufferSize, idleSessions );
+        new Server(client, socketBufferSize, 0).run();
+
+        System.out.println( "Adaptive input queue block size (min " + inputQueueMinBlockSize + " bytes):" );
+        client = new Client( sessions, messages, messageLength, socketBufferSize, idleSessions );
+        new Server(client, socketBufferSize, inputQueueMinBlockSize).run();
     }
 }
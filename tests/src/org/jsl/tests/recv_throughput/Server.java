@@ -23,6 +23,8 @@ import org.jsl.collider.*;
 import org.jsl.tests.Util;
 
 import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,7 +33,11 @@ public class Server
 {
     private final Client m_client;
     private final int m_socketRecvBufSize;
+    private final int m_inputQueueMinBlockSize;
     private final AtomicInteger m_sessionsDone;
+    private final AtomicInteger m_idleSessionsReady;
+    private InetSocketAddress m_addr;
+    private long m_directMemoryUsed;
 
     private class ServerListener implements Session.Listener
     {
@@ -43,6 +49,7 @@ public class Server
         private int m_bytesTotal;
         private int m_sessionsTotal;
         private long m_startTime;
+        private boolean m_idle;
 
         public ServerListener( Session session )
         {
@@ -71,9 +78,17 @@ public class Server
             {
                 if (m_messagesTotal == 0)
                 {
-                    m_startTime = System.nanoTime();
                     msg.getInt(); // skip length
-                    m_messagesTotal = msg.getInt();
+                    final int messagesTotal = msg.getInt();
+                    if (messagesTotal == 0)
+                    {
+                        /* Idle session */
+                        m_idle = true;
+                        onIdleSessionStarted();
+                        return;
+                    }
+                    m_startTime = System.nanoTime();
+                    m_messagesTotal = messagesTotal;
                     m_sessionsTotal = msg.getInt();
                 }
                 m_messagesReceived++;
@@ -98,6 +113,8 @@ public class Server
             System.out.println(
                     m_session.getLocalAddress() + " -> " + m_session.getRemoteAddress() +
                     ": connection closed" );
+            if (m_idle)
+                return;
             final int sessionsDone = m_sessionsDone.incrementAndGet();
             if (sessionsDone == m_sessionsTotal)
                 m_session.getCollider().stop();
@@ -114,8 +131,11 @@ public class Server
         public void onAcceptorStarted( Collider collider, int portNumber )
         {
             System.out.println( "Server started at port " + portNumber );
-            if (m_client != null)
-                m_client.start( new InetSocketAddress("localhost", portNumber) );
+            m_addr = new InetSocketAddress( "localhost", portNumber );
+            if (m_client.getIdleSessions() > 0)
+                m_client.startIdle( m_addr );
+            else
+                m_client.start( m_addr );
         }
 
         public Session.Listener createSessionListener( Session session )
@@ -124,18 +144,58 @@ public class Server
         }
     }
 
-    public Server( Client client, int socketRecvBufSize )
+    private static long getDirectMemoryUsed()
+    {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+        {
+            if (pool.getName().equals("direct"))
+                return pool.getMemoryUsed();
+        }
+        return 0;
+    }
+
+    private void onIdleSessionStarted()
+    {
+        final int idleSessions = m_client.getIdleSessions();
+        if (m_idleSessionsReady.incrementAndGet() == idleSessions)
+        {
+            final long directMemoryUsed = (getDirectMemoryUsed() - m_directMemoryUsed);
+            System.out.println( idleSessions + " idle sessions: " +
+                    (directMemoryUsed / idleSessions) + " bytes of direct memory per session." );
+            m_client.start( m_addr );
+        }
+    }
+
+    public Server( Client client, int socketRecvBufSize, int inputQueueMinBlockSize )
     {
         m_client = client;
         m_socketRecvBufSize = socketRecvBufSize;
+        m_inputQueueMinBlockSize = inputQueueMinBlockSize;
         m_sessionsDone = new AtomicInteger(0);
+        m_idleSessionsReady = new AtomicInteger(0);
     }
 
     public void run()
     {
+        /* Let the previous run direct buffers be freed
+         * to get more or less correct memory usage.
+         */
+        System.gc();
+        try
+        {
+            Thread.sleep( 100 );
+        }
+        catch (final InterruptedException ex)
+        {
+            ex.printStackTrace();
+        }
+        m_directMemoryUsed = getDirectMemoryUsed();
+
         try
         {
-            final Collider collider = Collider.create();
+            final Collider.Config config = new Collider.Config();
+            config.inputQueueMinBlockSize = m_inputQueueMinBlockSize;
+            final Collider collider = Collider.create( config );
             collider.addAcceptor( new TestAcceptor() );
             collider.run();
             m_client.stopAndWait();
@@ -19,7 +19,7 @@
 
 package org.jsl.tests.sched_latency;
 
-import java.util.Arrays;
+import org.jsl.collider.LatencyHistogram;
 
 public class Main
 {
@@ -30,16 +30,15 @@ public class Main
             System.out.print(res[idx]/1000 + " ");
         System.out.println();
 
-        Arrays.sort(res);
-        final long min = res[0] / 1000;
-        final long med = res[res.length/2] / 1000;
-        final long max = res[res.length-1] / 1000;
-        System.out.println(str + ": min=" + min + " med=" + med + " max=" + max);
+        final LatencyHistogram histogram = new LatencyHistogram(7, 1);
+        for (long r : res)
+            histogram.record(r);
+        System.out.println(str + " (nsec): " + histogram.getSnapshot());
     }
 
     public static void main(String args [])
     {
-        final int OPS = 100;
+        final int OPS = 10000;
         final long res [] = new long[OPS];
 
         new SL_Semaphore(res).start();
@@ -0,0 +1,222 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.send_shaping;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Outbound traffic shaping test:
+ * server sends data to the client right after the session start
+ * and closes the session, client measures the time to receive all data.
+ * The first acceptor limits every session rate,
+ * the second one limits the total rate of two sessions.
+ * Shaped writer should not spin on the bucket refill:
+ * process CPU time should be a small part of the transfer time,
+ * and data should be written in reasonably big chunks.
+ */
+public class Main
+{
+    private static final int RATE = (200 * 1024);
+    private static final int BLOCK_SIZE = (4 * 1024);
+    private static final int BLOCKS = 25;
+
+    private final Collider m_collider;
+
+    private static class ServerListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private static class TestAcceptor extends Acceptor
+    {
+        private final CountDownLatch m_started;
+        private int m_port;
+
+        public TestAcceptor()
+        {
+            super( 0 );
+            m_started = new CountDownLatch( 1 );
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            m_port = localPort;
+            m_started.countDown();
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            for (int idx=0; idx<BLOCKS; idx++)
+            {
+                final ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+                for (int pos=0; pos<BLOCK_SIZE; pos++)
+                    block.put( pos, (byte) (idx*BLOCK_SIZE + pos) );
+                session.sendData( block );
+            }
+            session.closeConnection();
+            return new ServerListener();
+        }
+
+        public int getPort() throws InterruptedException
+        {
+            m_started.await();
+            return m_port;
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+    }
+
+    /* Shaped writer writes not less than burst/8 bytes at once,
+     * reads on the client side should not be much smaller.
+     */
+    private static final int MIN_AVG_READ_SIZE = (RATE / 10 / 8 / 4);
+
+    private static long getProcessCpuTime()
+    {
+        return ((com.sun.management.OperatingSystemMXBean)
+                ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /* Returns the number of reads. */
+    private static int receive( Socket socket ) throws IOException
+    {
+        final InputStream inputStream = socket.getInputStream();
+        final byte [] buf = new byte[BLOCK_SIZE];
+        int bytesReceived = 0;
+        int reads = 0;
+        for (;;)
+        {
+            final int rc = inputStream.read( buf );
+            if (rc < 0)
+                break;
+            reads++;
+            for (int idx=0; idx<rc; idx++, bytesReceived++)
+            {
+                if (buf[idx] != (byte) bytesReceived)
+                    throw new AssertionError( "Invalid data at " + bytesReceived );
+            }
+        }
+        socket.close();
+        if (bytesReceived != (BLOCKS * BLOCK_SIZE))
+            throw new AssertionError();
+        return reads;
+    }
+
+    private static void checkEfficiency( String name, long startTime, long startCpuTime, long bytes, int reads )
+    {
+        final long time = (System.nanoTime() - startTime);
+        final long cpuTime = (getProcessCpuTime() - startCpuTime);
+        final long avgReadSize = (bytes / reads);
+        System.out.println( name + ": CPU time " + TimeUnit.NANOSECONDS.toMillis(cpuTime) +
+                " ms, " + reads + " reads, average read size " + avgReadSize + " bytes" );
+        if (cpuTime > time/2)
+            throw new AssertionError( "Shaped writer is spinning" );
+        if (avgReadSize < MIN_AVG_READ_SIZE)
+            throw new AssertionError( "Shaped writer writes too small chunks" );
+    }
+
+    private static void checkTime( String name, long startTime, long bytes, long rate, long burst )
+    {
+        final long time = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime );
+        final long expectedTime = ((bytes - burst) * 1000 / rate);
+        System.out.println( name + ": " + bytes + " bytes received in " + time + " ms (expected " + expectedTime + " ms)" );
+        if ((time < expectedTime*9/10) || (time > expectedTime*3 + 500))
+            throw new AssertionError();
+    }
+
+    private void testSessionRate() throws Exception
+    {
+        final TestAcceptor acceptor = new TestAcceptor();
+        acceptor.sendRate = RATE;
+        m_collider.addAcceptor( acceptor );
+
+        final long startCpuTime = getProcessCpuTime();
+        final long startTime = System.nanoTime();
+        final int reads = receive( new Socket("localhost", acceptor.getPort()) );
+        checkTime( "sendRate", startTime, BLOCKS*BLOCK_SIZE, RATE, RATE/10 );
+        checkEfficiency( "sendRate", startTime, startCpuTime, BLOCKS*BLOCK_SIZE, reads );
+
+        m_collider.removeAcceptor( acceptor );
+    }
+
+    private void testEmitterRate() throws Exception
+    {
+        final TestAcceptor acceptor = new TestAcceptor();
+        acceptor.emitterSendRate = RATE;
+        m_collider.addAcceptor( acceptor );
+
+        final long startCpuTime = getProcessCpuTime();
+        final long startTime = System.nanoTime();
+        final Socket socket1 = new Socket( "localhost", acceptor.getPort() );
+        final Socket socket2 = new Socket( "localhost", acceptor.getPort() );
+        final int [] reads2 = new int[1];
+        final Thread thread = new Thread( () -> {
+            try { reads2[0] = receive( socket2 ); }
+            catch (final IOException ex) { ex.printStackTrace(); }
+        } );
+        thread.start();
+        final int reads1 = receive( socket1 );
+        thread.join();
+        checkTime( "emitterSendRate", startTime, 2*BLOCKS*BLOCK_SIZE, RATE, RATE/10 );
+        checkEfficiency( "emitterSendRate", startTime, startCpuTime, 2*BLOCKS*BLOCK_SIZE, reads1 + reads2[0] );
+
+        m_collider.removeAcceptor( acceptor );
+    }
+
+    private void run() throws Exception
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+
+        try
+        {
+            testSessionRate();
+            testEmitterRate();
+        }
+        finally
+        {
+            m_collider.stop();
+            colliderThread.join();
+        }
+    }
+
+    public static void main( String [] args ) throws Exception
+    {
+        new Main( Collider.create() ).run();
+        System.out.println( "Done." );
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.session_group;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Session group test:
+ * server broadcasts messages to all connected clients,
+ * one client suspends read so becomes slow, then the test checks
+ * every slow member policy: DROP (slow client misses some messages),
+ * CONFLATE (slow client gets the last message after resume)
+ * and DISCONNECT (slow client session is closed).
+ */
+public class Main
+{
+    private static final int CLIENTS = 8;
+    private static final int MESSAGE_SIZE = 1024;
+    private static final int MESSAGES = 1000;
+    private static final int SOCKET_BUF_SIZE = (8 * 1024);
+    private static final long MAX_QUEUE_BYTES = (64 * 1024);
+    private static final int PACE_MESSAGES = 16;
+
+    private final Collider m_collider;
+    private final Session [] m_serverSessions;
+    private final ClientListener [] m_clients;
+    private final CountDownLatch m_clientsConnected;
+    private final CountDownLatch m_slowClientClosed;
+
+    private static class ServerListener implements Session.Listener
+    {
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            /* Clients do not send anything. */
+            throw new AssertionError();
+        }
+
+        public void onConnectionClosed()
+        {
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        private int m_sessions;
+
+        public TestAcceptor()
+        {
+            super( 0 );
+            socketSendBufSize = SOCKET_BUF_SIZE;
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            System.out.println( "Acceptor started at port " + localPort );
+            for (int idx=0; idx<CLIENTS; idx++)
+                collider.addConnector( new TestConnector(idx, new InetSocketAddress("localhost", localPort)) );
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            synchronized (m_serverSessions)
+            {
+                m_serverSessions[m_sessions++] = session;
+            }
+            return new ServerListener();
+        }
+    }
+
+    /* Counts received messages and remembers the last message sequence number. */
+    private class ClientListener implements Session.Listener
+    {
+        private final int m_idx;
+        private volatile Session m_session;
+        private volatile long m_bytesReceived;
+        private volatile int m_messages;
+        private volatile int m_lastSeq;
+        private int m_offset;
+        private int m_seq;
+
+        public ClientListener( int idx, Session session )
+        {
+            m_idx = idx;
+            m_session = session;
+            m_lastSeq = -1;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            final int bytes = data.remaining();
+            for (int idx=0; idx<bytes; idx++)
+            {
+                final int b = (data.get() & 0xFF);
+                if (m_offset < 4)
+                    m_seq = ((m_seq << 8) | b);
+                if (++m_offset == MESSAGE_SIZE)
+                {
+                    m_lastSeq = m_seq;
+                    m_messages++;
+                    m_offset = 0;
+                    m_seq = 0;
+                }
+            }
+            m_bytesReceived += bytes;
+        }
+
+        public void onConnectionClosed()
+        {
+            if (m_idx == 0)
+                m_slowClientClosed.countDown();
+        }
+
+        public Session getSession() { return m_session; }
+        public long getBytesReceived() { return m_bytesReceived; }
+        public int getMessages() { return m_messages; }
+        public int getLastSeq() { return m_lastSeq; }
+    }
+
+    private class TestConnector extends Connector
+    {
+        private final int m_idx;
+
+        public TestConnector( int idx, InetSocketAddress addr )
+        {
+            super( addr );
+            m_idx = idx;
+            socketRecvBufSize = SOCKET_BUF_SIZE;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            try { m_collider.removeConnector( this ); }
+            catch (final InterruptedException ex) { ex.printStackTrace(); }
+            final ClientListener clientListener = new ClientListener( m_idx, session );
+            m_clients[m_idx] = clientListener;
+            m_clientsConnected.countDown();
+            return clientListener;
+        }
+
+        public void onException( IOException ex )
+        {
+            ex.printStackTrace();
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+        m_serverSessions = new Session[CLIENTS];
+        m_clients = new ClientListener[CLIENTS];
+        m_clientsConnected = new CountDownLatch( CLIENTS );
+        m_slowClientClosed = new CountDownLatch( 1 );
+    }
+
+    private static void waitFor( String what, java.util.function.BooleanSupplier condition ) throws InterruptedException
+    {
+        final long startTime = System.nanoTime();
+        while (!condition.getAsBoolean())
+        {
+            if ((System.nanoTime() - startTime) > TimeUnit.SECONDS.toNanos(10))
+                throw new AssertionError( "Timeout waiting for " + what );
+            Thread.sleep( 10 );
+        }
+    }
+
+    private void waitForFastClients( long [] bytesReceived, int messages ) throws InterruptedException
+    {
+        for (int idx=1; idx<CLIENTS; idx++)
+        {
+            final ClientListener client = m_clients[idx];
+            final long expected = (bytesReceived[idx] + (long) messages * MESSAGE_SIZE);
+            waitFor( "client " + idx, () -> (client.getBytesReceived() == expected) );
+        }
+    }
+
+    private Session getServerSession( ClientListener client )
+    {
+        /* Server session local address is the client session remote address. */
+        for (Session session : m_serverSessions)
+        {
+            if (session.getRemoteAddress().equals(client.getSession().getLocalAddress()))
+                return session;
+        }
+        throw new AssertionError();
+    }
+
+    /* Broadcasts MESSAGES messages with slow client 0,
+     * returns the slow client session on the server side.
+     */
+    private Session broadcast( SessionGroup group, int seqBase ) throws InterruptedException
+    {
+        final ClientListener slowClient = m_clients[0];
+        slowClient.getSession().suspendRead();
+
+        final long [] bytesReceived = new long[CLIENTS];
+        for (int idx=0; idx<CLIENTS; idx++)
+            bytesReceived[idx] = m_clients[idx].getBytesReceived();
+
+        for (int seq=seqBase; seq<(seqBase + MESSAGES); seq++)
+        {
+            final RetainableByteBuffer msg = RetainableByteBuffer.allocateDirect( MESSAGE_SIZE );
+            msg.putInt( 0, seq );
+            if (group.broadcast(msg) < (CLIENTS - 1))
+                throw new AssertionError();
+            msg.release();
+
+            /* Let fast clients keep up, so only the slow one exceeds the queue limit. */
+            final int messages = (seq - seqBase + 1);
+            if ((messages % PACE_MESSAGES) == 0)
+                waitForFastClients( bytesReceived, messages );
+        }
+
+        waitForFastClients( bytesReceived, MESSAGES );
+        for (int idx=1; idx<CLIENTS; idx++)
+        {
+            if (m_clients[idx].getLastSeq() != (seqBase + MESSAGES - 1))
+                throw new AssertionError();
+        }
+
+        /* Slow client has not received everything. */
+        if (slowClient.getBytesReceived() >= (bytesReceived[0] + (long) MESSAGES * MESSAGE_SIZE))
+            throw new AssertionError();
+
+        slowClient.getSession().resumeRead();
+        return getServerSession( slowClient );
+    }
+
+    private void run() throws IOException, InterruptedException
+    {
+        final Thread colliderThread = new Thread( m_collider::run );
+        colliderThread.start();
+        m_collider.addAcceptor( new TestAcceptor() );
+
+        if (!m_clientsConnected.await( 10, TimeUnit.SECONDS ))
+            throw new AssertionError();
+        waitFor( "server sessions", () -> { synchronized (m_serverSessions) { return (m_serverSessions[CLIENTS-1] != null); } } );
+
+        try
+        {
+            test();
+        }
+        finally
+        {
+            m_collider.stop();
+            colliderThread.join();
+        }
+        System.out.println( "Done." );
+    }
+
+    private void test() throws InterruptedException
+    {
+        final ClientListener slowClient = m_clients[0];
+        final Session.Metrics metrics = new Session.Metrics();
+
+        /* DROP: slow client gets only what was queued before it became slow. */
+        final SessionGroup dropGroup = new SessionGroup( SessionGroup.DROP, MAX_QUEUE_BYTES );
+        for (Session session : m_serverSessions)
+            dropGroup.add( session );
+        if (dropGroup.add(m_serverSessions[0]) || (dropGroup.size() != CLIENTS))
+            throw new AssertionError();
+
+        final Session slowSession = broadcast( dropGroup, 0 );
+        waitFor( "slow client (drop)", () -> {
+            slowSession.getMetrics( metrics );
+            return ((metrics.sendQueueBytes == 0) && (slowClient.getBytesReceived() == metrics.bytesOut));
+        } );
+        System.out.println( "DROP: slow client received " + slowClient.getMessages() +
+                " messages, dropped " + dropGroup.getStats().getDropped() + "." );
+        if (dropGroup.getStats().getDropped() == 0)
+            throw new AssertionError();
+        if ((slowClient.getMessages() + dropGroup.getStats().getDropped()) != MESSAGES)
+            throw new AssertionError();
+
+        /* CONFLATE: slow client gets the last message after resume. */
+        final SessionGroup conflateGroup = new SessionGroup( SessionGroup.CONFLATE, MAX_QUEUE_BYTES );
+        for (Session session : m_serverSessions)
+            conflateGroup.add( session );
+
+        final int messagesBefore = slowClient.getMessages();
+        broadcast( conflateGroup, MESSAGES );
+        waitFor( "slow client (conflate)", () -> (slowClient.getLastSeq() == (2*MESSAGES - 1)) );
+        System.out.println( "CONFLATE: slow client received " + (slowClient.getMessages() - messagesBefore) +
+                " messages, conflated " + conflateGroup.getStats().getConflated() + "." );
+        if (conflateGroup.getStats().getConflated() == 0)
+            throw new AssertionError();
+        if ((slowClient.getMessages() - messagesBefore + conflateGroup.getStats().getConflated()) != MESSAGES)
+            throw new AssertionError();
+
+        /* DISCONNECT: slow client session is removed from the group and closed. */
+        final SessionGroup disconnectGroup = new SessionGroup( SessionGroup.DISCONNECT, MAX_QUEUE_BYTES );
+        for (Session session : m_serverSessions)
+            disconnectGroup.add( session );
+
+        broadcast( disconnectGroup, 2*MESSAGES );
+        if (!m_slowClientClosed.await( 10, TimeUnit.SECONDS ))
+            throw new AssertionError();
+        System.out.println( "DISCONNECT: slow client received " + slowClient.getMessages() + " messages." );
+        if ((disconnectGroup.getStats().getDisconnected() != 1) || (disconnectGroup.size() != (CLIENTS - 1)))
+            throw new AssertionError();
+        if (disconnectGroup.remove(slowSession))
+            throw new AssertionError();
+        final Session session = getServerSession( m_clients[1] );
+        if (!disconnectGroup.remove(session) || disconnectGroup.remove(session))
+            throw new AssertionError();
+    }
+
+    public static void main( String [] args ) throws IOException, InterruptedException
+    {
+        new Main( Collider.create() ).run();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * JS-Collider framework tests.
+ * Copyright (C) 2026 Sergey Zubarev
+ * info@js-labs.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jsl.tests.session_idle;
+
+import org.jsl.collider.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Idle session test:
+ * server sends heartbeats when the session is write idle,
+ * after a few heartbeats client asks server to stop them,
+ * then client session should be closed on read idle timeout
+ * (client listener does not implement Session.IdleListener).
+ */
+public class Main
+{
+    private static final int HEARTBEATS = 5;
+    private static final long WRITE_IDLE_TIMEOUT = 100;
+    private static final long READ_IDLE_TIMEOUT = 400;
+
+    private final Collider m_collider;
+    private volatile int m_heartbeatsReceived;
+    private volatile long m_lastHeartbeatTime;
+    private volatile long m_idleCloseTime;
+
+    private class ServerListener implements Session.Listener, Session.IdleListener
+    {
+        private final ByteBuffer m_heartbeat;
+        private volatile boolean m_stopHeartbeats;
+
+        public ServerListener()
+        {
+            m_heartbeat = ByteBuffer.allocateDirect( 4 );
+            m_heartbeat.putInt( 0, 0x0BEA7 );
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            m_stopHeartbeats = true;
+        }
+
+        public void onSessionIdle( Session session, int idleState )
+        {
+            if ((idleState & WRITE_IDLE) == 0)
+                throw new AssertionError();
+            if (!m_stopHeartbeats)
+                session.sendData( m_heartbeat.duplicate() );
+        }
+
+        public void onConnectionClosed()
+        {
+            System.out.println( "Server session closed." );
+            m_collider.stop();
+        }
+    }
+
+    private class TestAcceptor extends Acceptor
+    {
+        public TestAcceptor()
+        {
+            super( 0 );
+            writeIdleTimeout = WRITE_IDLE_TIMEOUT;
+        }
+
+        public void onAcceptorStarted( Collider collider, int localPort )
+        {
+            System.out.println( "Acceptor started at port " + localPort );
+            final TestConnector connector = new TestConnector( new InetSocketAddress("localhost", localPort) );
+            collider.addConnector( connector );
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            try { m_collider.removeAcceptor( this ); }
+            catch (final InterruptedException ex) { ex.printStackTrace(); }
+            return new ServerListener();
+        }
+    }
+
+    private class ClientListener implements Session.Listener
+    {
+        private final Session m_session;
+
+        public ClientListener( Session session )
+        {
+            m_session = session;
+        }
+
+        public void onDataReceived( RetainableByteBuffer data )
+        {
+            final int heartbeats = (m_heartbeatsReceived + (data.remaining() / 4));
+            m_heartbeatsReceived = heartbeats;
+            m_lastHeartbeatTime = System.nanoTime();
+            if (heartbeats >= HEARTBEATS)
+            {
+                final ByteBuffer msg = ByteBuffer.allocateDirect( 1 );
+                m_session.sendData( msg );
+            }
+        }
+
+        public void onConnectionClosed()
+        {
+            m_idleCloseTime = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - m_lastHeartbeatTime );
+            System.out.println( "Client session closed " + m_idleCloseTime + " ms after the last heartbeat." );
+        }
+    }
+
+    private class TestConnector extends Connector
+    {
+        public TestConnector( InetSocketAddress addr )
+        {
+            super( addr );
+            readIdleTimeout = READ_IDLE_TIMEOUT;
+        }
+
+        public Session.Listener createSessionListener( Session session )
+        {
+            try { m_collider.removeConnector( this ); }
+            catch (final InterruptedException ex) { ex.printStackTrace(); }
+            return new ClientListener( session );
+        }
+
+        public void onException( IOException ex )
+        {
+            ex.printStackTrace();
+        }
+    }
+
+    private Main( Collider collider )
+    {
+        m_collider = collider;
+    }
+
+    private void run() throws IOException
+    {
+        m_collider.addAcceptor( new TestAcceptor() );
+        m_collider.run();
+
+        System.out.println( "Heartbeats received: " + m_heartbeatsReceived + "." );
+        if (m_heartbeatsReceived < HEARTBEATS)
+            throw new AssertionError();
+        if (m_idleCloseTime < READ_IDLE_TIMEOUT)
+            throw new AssertionError();
+    }
+
+    public static void main( String [] args ) throws IOException
+    {
+        new Main( Collider.create() ).run();
+    }
+}
@@ -19,7 +19,7 @@
 
 package org.jsl.tests.session_latency;
 
-import org.jsl.collider.StatCounter;
+import org.jsl.collider.LatencyHistogram;
 import org.jsl.tests.Util;
 import java.io.IOException;
 import java.net.InetAddress;
@@ -47,7 +47,7 @@ public class Client
                         "Client connected " + socket.getLocalSocketAddress() +
                         " -> " + socket.getRemoteSocketAddress() + "." );
 
-                final StatCounter statCounter = new StatCounter( socket.getLocalSocketAddress() + " latency" );
+                final LatencyHistogram histogram = new LatencyHistogram( 7, 1 );
                 final ByteBuffer bb = ByteBuffer.allocateDirect( 1024*16 );
                 int bytesReceived = socketChannel.read( bb );
                 long recvTime = System.nanoTime();
@@ -62,7 +62,7 @@ public class Client
 
                     /* First message we receive is a server start message */
                     if (messages > 10)
-                        statCounter.trace( (recvTime - sendTime) / 1000 );
+                        histogram.record( (recvTime - sendTime) / 1000 );
 
                     bb.putLong( 4, System.nanoTime() );
                     final int bytesSent = socketChannel.write( bb );
@@ -82,7 +82,9 @@ public class Client
                 }
                 socketChannel.close();
 
-                System.out.println( statCounter.getStats() );
+                System.out.println(
+                        socket.getLocalSocketAddress() + " latency (usec): " +
+                        histogram.getSnapshot() );
             }
             catch (final IOException ex)
             {
@@ -26,6 +26,7 @@ public class Main
         int sessions = 2;
         int messages = 1000;
         int messageLength = 500;
+        boolean busyPoll = false;
 
         if (args.length > 0)
             sessions = Integer.parseInt( args[0] );
@@ -36,13 +37,16 @@ public class Main
         if (args.length > 2)
             messageLength = Integer.parseInt( args[2] );
 
+        if (args.length > 3)
+            busyPoll = Boolean.parseBoolean( args[3] );
+
         System.out.println(
                 "Latency test: " +
                 sessions + " sessions, " +
                 messages + " messages, " +
-                messageLength + " bytes/message." );
+                messageLength + " bytes/message, busy poll: " + busyPoll + "." );
 
         final Client client = new Client( sessions );
-        new Server(sessions, messages, messageLength, client).run();
+        new Server(sessions, messages, messageLength, busyPoll, client).run();
     }
 }
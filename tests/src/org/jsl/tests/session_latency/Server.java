@@ -33,6 +33,7 @@ public class Server
     private final int m_messages;
     private final ByteBuffer m_msg;
     private final ByteBuffer m_msgStop;
+    private final boolean m_busyPoll;
     private final Client m_client;
     private final AtomicReference<ServerListener> m_lastListener;
     private final AtomicInteger m_sessionsDone;
@@ -131,7 +132,7 @@ public class Server
         }
     }
 
-    public Server( int sessions, int messages, int messageLength, Client client )
+    public Server( int sessions, int messages, int messageLength, boolean busyPoll, Client client )
     {
         m_sessions = sessions;
         m_messages = messages;
@@ -141,6 +142,7 @@ public class Server
             m_msg.put( idx, (byte) idx );
         m_msgStop = ByteBuffer.allocateDirect( 4 );
         m_msgStop.putInt( 0, 4 );
+        m_busyPoll = busyPoll;
 
         m_client = client;
         m_lastListener = new AtomicReference<ServerListener>();
@@ -155,6 +157,7 @@ public class Server
             final Collider.Config config = new Collider.Config();
             if (m_msg.capacity() > config.inputQueueBlockSize)
                 config.inputQueueBlockSize = m_msg.capacity();
+            config.busyPoll = m_busyPoll;
 
             final Collider collider = Collider.create( config );
             collider.addAcceptor( new TestAcceptor() );
@@ -20,7 +20,17 @@ package org.jsl.tests.unit;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.logging.Logger;
+import org.jsl.collider.CompositeRetainableByteBuffer;
 import org.jsl.collider.DataBlock;
+import org.jsl.collider.LatencyHistogram;
+import org.jsl.collider.MemoryArena;
+import org.jsl.collider.RetainableByteBuffer;
+import org.jsl.collider.RetainableByteBufferPool;
+import org.jsl.collider.RetainableDataBlock;
+import org.jsl.collider.RetainableDataBlockCache;
+import org.jsl.collider.StreamDefragger;
+import org.jsl.collider.StripedCounter;
 
 interface TestFunc {
     void run() throws Exception;
@@ -42,6 +52,264 @@ public class Main {
         }
     }
 
+    private static void compositeBufferGetPut() throws Exception {
+        final ByteOrder [] orders = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+        for (ByteOrder byteOrder: orders) {
+            final RetainableByteBuffer b1 = RetainableByteBuffer.allocate(6);
+            final RetainableByteBuffer b2 = RetainableByteBuffer.allocate(10);
+            b1.order(byteOrder);
+            b2.order(byteOrder);
+
+            final CompositeRetainableByteBuffer comp = new CompositeRetainableByteBuffer();
+            comp.addComponent(b1).addComponent(b2);
+            if (comp.capacity() != 16) {
+                throw new Exception("wrong composite buffer capacity");
+            }
+            if (comp.order() != byteOrder) {
+                throw new Exception("wrong composite buffer byte order");
+            }
+            if (b1.clearSafe() || b2.clearSafe()) {
+                throw new Exception("component is not retained");
+            }
+
+            comp.putShort((short) 0x0102);
+            comp.putLong(0x0304050607080910L);
+            comp.putInt(0x11121314);
+            comp.putShort((short) 0x1516);
+            if (comp.remaining() != 0) {
+                throw new Exception("wrong composite buffer position");
+            }
+
+            final ByteBuffer expected = ByteBuffer.allocate(16).order(byteOrder);
+            expected.putShort((short) 0x0102);
+            expected.putLong(0x0304050607080910L);
+            expected.putInt(0x11121314);
+            expected.putShort((short) 0x1516);
+            for (int idx=0; idx<16; idx++) {
+                final byte v = ((idx < 6) ? b1.get(idx) : b2.get(idx-6));
+                if (v != expected.get(idx)) {
+                    throw new Exception("wrong byte at " + idx);
+                }
+            }
+
+            comp.flip();
+            if ((comp.getShort() != 0x0102) ||
+                (comp.getLong() != 0x0304050607080910L) ||
+                (comp.getInt() != 0x11121314) ||
+                (comp.getShort() != 0x1516)) {
+                throw new Exception("composite buffer relative get failed");
+            }
+            if (comp.getInt(4) != expected.getInt(4)) {
+                throw new Exception("composite buffer absolute get failed");
+            }
+
+            final RetainableByteBuffer slice = comp.position(4).slice();
+            final byte [] bytes = new byte[slice.remaining()];
+            slice.get(bytes);
+            for (int idx=0; idx<bytes.length; idx++) {
+                if (bytes[idx] != expected.get(idx+4)) {
+                    throw new Exception("wrong composite buffer slice");
+                }
+            }
+
+            comp.release();
+            if (b1.clearSafe() || b2.clearSafe()) {
+                throw new Exception("component is released while slice is still alive");
+            }
+            slice.release();
+            if (!b1.clearSafe() || !b2.clearSafe()) {
+                throw new Exception("component is not released");
+            }
+        }
+    }
+
+    private static void streamDefraggerZeroCopy() throws Exception {
+        final int messageLength = 12;
+        final int messages = 5;
+        final ByteBuffer stream = ByteBuffer.allocate(messageLength * messages);
+        for (int idx=0; idx<messages; idx++) {
+            stream.putInt(messageLength);
+            stream.putInt(idx);
+            stream.putInt(-idx);
+        }
+
+        final StreamDefragger streamDefragger = new StreamDefragger(4, true) {
+            protected int validateHeader(ByteBuffer header) {
+                return header.getInt(header.position());
+            }
+        };
+
+        /* Split the stream to 3 buffers, second and fourth message
+         * will span two buffers, third message is in the second buffer.
+         */
+        final int [] split = {18, 43, stream.capacity()};
+        final RetainableByteBuffer [] data = new RetainableByteBuffer[split.length];
+        int messagesReceived = 0;
+        int composites = 0;
+        for (int idx=0, pos=0; idx<split.length; pos=split[idx++]) {
+            stream.limit(split[idx]);
+            stream.position(pos);
+            data[idx] = RetainableByteBuffer.allocate(stream.remaining());
+            data[idx].put(stream.slice());
+            data[idx].flip();
+
+            RetainableByteBuffer msg = streamDefragger.getNext(data[idx]);
+            while (msg != null) {
+                if (msg instanceof CompositeRetainableByteBuffer) {
+                    composites++;
+                }
+                if ((msg.remaining() != messageLength) ||
+                    (msg.getInt() != messageLength) ||
+                    (msg.getInt() != messagesReceived) ||
+                    (msg.getInt() != -messagesReceived)) {
+                    throw new Exception("wrong message " + messagesReceived);
+                }
+                messagesReceived++;
+                msg = streamDefragger.getNext();
+            }
+        }
+        streamDefragger.close();
+
+        if (messagesReceived != messages) {
+            throw new Exception("received " + messagesReceived + " messages instead of " + messages);
+        }
+        if (composites != 2) {
+            throw new Exception("message was copied");
+        }
+        for (RetainableByteBuffer buf: data) {
+            if (!buf.clearSafe()) {
+                throw new Exception("data buffer is still retained by the StreamDefragger");
+            }
+        }
+    }
+
+    private static void memoryArena() throws Exception {
+        if (!MemoryArena.isSupported()) {
+            System.out.println("java.lang.foreign is not available, memory arena test skipped");
+            return;
+        }
+
+        final Logger logger = Logger.getLogger("org.jsl.tests.unit");
+        final MemoryArena arena = MemoryArena.create(64*1024);
+        final RetainableByteBufferPool pool =
+                new RetainableByteBufferPool(16*1024, arena, ByteOrder.LITTLE_ENDIAN, 2, 1);
+
+        final RetainableByteBuffer [] bufs = new RetainableByteBuffer[100];
+        for (int idx=0; idx<bufs.length; idx++) {
+            bufs[idx] = pool.alloc(1000);
+            if (!bufs[idx].getNioByteBuffer().isDirect()) {
+                throw new Exception("arena buffer is not direct");
+            }
+            bufs[idx].putInt(idx).putLong(idx);
+        }
+        for (int idx=0; idx<bufs.length; idx++) {
+            if ((bufs[idx].getInt(0) != idx) || (bufs[idx].getLong(4) != idx)) {
+                throw new Exception("arena buffer data corrupted");
+            }
+            bufs[idx].release();
+        }
+
+        final RetainableDataBlockCache cache = new RetainableDataBlockCache(arena, 4096, ByteOrder.BIG_ENDIAN, 2, 2);
+        RetainableDataBlock dataBlock = cache.get(4);
+        while (dataBlock != null) {
+            final RetainableDataBlock next = dataBlock.next;
+            dataBlock.next = null;
+            if ((dataBlock.wr.capacity() != 4096) || (dataBlock.rd.order() != ByteOrder.BIG_ENDIAN)) {
+                throw new Exception("wrong arena data block");
+            }
+            dataBlock.release();
+            dataBlock = next;
+        }
+
+        /* Arena memory can not be released separately,
+         * cache should keep all blocks even over the max size.
+         */
+        final long allocatedSize = arena.getAllocatedSize();
+        dataBlock = cache.get(4);
+        if (arena.getAllocatedSize() != allocatedSize) {
+            throw new Exception("arena data blocks were not reused");
+        }
+        final RetainableByteBuffer rd = dataBlock.rd;
+        while (dataBlock != null) {
+            final RetainableDataBlock next = dataBlock.next;
+            dataBlock.next = null;
+            dataBlock.release();
+            dataBlock = next;
+        }
+
+        pool.release(logger);
+        cache.clear(logger);
+        arena.close();
+
+        try {
+            rd.getInt(0);
+            throw new Exception("arena memory is still accessible after close");
+        } catch (final IllegalStateException ex) {
+            /* expected */
+        }
+    }
+
+    private static void stripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter(4);
+        final Thread [] threads = new Thread[8];
+        for (int idx=0; idx<threads.length; idx++) {
+            threads[idx] = new Thread(() -> {
+                for (int cc=0; cc<100000; cc++) {
+                    counter.increment();
+                    counter.add(2);
+                }
+            });
+            threads[idx].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        if (counter.get() != (threads.length * 100000L * 3)) {
+            throw new Exception("wrong striped counter value " + counter.get());
+        }
+    }
+
+    private static void latencyHistogram() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram(7, 4);
+        final Thread [] threads = new Thread[4];
+        for (int idx=0; idx<threads.length; idx++) {
+            threads[idx] = new Thread(() -> {
+                for (long value=1; value<=100000; value++) {
+                    histogram.record(value);
+                }
+            });
+            threads[idx].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getIntervalSnapshot();
+        if ((snapshot.getCount() != 400000) || (snapshot.getMin() != 1) || (snapshot.getMax() != 100000)) {
+            throw new Exception("wrong histogram snapshot " + snapshot);
+        }
+        final double [] percentiles = { 50.0, 99.0, 99.9 };
+        for (double percentile: percentiles) {
+            final double expected = (percentile * 1000);
+            final long value = snapshot.getValueAtPercentile(percentile);
+            if (Math.abs(value - expected) > (expected / 64)) {
+                throw new Exception("wrong histogram p" + percentile + " value " + value);
+            }
+        }
+
+        histogram.record(1000000);
+        final LatencyHistogram.Snapshot interval = histogram.getIntervalSnapshot();
+        if ((interval.getCount() != 1) || (interval.getValueAtPercentile(50.0) != 1000000)) {
+            throw new Exception("wrong histogram interval snapshot " + interval);
+        }
+
+        final LatencyHistogram.Snapshot merged = snapshot.merge(interval);
+        if ((merged.getCount() != 400001) || (merged.getMax() != 1000000)
+                || (merged.getSum() != (snapshot.getSum() + 1000000))) {
+            throw new Exception("wrong merged histogram snapshot " + merged);
+        }
+    }
+
     private static int runTest(TestFunc testFunc) {
         try {
             testFunc.run();
@@ -55,6 +323,11 @@ public class Main {
     public static void main(String [] args) {
         int failedTests = 0;
         failedTests += runTest(Main::dataBlockInheritsByteOrder);
+        failedTests += runTest(Main::compositeBufferGetPut);
+        failedTests += runTest(Main::streamDefraggerZeroCopy);
+        failedTests += runTest(Main::memoryArena);
+        failedTests += runTest(Main::stripedCounter);
+        failedTests += runTest(Main::latencyHistogram);
         System.out.println(failedTests + " tests failed");
         System.exit((failedTests == 0) ? 0 : -1);
     }